@@ -0,0 +1,381 @@
+package org.sheedon.compilationtool.batch;
+
+import org.sheedon.compilationtool.retrieval.library.ClassSignature;
+import org.sheedon.compilationtool.retrieval.library.GenericsIndex;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * 离线批量检索：通过 javax.tools 对整个源码目录或 jar 集合执行
+ * ClassGenericsRetrieval/InterfaceGenericsRetrieval，结果写出为 {@link GenericsIndex} 索引文件，
+ * 可提交到版本库，避免每次增量编译重新检索。
+ * <p>
+ * 源码文件与 jar 中的类合并后按类名排序，切分为若干非空分片，每个分片在独立的 javac 任务（-proc:only）中并行检索，
+ * 分片之间不共享 javac 对象；源码目录同时作为 sourcepath，跨分片引用的类型按需加载。
+ * <pre>
+ * java -cp compilation-tool.jar org.sheedon.compilationtool.batch.BatchAnalyzer \
+ *     --target com.example.TargetClass --source src/main/java --classpath libs/a.jar:libs/b.jar \
+ *     --filter java. --output generics.idx
+ * </pre>
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 11:40 上午
+ */
+public class BatchAnalyzer {
+
+    private static final String USAGE = "usage: BatchAnalyzer --target <class> --output <file>"
+            + " [--interface] [--source <dir>]... [--jar <file>]... [--classpath <path>]"
+            + " [--filter <package>]... [--shards <n>] [--encoding <charset>]";
+
+    // 目标类全类名
+    private final String target;
+    // 是否为接口检索
+    private final boolean interfaceRetrieval;
+    // 过滤的包名
+    private final Set<String> filterablePackages;
+    // 源码目录
+    private final List<File> sourceRoots;
+    // 需要检索的 jar
+    private final List<File> jars;
+    // 其他依赖
+    private final String classpath;
+    // 分片数
+    private final int shards;
+    // 源码编码
+    private final Charset encoding;
+
+    public BatchAnalyzer(String target, boolean interfaceRetrieval, Set<String> filterablePackages,
+                         List<File> sourceRoots, List<File> jars, String classpath,
+                         int shards, Charset encoding) {
+        this.target = target;
+        this.interfaceRetrieval = interfaceRetrieval;
+        this.filterablePackages = filterablePackages;
+        this.sourceRoots = sourceRoots;
+        this.jars = jars;
+        this.classpath = classpath;
+        this.shards = Math.max(1, shards);
+        this.encoding = encoding;
+    }
+
+    public static void main(String[] args) {
+        String target = null;
+        String output = null;
+        boolean interfaceRetrieval = false;
+        Set<String> filterablePackages = new LinkedHashSet<>();
+        List<File> sourceRoots = new ArrayList<>();
+        List<File> jars = new ArrayList<>();
+        String classpath = null;
+        int shards = Runtime.getRuntime().availableProcessors();
+        Charset encoding = Charset.forName("UTF-8");
+
+        try {
+            for (int index = 0; index < args.length; index++) {
+                String arg = args[index];
+                if ("--interface".equals(arg)) {
+                    interfaceRetrieval = true;
+                    continue;
+                }
+                if (index + 1 >= args.length) {
+                    throw new IllegalArgumentException("missing value for " + arg);
+                }
+                String value = args[++index];
+                switch (arg) {
+                    case "--target":
+                        target = value;
+                        break;
+                    case "--output":
+                        output = value;
+                        break;
+                    case "--source":
+                        sourceRoots.add(new File(value));
+                        break;
+                    case "--jar":
+                        jars.add(new File(value));
+                        break;
+                    case "--classpath":
+                        classpath = value;
+                        break;
+                    case "--filter":
+                        filterablePackages.add(value);
+                        break;
+                    case "--shards":
+                        shards = Integer.parseInt(value);
+                        break;
+                    case "--encoding":
+                        encoding = Charset.forName(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option " + arg);
+                }
+            }
+            if (target == null || output == null || (sourceRoots.isEmpty() && jars.isEmpty())) {
+                throw new IllegalArgumentException("--target, --output and a --source or --jar are required");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        BatchAnalyzer analyzer = new BatchAnalyzer(target, interfaceRetrieval, filterablePackages,
+                sourceRoots, jars, classpath, shards, encoding);
+        long start = System.nanoTime();
+        try {
+            GenericsIndex index = analyzer.analyze();
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(output))) {
+                index.write(outputStream);
+            }
+            System.out.println(String.format(Locale.ROOT, "indexed %d types into %s in %d ms",
+                    index.size(), output, (System.nanoTime() - start) / 1_000_000));
+        } catch (IOException | InterruptedException e) {
+            System.err.println("batch analysis failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 执行批量检索
+     *
+     * @return 合并后的索引
+     * @throws IOException 读取源码/jar 失败，或分片检索异常
+     */
+    public GenericsIndex analyze() throws IOException, InterruptedException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("no system java compiler, run with a JDK");
+        }
+
+        List<WorkItem> items = new ArrayList<>();
+        for (File sourceRoot : sourceRoots) {
+            collectSources(sourceRoot, sourceRoot, items);
+        }
+        for (File jar : jars) {
+            collectClassNames(jar, items);
+        }
+        if (items.isEmpty()) {
+            throw new IOException("no source files or classes to analyze");
+        }
+        items.sort(Comparator.comparing((WorkItem item) -> item.name)
+                .thenComparing(item -> item.source == null ? "" : item.source.getPath()));
+
+        // 源码与类合并后连续切分，同一包内的类型位于同一分片，共用父类的检索记录；分片数不超过条目数，分片均不为空
+        int shardCount = Math.min(shards, items.size());
+        List<Callable<GenericsIndex>> tasks = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            List<File> sources = new ArrayList<>();
+            List<String> classNames = new ArrayList<>();
+            for (WorkItem item : slice(items, shard, shardCount)) {
+                if (item.source != null) {
+                    sources.add(item.source);
+                } else {
+                    classNames.add(item.name);
+                }
+            }
+            tasks.add(createShard(compiler, sources, classNames));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(shardCount);
+        try {
+            GenericsIndex index = null;
+            for (Future<GenericsIndex> future : executor.invokeAll(tasks)) {
+                GenericsIndex shardIndex = getShard(future);
+                if (index == null) {
+                    index = shardIndex;
+                } else {
+                    index.putAll(shardIndex);
+                }
+            }
+            return index;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<GenericsIndex> createShard(final JavaCompiler compiler, final List<File> sources,
+                                                final List<String> classNames) {
+        return new Callable<GenericsIndex>() {
+            @Override
+            public GenericsIndex call() throws Exception {
+                DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+                try (StandardJavaFileManager fileManager =
+                             compiler.getStandardFileManager(diagnostics, Locale.ROOT, encoding)) {
+                    List<String> options = new ArrayList<>();
+                    options.add("-proc:only");
+                    options.add("-implicit:none");
+                    options.add("-encoding");
+                    options.add(encoding.name());
+                    options.add("-classpath");
+                    options.add(classpath());
+                    if (!sourceRoots.isEmpty()) {
+                        options.add("-sourcepath");
+                        options.add(join(sourceRoots));
+                    }
+
+                    BatchRetrievalProcessor processor =
+                            new BatchRetrievalProcessor(target, interfaceRetrieval, filterablePackages);
+                    JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options,
+                            classNames.isEmpty() ? null : classNames,
+                            fileManager.getJavaFileObjectsFromFiles(sources));
+                    task.setProcessors(Collections.singletonList(processor));
+                    task.call();
+
+                    GenericsIndex index = processor.getIndex();
+                    if (index == null) {
+                        throw new IOException(firstError(diagnostics));
+                    }
+                    return index;
+                }
+            }
+        };
+    }
+
+    private static GenericsIndex getShard(Future<GenericsIndex> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("shard failed", cause);
+        }
+    }
+
+    /**
+     * 检索所用 classpath：jar 集合 + 其他依赖
+     */
+    private String classpath() {
+        String jarPath = join(jars);
+        if (classpath == null || classpath.isEmpty()) {
+            return jarPath;
+        }
+        return jarPath.isEmpty() ? classpath : jarPath + File.pathSeparator + classpath;
+    }
+
+    private static String firstError(DiagnosticCollector<JavaFileObject> diagnostics) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                return diagnostic.getMessage(Locale.ROOT);
+            }
+        }
+        return "batch retrieval did not run";
+    }
+
+    /**
+     * 源码文件，以相对源码目录的路径作为排序用的类名
+     */
+    private static void collectSources(File root, File file, List<WorkItem> items) {
+        File[] children = file.listFiles();
+        if (children == null) {
+            if (file.getName().endsWith(".java")
+                    && !file.getName().equals("package-info.java")
+                    && !file.getName().equals("module-info.java")) {
+                String path = root.toURI().relativize(file.toURI()).getPath();
+                items.add(new WorkItem(path.substring(0, path.length() - ".java".length()).replace('/', '.'), file));
+            }
+            return;
+        }
+        for (File child : children) {
+            collectSources(root, child, items);
+        }
+    }
+
+    /**
+     * jar 中顶层类的全类名，成员类由处理器沿外部类检索，跳过多版本目录。
+     * 是否为顶层类由 class 文件的 InnerClasses 属性判断，类名中含 $ 的顶层类同样收集。
+     */
+    private static void collectClassNames(File jar, List<WorkItem> items) throws IOException {
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (!name.endsWith(".class") || name.startsWith("META-INF/")
+                        || name.endsWith("package-info.class") || name.endsWith("module-info.class")) {
+                    continue;
+                }
+                String binaryName = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+                if (binaryName.indexOf('$') != -1 && !isTopLevel(jarFile, entry)) {
+                    continue;
+                }
+                items.add(new WorkItem(binaryName, null));
+            }
+        }
+    }
+
+    private static boolean isTopLevel(JarFile jarFile, JarEntry entry) throws IOException {
+        try (InputStream inputStream = jarFile.getInputStream(entry)) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            ClassSignature signature = ClassSignature.read(outputStream.toByteArray());
+            return signature != null && signature.isTopLevel();
+        }
+    }
+
+    private static <T> List<T> slice(List<T> items, int shard, int shardCount) {
+        int from = (int) ((long) items.size() * shard / shardCount);
+        int to = (int) ((long) items.size() * (shard + 1) / shardCount);
+        return items.subList(from, to);
+    }
+
+    /**
+     * 分片条目：源码文件或 jar 中的类
+     */
+    private static final class WorkItem {
+        // 类名，源码文件为相对源码目录的路径
+        private final String name;
+        // 源码文件，jar 中的类为null
+        private final File source;
+
+        WorkItem(String name, File source) {
+            this.name = name;
+            this.source = source;
+        }
+    }
+
+    private static String join(List<File> files) {
+        StringBuilder builder = new StringBuilder();
+        for (File file : files) {
+            if (builder.length() > 0) {
+                builder.append(File.pathSeparator);
+            }
+            builder.append(file.getPath());
+        }
+        return builder.toString();
+    }
+}
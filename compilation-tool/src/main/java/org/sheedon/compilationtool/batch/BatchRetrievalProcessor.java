@@ -0,0 +1,130 @@
+package org.sheedon.compilationtool.batch;
+
+import org.sheedon.compilationtool.retrieval.ClassGenericsRetrieval;
+import org.sheedon.compilationtool.retrieval.InterfaceGenericsRetrieval;
+import org.sheedon.compilationtool.retrieval.core.AbstractGenericsRetrieval;
+import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
+import org.sheedon.compilationtool.retrieval.core.IRetrieval;
+import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+import org.sheedon.compilationtool.retrieval.library.GenericsIndex;
+import org.sheedon.compilationtool.retrieval.library.LibraryBinding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * 批量检索中每个分片使用的处理器：对分片内的全部类型（含内部类）执行泛型检索，
+ * 结果以 {@link LibraryBinding} 存入分片索引，不生成任何文件。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 11:20 上午
+ */
+class BatchRetrievalProcessor extends AbstractProcessor {
+
+    private final String target;
+    private final boolean interfaceRetrieval;
+    private final Set<String> filterablePackages;
+
+    private Types mTypeUtils;
+    private TypeElement targetElement;
+    private AbstractGenericsRetrieval retrieval;
+    // 分片索引
+    private GenericsIndex index;
+
+    BatchRetrievalProcessor(String target, boolean interfaceRetrieval, Set<String> filterablePackages) {
+        this.target = target;
+        this.interfaceRetrieval = interfaceRetrieval;
+        this.filterablePackages = filterablePackages;
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mTypeUtils = processingEnv.getTypeUtils();
+        targetElement = processingEnv.getElementUtils().getTypeElement(target);
+        if (targetElement == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "target not found: " + target);
+            return;
+        }
+
+        final List<String> names = new ArrayList<>();
+        for (TypeParameterElement parameter : targetElement.getTypeParameters()) {
+            names.add(parameter.getSimpleName().toString());
+        }
+        IRetrieval.AbstractRetrieval config = new IRetrieval.AbstractRetrieval() {
+            @Override
+            public String canonicalName() {
+                return target;
+            }
+
+            @Override
+            public Set<String> filterablePackages() {
+                return filterablePackages;
+            }
+
+            @Override
+            public IGenericsRecord genericsRecord() {
+                return new TargetGenericsRecord(names);
+            }
+        };
+        config.bindTargetElement(targetElement);
+        retrieval = interfaceRetrieval ? new InterfaceGenericsRetrieval(config) : new ClassGenericsRetrieval(config);
+        index = new GenericsIndex(target, interfaceRetrieval, names.size());
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (retrieval == null || roundEnv.processingOver()) {
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                searchType((TypeElement) element);
+            }
+        }
+        return false;
+    }
+
+    private void searchType(TypeElement element) {
+        if (element != targetElement) {
+            RetrievalClassModel model = retrieval.searchGenerics(element, mTypeUtils);
+            // 含通配符等无法描述的类型时不存入，使用时回退到 javac 检索
+            index.put(element.getQualifiedName().toString(), LibraryBinding.of(model, element, targetElement));
+        }
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement) {
+                searchType((TypeElement) enclosed);
+            }
+        }
+    }
+
+    /**
+     * 分片索引，目标类不存在时为null
+     */
+    GenericsIndex getIndex() {
+        return index;
+    }
+}
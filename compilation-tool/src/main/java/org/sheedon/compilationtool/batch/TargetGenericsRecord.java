@@ -0,0 +1,74 @@
+package org.sheedon.compilationtool.batch;
+
+import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * 按目标类泛型名称存储的泛型记录，用于批量检索时未提供专用记录类的目标类
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 11:00 上午
+ */
+class TargetGenericsRecord implements IGenericsRecord {
+
+    // 目标类泛型名称
+    private final List<String> names;
+    // 泛型组
+    private TypeMirror[] genericsArray;
+    // 已设置个数
+    private int count;
+
+    TargetGenericsRecord(List<String> names) {
+        this.names = names;
+        this.genericsArray = new TypeMirror[names.size()];
+    }
+
+    @Override
+    public void put(String typeName, TypeMirror typeMirror) {
+        int index = names.indexOf(typeName);
+        if (index == -1) {
+            return;
+        }
+        if (genericsArray[index] == null) {
+            count++;
+        }
+        genericsArray[index] = typeMirror;
+    }
+
+    @Override
+    public TypeMirror get(String typeName) {
+        int index = names.indexOf(typeName);
+        return index == -1 ? null : genericsArray[index];
+    }
+
+    @Override
+    public boolean isCompeted() {
+        return count == genericsArray.length;
+    }
+
+    @Override
+    public IGenericsRecord clone() {
+        try {
+            TargetGenericsRecord record = (TargetGenericsRecord) super.clone();
+            record.genericsArray = genericsArray.clone();
+            return record;
+        } catch (CloneNotSupportedException e) {
+            TargetGenericsRecord record = new TargetGenericsRecord(names);
+            record.genericsArray = genericsArray.clone();
+            record.count = count;
+            return record;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TargetGenericsRecord{" +
+                "genericsArray=" + Arrays.toString(genericsArray) +
+                '}';
+    }
+}
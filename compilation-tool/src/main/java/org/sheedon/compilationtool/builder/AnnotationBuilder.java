@@ -1,6 +1,8 @@
 package org.sheedon.compilationtool.builder;
 
 import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,4 +26,11 @@ public class AnnotationBuilder {
         Annotation annotation = annotationMap.get(annotationClass);
         return annotation == null ? null : (A) annotation;
     }
+
+    /**
+     * 已附加的全部注解
+     */
+    public Collection<Annotation> getAnnotations() {
+        return Collections.unmodifiableCollection(annotationMap.values());
+    }
 }
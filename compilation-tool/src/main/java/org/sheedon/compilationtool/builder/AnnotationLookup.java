@@ -0,0 +1,274 @@
+package org.sheedon.compilationtool.builder;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * 沿继承结构的注解查询，结果按（类型, 注解）和（注解类型, 元注解）缓存，首次查询后直接返回。
+ * <p>
+ * 1.继承注解：在类型自身、父类链、接口中查找最近的注解，父类优先于接口；
+ * 父类型的结果被所有子类共用，N 个子类继承同一父类时，父类只查找一次。
+ * 2.元注解：注解类型自身或其注解的注解类型上（逐层向上）是否带有元注解，可处理互相引用的注解。
+ * <p>
+ * 继承结构中有尚未生成的类型，或途经的注解类型尚未生成时，结果不缓存，后续轮次生成后重新查找。
+ * 元素上直接声明的注解按注解全类名索引一次，含尚未生成的注解类型时同样不缓存。
+ * 部分 javac 版本不返回类型尚未生成的注解（getAnnotationMirrors 中直接缺失），无法据此判断，
+ * 处理器在每轮开始时调用 {@link #beginRound(RoundEnvironment)}，新的一轮清空全部缓存。同一编译中的多个处理器可通过
+ * RetrievalRegistry.annotationLookup() 共用同一个实例。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/17 10:20 上午
+ */
+public class AnnotationLookup {
+
+    // 元素 - （注解全类名 - 直接声明的注解）
+    private final Map<Element, Map<String, AnnotationMirror>> declaredMap = new HashMap<>();
+    // 注解全类名 - （类型 - 声明该注解的最近类型，不存在时为null）
+    private final Map<String, Map<TypeElement, TypeElement>> inheritedMap = new HashMap<>();
+    // 元注解全类名 - （注解类型 - 元注解，不存在时为null）
+    private final Map<String, Map<TypeElement, AnnotationMirror>> metaMap = new HashMap<>();
+    // 当前查找的继承结构中是否有尚未生成的类型（ERROR），此时结果不缓存，后续轮次重新查找
+    private boolean erroneous;
+    // 当前轮次，多个处理器共用实例时同一轮只清空一次
+    private RoundEnvironment round;
+
+    /**
+     * 开始新的一轮：与上次传入的轮次不同时清空缓存，上一轮生成的类型及其注解在本轮重新查找
+     *
+     * @param roundEnv 当前轮次
+     */
+    public void beginRound(RoundEnvironment roundEnv) {
+        if (round == roundEnv) {
+            return;
+        }
+        round = roundEnv;
+        declaredMap.clear();
+        inheritedMap.clear();
+        metaMap.clear();
+    }
+
+    /**
+     * 元素上直接声明的注解
+     *
+     * @param element        元素
+     * @param annotationName 注解全类名
+     * @return AnnotationMirror，不存在时返回null
+     */
+    public AnnotationMirror findDeclared(Element element, String annotationName) {
+        return declaredAnnotations(element).get(annotationName);
+    }
+
+    /**
+     * 类型自身或其父类型上最近的注解，父类链优先于接口
+     *
+     * @param type           类型元素
+     * @param annotationName 注解全类名
+     * @return AnnotationMirror，不存在时返回null
+     */
+    public AnnotationMirror findInherited(TypeElement type, String annotationName) {
+        TypeElement annotatedType = findAnnotatedType(type, annotationName);
+        return annotatedType == null ? null : findDeclared(annotatedType, annotationName);
+    }
+
+    public AnnotationMirror findInherited(TypeElement type, Class<? extends Annotation> annotationClass) {
+        return findInherited(type, annotationClass.getCanonicalName());
+    }
+
+    /**
+     * 声明该注解的最近类型：类型自身、父类链，其次接口
+     *
+     * @param type           类型元素
+     * @param annotationName 注解全类名
+     * @return 声明注解的类型，不存在时返回null
+     */
+    public TypeElement findAnnotatedType(TypeElement type, String annotationName) {
+        Map<TypeElement, TypeElement> annotatedTypes = inheritedMap.get(annotationName);
+        if (annotatedTypes == null) {
+            annotatedTypes = new HashMap<>();
+            inheritedMap.put(annotationName, annotatedTypes);
+        }
+        return findAnnotatedType(type, annotationName, annotatedTypes);
+    }
+
+    private TypeElement findAnnotatedType(TypeElement type, String annotationName,
+                                          Map<TypeElement, TypeElement> annotatedTypes) {
+        if (annotatedTypes.containsKey(type)) {
+            return annotatedTypes.get(type);
+        }
+
+        boolean outerErroneous = erroneous;
+        erroneous = false;
+        TypeElement result = null;
+        if (declaredAnnotations(type).containsKey(annotationName)) {
+            result = type;
+        } else {
+            result = findInSupertype(type.getSuperclass(), annotationName, annotatedTypes);
+            for (TypeMirror mirror : type.getInterfaces()) {
+                if (result != null) {
+                    break;
+                }
+                result = findInSupertype(mirror, annotationName, annotatedTypes);
+            }
+        }
+        if (!erroneous) {
+            annotatedTypes.put(type, result);
+        }
+        erroneous |= outerErroneous;
+        return result;
+    }
+
+    private TypeElement findInSupertype(TypeMirror mirror, String annotationName,
+                                        Map<TypeElement, TypeElement> annotatedTypes) {
+        if (mirror != null && mirror.getKind() == TypeKind.ERROR) {
+            erroneous = true;
+            return null;
+        }
+        TypeElement element = asTypeElement(mirror);
+        return element == null ? null : findAnnotatedType(element, annotationName, annotatedTypes);
+    }
+
+    /**
+     * 注解类型自身或其注解的注解类型上（逐层向上）的元注解
+     *
+     * @param annotationType 注解类型元素
+     * @param metaName       元注解全类名
+     * @return AnnotationMirror，不存在时返回null
+     */
+    public AnnotationMirror findMetaAnnotation(TypeElement annotationType, String metaName) {
+        Map<TypeElement, AnnotationMirror> metaAnnotations = metaMap.get(metaName);
+        if (metaAnnotations == null) {
+            metaAnnotations = new HashMap<>();
+            metaMap.put(metaName, metaAnnotations);
+        }
+        if (metaAnnotations.containsKey(annotationType)) {
+            return metaAnnotations.get(annotationType);
+        }
+
+        boolean outerErroneous = erroneous;
+        erroneous = false;
+        AnnotationMirror result = searchMeta(annotationType, metaName, metaAnnotations, new HashSet<TypeElement>());
+        if (!erroneous) {
+            metaAnnotations.put(annotationType, result);
+        }
+        erroneous |= outerErroneous;
+        return result;
+    }
+
+    public AnnotationMirror findMetaAnnotation(TypeElement annotationType, Class<? extends Annotation> metaClass) {
+        return findMetaAnnotation(annotationType, metaClass.getCanonicalName());
+    }
+
+    /**
+     * 深度优先查找元注解，只缓存最外层的结果：互相引用的注解在查找中途的结果可能不完整
+     */
+    private AnnotationMirror searchMeta(TypeElement annotationType, String metaName,
+                                        Map<TypeElement, AnnotationMirror> metaAnnotations,
+                                        Set<TypeElement> visiting) {
+        if (metaAnnotations.containsKey(annotationType)) {
+            return metaAnnotations.get(annotationType);
+        }
+        if (!visiting.add(annotationType)) {
+            return null;
+        }
+
+        Map<String, AnnotationMirror> declared = declaredAnnotations(annotationType);
+        AnnotationMirror direct = declared.get(metaName);
+        if (direct != null) {
+            return direct;
+        }
+        for (AnnotationMirror mirror : declared.values()) {
+            TypeElement element = asTypeElement(mirror.getAnnotationType());
+            if (element == null) {
+                continue;
+            }
+            AnnotationMirror result = searchMeta(element, metaName, metaAnnotations, visiting);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 元素上直接声明、且注解类型带有指定元注解的注解，例如带有 @Qualifier 的注解
+     *
+     * @param element  元素
+     * @param metaName 元注解全类名
+     * @return 注解，按声明顺序
+     */
+    public List<AnnotationMirror> findAnnotatedWith(Element element, String metaName) {
+        List<AnnotationMirror> result = new ArrayList<>();
+        for (AnnotationMirror mirror : declaredAnnotations(element).values()) {
+            TypeElement annotationType = asTypeElement(mirror.getAnnotationType());
+            if (annotationType != null && findMetaAnnotation(annotationType, metaName) != null) {
+                result.add(mirror);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 直接声明的注解，含尚未生成的注解类型（ERROR）时标记 erroneous，结果不缓存
+     */
+    private Map<String, AnnotationMirror> declaredAnnotations(Element element) {
+        Map<String, AnnotationMirror> declared = declaredMap.get(element);
+        if (declared != null) {
+            return declared;
+        }
+
+        boolean complete = true;
+        List<? extends AnnotationMirror> mirrors = element.getAnnotationMirrors();
+        if (mirrors.isEmpty()) {
+            declared = Collections.emptyMap();
+        } else {
+            declared = new LinkedHashMap<>();
+            for (AnnotationMirror mirror : mirrors) {
+                if (mirror.getAnnotationType().getKind() == TypeKind.ERROR) {
+                    complete = false;
+                    continue;
+                }
+                TypeElement annotationType = asTypeElement(mirror.getAnnotationType());
+                if (annotationType != null) {
+                    declared.put(annotationType.getQualifiedName().toString(), mirror);
+                }
+            }
+        }
+        if (complete) {
+            declaredMap.put(element, declared);
+        } else {
+            erroneous = true;
+        }
+        return declared;
+    }
+
+    private static TypeElement asTypeElement(TypeMirror mirror) {
+        if (mirror == null || mirror.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        Element element = ((DeclaredType) mirror).asElement();
+        return element instanceof TypeElement ? (TypeElement) element : null;
+    }
+
+    /**
+     * 已缓存直接声明注解的元素数量
+     */
+    public int size() {
+        return declaredMap.size();
+    }
+}
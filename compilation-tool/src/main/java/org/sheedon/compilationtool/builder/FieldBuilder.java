@@ -1,5 +1,9 @@
 package org.sheedon.compilationtool.builder;
 
+import java.util.Collections;
+import java.util.Set;
+
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
 
@@ -13,8 +17,10 @@ import javax.lang.model.type.TypeMirror;
 public class FieldBuilder extends AnnotationBuilder {
 
     private final TypeBuilder typeBuilder;
+    private VariableElement element;
     private String name;
     private TypeMirror returnType;
+    private Set<Modifier> modifiers = Collections.emptySet();
 
     public FieldBuilder(TypeBuilder typeBuilder, VariableElement element) {
         this.typeBuilder = typeBuilder;
@@ -23,14 +29,20 @@ public class FieldBuilder extends AnnotationBuilder {
 
     private void attachVariableElement(VariableElement element) {
         if (element == null) return;
+        this.element = element;
         this.name = element.getSimpleName().toString();
         this.returnType = element.asType();
+        this.modifiers = element.getModifiers();
     }
 
     public TypeBuilder getTypeBuilder() {
         return typeBuilder;
     }
 
+    public VariableElement getElement() {
+        return element;
+    }
+
     public String getName() {
         return name;
     }
@@ -38,4 +50,8 @@ public class FieldBuilder extends AnnotationBuilder {
     public TypeMirror getReturnType() {
         return returnType;
     }
+
+    public Set<Modifier> getModifiers() {
+        return modifiers;
+    }
 }
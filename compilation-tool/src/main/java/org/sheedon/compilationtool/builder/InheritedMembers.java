@@ -0,0 +1,383 @@
+package org.sheedon.compilationtool.builder;
+
+import org.sheedon.compilationtool.utils.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.util.Types;
+
+/**
+ * 包含继承成员的视图，每个类型只创建一次 {@link MemberView}，父类型视图在所有子类间共用，
+ * N 个子类继承同一深层父类时，只需为每个子类处理其自身声明的成员。
+ * <p>
+ * 方法按在当前类型上替换泛型并擦除后的签名索引，例如 Base&lt;T&gt;.set(T) 在 Sub extends Base&lt;String&gt;
+ * 上的签名为 set(java.lang.String)，与 Sub.set(String) 落在同一签名下。
+ * 子类只为自身声明的方法、签名随泛型实参改变的父类方法和新实现的接口建立签名桶，其余签名沿父类视图查找。
+ * <p>
+ * 覆盖条件：同一签名下，覆盖方法的声明类为被覆盖方法声明类的子类型，两者均非私有、非静态，
+ * 包私有方法只被同包的方法覆盖；类从父类继承的非抽象方法实现接口中的同签名方法。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 4:40 下午
+ */
+public class InheritedMembers {
+
+    private final Types types;
+    // 类型 - 成员视图
+    private final Map<TypeElement, MemberView> views = new HashMap<>();
+
+    public InheritedMembers(Types types) {
+        this.types = types;
+    }
+
+    /**
+     * 获取类型的成员视图
+     *
+     * @param element 类型元素
+     * @return MemberView
+     */
+    public MemberView of(TypeElement element) {
+        MemberView view = views.get(element);
+        if (view == null) {
+            view = createView(element);
+            views.put(element, view);
+        }
+        return view;
+    }
+
+    private MemberView createView(TypeElement element) {
+        List<MemberView> parents = new ArrayList<>();
+        List<DeclaredType> parentTypes = new ArrayList<>();
+        appendParent(parents, parentTypes, element.getSuperclass());
+        for (TypeMirror mirror : element.getInterfaces()) {
+            appendParent(parents, parentTypes, mirror);
+        }
+
+        List<VariableElement> fields = new ArrayList<>();
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed instanceof VariableElement) {
+                fields.add((VariableElement) enclosed);
+            } else if (enclosed.getKind() == ElementKind.METHOD) {
+                methods.add((ExecutableElement) enclosed);
+            }
+        }
+
+        MemberView view = new MemberView(this, element, Collections.unmodifiableList(fields),
+                Collections.unmodifiableList(methods), Collections.unmodifiableList(parents));
+        new IndexBuilder(view, parentTypes).build();
+        return view;
+    }
+
+    private void appendParent(List<MemberView> parents, List<DeclaredType> parentTypes, TypeMirror mirror) {
+        if (mirror == null || mirror.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+        Element element = types.asElement(mirror);
+        if (element instanceof TypeElement) {
+            parents.add(of((TypeElement) element));
+            parentTypes.add((DeclaredType) mirror);
+        }
+    }
+
+    /**
+     * 为一个视图建立相对基础视图的签名桶：
+     * 1.基础视图以实际类型继承时，重新计算其泛型方法的签名。
+     * 2.合并基础视图未继承的父类型（例如新实现的接口）的全部签名桶。
+     * 3.自身声明的方法置于对应签名桶之前。
+     */
+    private final class IndexBuilder {
+
+        private final MemberView view;
+        private final List<DeclaredType> parentTypes;
+        private final MemberView base;
+        // 签名 - 方法，写入时从基础视图复制
+        private final Map<String, List<ExecutableElement>> changed = new LinkedHashMap<>();
+        private final Map<ExecutableElement, String> signatures = new HashMap<>();
+        private final List<ExecutableElement> genericMethods = new ArrayList<>();
+
+        IndexBuilder(MemberView view, List<DeclaredType> parentTypes) {
+            this.view = view;
+            this.parentTypes = parentTypes;
+            this.base = view.getBase();
+        }
+
+        void build() {
+            List<MemberView> parents = view.getParents();
+            for (int index = 0; index < parents.size(); index++) {
+                MemberView parent = parents.get(index);
+                boolean parameterized = !parentTypes.get(index).getTypeArguments().isEmpty();
+                if (index == 0) {
+                    rebindBase(parameterized);
+                } else if (!isSubtype(base.getType(), parent.getType())) {
+                    merge(parent, parameterized);
+                }
+            }
+
+            Map<String, List<ExecutableElement>> buckets = new LinkedHashMap<>();
+            for (ExecutableElement method : view.getDeclaredMethods()) {
+                String signature = signatureOf(method.getSimpleName(), method.getParameters());
+                signatures.put(method, signature);
+                if (hasTypeVariable(method.asType())) {
+                    genericMethods.add(method);
+                }
+                List<ExecutableElement> bucket = buckets.get(signature);
+                if (bucket == null) {
+                    bucket = new ArrayList<>(1);
+                    buckets.put(signature, bucket);
+                }
+                bucket.add(method);
+            }
+            for (Map.Entry<String, List<ExecutableElement>> entry : buckets.entrySet()) {
+                List<ExecutableElement> inherited = changed.remove(entry.getKey());
+                entry.getValue().addAll(inherited != null ? inherited : lookup(entry.getKey()));
+            }
+            buckets.putAll(changed);
+
+            view.attachIndex(buckets.isEmpty() ? Collections.<String, List<ExecutableElement>>emptyMap() : buckets,
+                    signatures,
+                    genericMethods.isEmpty() ? Collections.<ExecutableElement>emptyList() : genericMethods);
+        }
+
+        /**
+         * 基础视图的泛型方法在当前类型上的签名
+         */
+        private void rebindBase(boolean parameterized) {
+            if (!parameterized) {
+                return;
+            }
+            for (ExecutableElement method : base.getGenericMethods()) {
+                ExecutableType memberType = memberType(method);
+                String signature = signatureOf(method.getSimpleName(), memberType);
+                String previous = base.signatureOf(method);
+                if (!signature.equals(previous)) {
+                    signatures.put(method, signature);
+                    bucket(previous).remove(method);
+                    add(bucket(signature), method);
+                }
+                if (hasTypeVariable(memberType)) {
+                    genericMethods.add(method);
+                }
+            }
+        }
+
+        /**
+         * 合并基础视图未继承的父类型中的全部方法
+         */
+        private void merge(MemberView parent, boolean parameterized) {
+            List<ExecutableElement> parentGenerics = parent.getGenericMethods();
+            for (Map.Entry<String, List<ExecutableElement>> entry : parent.flattenedBuckets().entrySet()) {
+                for (ExecutableElement method : entry.getValue()) {
+                    String signature = entry.getKey();
+                    if (parameterized && parentGenerics.contains(method)) {
+                        ExecutableType memberType = memberType(method);
+                        signature = signatureOf(method.getSimpleName(), memberType);
+                        if (hasTypeVariable(memberType)) {
+                            genericMethods.add(method);
+                        }
+                    }
+                    signatures.put(method, signature);
+                    add(bucket(signature), method);
+                }
+            }
+        }
+
+        /**
+         * 当前类型上可修改的签名桶，首次写入时复制基础视图的桶
+         */
+        private List<ExecutableElement> bucket(String signature) {
+            List<ExecutableElement> bucket = changed.get(signature);
+            if (bucket == null) {
+                bucket = new ArrayList<>(lookup(signature));
+                changed.put(signature, bucket);
+            }
+            return bucket;
+        }
+
+        private List<ExecutableElement> lookup(String signature) {
+            return base == null ? Collections.<ExecutableElement>emptyList() : base.findBySignature(signature);
+        }
+
+        private ExecutableType memberType(ExecutableElement method) {
+            try {
+                TypeMirror mirror = types.asMemberOf((DeclaredType) view.getType().asType(), method);
+                if (mirror instanceof ExecutableType) {
+                    return (ExecutableType) mirror;
+                }
+            } catch (IllegalArgumentException ignored) {
+                // 方法不属于当前类型
+            }
+            return (ExecutableType) method.asType();
+        }
+    }
+
+    private static void add(List<ExecutableElement> bucket, ExecutableElement method) {
+        if (!bucket.contains(method)) {
+            bucket.add(method);
+        }
+    }
+
+    private String signatureOf(CharSequence name, List<? extends VariableElement> parameters) {
+        List<TypeMirror> parameterTypes = new ArrayList<>(parameters.size());
+        for (VariableElement parameter : parameters) {
+            parameterTypes.add(parameter.asType());
+        }
+        return signatureOf(name, parameterTypes);
+    }
+
+    private String signatureOf(CharSequence name, ExecutableType memberType) {
+        return signatureOf(name, memberType.getParameterTypes());
+    }
+
+    /**
+     * 擦除后的签名，例如 set(java.lang.String)
+     */
+    String signatureOf(CharSequence name, Iterable<? extends TypeMirror> parameterTypes) {
+        StringBuilder builder = new StringBuilder(name).append('(');
+        boolean first = true;
+        for (TypeMirror parameterType : parameterTypes) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            builder.append(types.erasure(parameterType));
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * 参数类型是否直接为类的类型变量（或其数组），此类参数擦除后的类型随子类的泛型实参改变
+     */
+    private static boolean hasTypeVariable(TypeMirror mirror) {
+        if (!(mirror instanceof ExecutableType)) {
+            return false;
+        }
+        for (TypeMirror parameterType : ((ExecutableType) mirror).getParameterTypes()) {
+            while (parameterType.getKind() == TypeKind.ARRAY) {
+                parameterType = ((ArrayType) parameterType).getComponentType();
+            }
+            if (parameterType.getKind() == TypeKind.TYPEVAR
+                    && ((TypeVariable) parameterType).asElement().getEnclosingElement() instanceof TypeElement) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将同一签名下当前类型继承的方法加入结果：不含自身声明的方法、不可继承的方法，
+     * 以及被同一签名下其他方法覆盖或由父类方法实现的方法
+     */
+    void collectInherited(MemberView view, List<ExecutableElement> bucket, List<ExecutableElement> result) {
+        TypeElement type = view.getType();
+        for (ExecutableElement method : bucket) {
+            if (method.getEnclosingElement().equals(type) || !isInheritable(method)) {
+                continue;
+            }
+            if (!isOverridden(method, bucket)) {
+                result.add(method);
+            }
+        }
+    }
+
+    /**
+     * 方法是否被同一签名下的其他方法覆盖，或作为接口方法由父类继承的非抽象方法实现
+     *
+     * @param method 签名桶中的方法
+     * @param bucket 签名桶
+     */
+    boolean isOverridden(ExecutableElement method, List<ExecutableElement> bucket) {
+        boolean inInterface = isInterface(method);
+        for (ExecutableElement candidate : bucket) {
+            if (candidate == method) {
+                continue;
+            }
+            if (overrides(candidate, method)) {
+                return true;
+            }
+            if (inInterface && !isInterface(candidate) && isInheritable(candidate)
+                    && !candidate.getModifiers().contains(Modifier.ABSTRACT)
+                    && !candidate.getModifiers().contains(Modifier.STATIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 同一签名下 overrider 是否覆盖 overridden
+     */
+    boolean overrides(ExecutableElement overrider, ExecutableElement overridden) {
+        if (overrider == overridden || isStaticOrPrivate(overrider) || isStaticOrPrivate(overridden)) {
+            return false;
+        }
+        TypeElement subtype = (TypeElement) overrider.getEnclosingElement();
+        TypeElement supertype = (TypeElement) overridden.getEnclosingElement();
+        return isVisible(overridden, subtype) && !subtype.equals(supertype) && isSubtype(subtype, supertype);
+    }
+
+    /**
+     * 父类型中的方法对子类型是否可见：私有方法不可见，包私有方法只对同包类型可见
+     */
+    static boolean isVisible(ExecutableElement method, TypeElement subtype) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        if (modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.PROTECTED) || isInterface(method)) {
+            return true;
+        }
+        String packageName = ClassUtils.loadPackageName((TypeElement) method.getEnclosingElement());
+        return packageName != null && packageName.equals(ClassUtils.loadPackageName(subtype));
+    }
+
+    private boolean isSubtype(TypeElement subtype, TypeElement supertype) {
+        return types.isSubtype(types.erasure(subtype.asType()), types.erasure(supertype.asType()));
+    }
+
+    private static boolean isStaticOrPrivate(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        return modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.PRIVATE);
+    }
+
+    private static boolean isInterface(ExecutableElement method) {
+        return method.getEnclosingElement().getKind().isInterface();
+    }
+
+    /**
+     * 父类型中的方法能否被子类继承：私有方法和接口静态方法不能被继承
+     */
+    static boolean isInheritable(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return !(modifiers.contains(Modifier.STATIC) && isInterface(method));
+    }
+
+    /**
+     * 已创建的视图数量
+     */
+    public int size() {
+        return views.size();
+    }
+}
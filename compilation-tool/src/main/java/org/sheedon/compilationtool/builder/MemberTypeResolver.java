@@ -0,0 +1,132 @@
+package org.sheedon.compilationtool.builder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * 成员类型解析者，将父类中声明的字段/方法类型替换为子类上的实际泛型，
+ * 例如 Test3&lt;T,K,M&gt; 中类型为 T 的字段，在 Test4 中解析为 String。
+ * <p>
+ * 结果按（子类, 成员）缓存，同一解析者可在多个 TypeBuilder 间共用，
+ * 大量子类继承同一父类时，每个成员对每个子类只执行一次 Types.asMemberOf。
+ * 声明所在类不含泛型时无需替换，直接返回成员的声明类型，不按子类缓存。
+ * <p>
+ * 父类型的构造者及继承成员视图按类型元素缓存，共用同一解析者的 TypeBuilder 共用父类型构造者和方法签名桶，
+ * 大量子类继承同一深层父类时，父类型只构造、索引一次。在父类型构造者上附加的注解对共用它的全部子类可见。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 2:10 下午
+ */
+public class MemberTypeResolver {
+
+    private final Types types;
+    // 子类 - （成员 - 替换后的类型）
+    private final Map<TypeElement, Map<Element, TypeMirror>> memberTypes = new HashMap<>();
+    // 父类型 - 构造者
+    private final Map<TypeElement, TypeBuilder> ancestorBuilders = new HashMap<>();
+    // 继承成员视图，方法签名索引共用
+    private final InheritedMembers inheritedMembers;
+
+    public MemberTypeResolver(Types types) {
+        this.types = types;
+        this.inheritedMembers = new InheritedMembers(types);
+    }
+
+    /**
+     * 成员在子类上的类型：字段为 TypeMirror，方法为 ExecutableType
+     *
+     * @param subclass 子类
+     * @param member   字段或方法元素，声明在子类或其父类型中
+     * @return 替换泛型后的类型
+     */
+    public TypeMirror resolve(TypeElement subclass, Element member) {
+        if (!hasTypeVariables(member.getEnclosingElement()) || member.getModifiers().contains(Modifier.STATIC)) {
+            return member.asType();
+        }
+
+        Map<Element, TypeMirror> resolvedMap = memberTypes.get(subclass);
+        if (resolvedMap == null) {
+            resolvedMap = new HashMap<>();
+            memberTypes.put(subclass, resolvedMap);
+        }
+
+        TypeMirror mirror = resolvedMap.get(member);
+        if (mirror == null) {
+            mirror = loadType(subclass, member);
+            resolvedMap.put(member, mirror);
+        }
+        return mirror;
+    }
+
+    private TypeMirror loadType(TypeElement subclass, Element member) {
+        TypeMirror containing = subclass.asType();
+        if (containing.getKind() != TypeKind.DECLARED) {
+            return member.asType();
+        }
+        try {
+            return types.asMemberOf((DeclaredType) containing, member);
+        } catch (IllegalArgumentException e) {
+            // 成员不属于该子类
+            return member.asType();
+        }
+    }
+
+    /**
+     * 声明所在类及其外部类（非静态内部类）是否含有泛型
+     */
+    private static boolean hasTypeVariables(Element element) {
+        while (element instanceof TypeElement) {
+            TypeElement typeElement = (TypeElement) element;
+            if (!typeElement.getTypeParameters().isEmpty()) {
+                return true;
+            }
+            if (typeElement.getNestingKind() != NestingKind.MEMBER
+                    || typeElement.getModifiers().contains(Modifier.STATIC)
+                    || typeElement.getKind() != ElementKind.CLASS) {
+                return false;
+            }
+            element = typeElement.getEnclosingElement();
+        }
+        return false;
+    }
+
+    /**
+     * 父类型的构造者，同一父类型只构造一次
+     *
+     * @param element 父类型元素
+     * @return TypeBuilder
+     */
+    public TypeBuilder ancestorBuilder(TypeElement element) {
+        TypeBuilder builder = ancestorBuilders.get(element);
+        if (builder == null) {
+            builder = new TypeBuilder(element, types, this);
+            ancestorBuilders.put(element, builder);
+        }
+        return builder;
+    }
+
+    /**
+     * 继承成员视图，共用同一解析者的 TypeBuilder 共用父类型的视图及方法签名桶
+     */
+    InheritedMembers getInheritedMembers() {
+        return inheritedMembers;
+    }
+
+    /**
+     * 已缓存的子类数量
+     */
+    public int size() {
+        return memberTypes.size();
+    }
+}
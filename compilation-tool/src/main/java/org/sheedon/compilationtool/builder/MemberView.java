@@ -0,0 +1,228 @@
+package org.sheedon.compilationtool.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+
+/**
+ * 单个类型的成员视图，由 {@link InheritedMembers} 为每个类型创建一次。
+ * 视图只保存自身声明的字段/方法、父类型视图的引用，以及相对第一个父类型（基础视图）有变化的签名桶，
+ * 父类型部分由所有子类共用，查询签名时沿基础视图链查找，不复制父类型的方法表。
+ * <p>
+ * 签名桶：方法在当前类型上替换泛型并擦除后的签名「方法名(参数类型,...)」- 该签名下的全部方法，
+ * 当前类型在前，含被覆盖的方法。当前类型只为自身声明的方法、泛型替换后签名改变的父类型方法，
+ * 以及基础视图之外的父类型（例如新实现的接口）中的方法建立桶。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 4:10 下午
+ */
+public final class MemberView {
+
+    private final InheritedMembers owner;
+    private final TypeElement type;
+    // 自身声明的字段
+    private final List<VariableElement> fields;
+    // 自身声明的方法，不含构造方法
+    private final List<ExecutableElement> methods;
+    // 父类视图，其次接口视图
+    private final List<MemberView> parents;
+    // 基础视图，即第一个父类型视图，签名查询沿其向上查找
+    private final MemberView base;
+    // 签名 - 方法，只含相对基础视图有变化的签名，空列表表示该签名在当前类型上不再有方法
+    private Map<String, List<ExecutableElement>> buckets = Collections.emptyMap();
+    // 方法 - 签名，只含自身声明的方法及签名与基础视图不同的方法
+    private Map<ExecutableElement, String> signatures = Collections.emptyMap();
+    // 参数类型中仍含类型变量的方法，子类以实际类型继承时重新计算签名
+    private List<ExecutableElement> genericMethods = Collections.emptyList();
+    // 展开后的签名桶，作为其他类型的接口等非基础父类型时创建
+    private Map<String, List<ExecutableElement>> flattened;
+    // 全部字段，首次展开时创建
+    private List<VariableElement> allFields;
+    // 全部方法，首次展开时创建
+    private List<ExecutableElement> allMethods;
+
+    MemberView(InheritedMembers owner, TypeElement type, List<VariableElement> fields,
+               List<ExecutableElement> methods, List<MemberView> parents) {
+        this.owner = owner;
+        this.type = type;
+        this.fields = fields;
+        this.methods = methods;
+        this.parents = parents;
+        this.base = parents.isEmpty() ? null : parents.get(0);
+    }
+
+    void attachIndex(Map<String, List<ExecutableElement>> buckets, Map<ExecutableElement, String> signatures,
+                     List<ExecutableElement> genericMethods) {
+        this.buckets = buckets;
+        this.signatures = signatures;
+        this.genericMethods = genericMethods;
+    }
+
+    /**
+     * 签名下的全部方法，含被覆盖的方法，当前类型在前
+     *
+     * @param signature 签名，例如 set(java.lang.String)
+     * @return 方法
+     */
+    List<ExecutableElement> findBySignature(String signature) {
+        for (MemberView view = this; view != null; view = view.base) {
+            List<ExecutableElement> bucket = view.buckets.get(signature);
+            if (bucket != null) {
+                return bucket;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 方法在当前类型上的签名
+     *
+     * @param method 当前类型或父类型中的方法
+     * @return 签名，方法不属于当前类型时返回null
+     */
+    String signatureOf(ExecutableElement method) {
+        for (MemberView view = this; view != null; view = view.base) {
+            String signature = view.signatures.get(method);
+            if (signature != null) {
+                return signature;
+            }
+        }
+        return null;
+    }
+
+    MemberView getBase() {
+        return base;
+    }
+
+    List<ExecutableElement> getGenericMethods() {
+        return genericMethods;
+    }
+
+    /**
+     * 当前类型建立的签名桶数量，即相对基础视图新增或改变的签名数
+     */
+    int ownSignatureCount() {
+        return buckets.size();
+    }
+
+    /**
+     * 展开后的全部签名桶，按当前类型、基础视图链的顺序
+     */
+    Map<String, List<ExecutableElement>> flattenedBuckets() {
+        if (flattened == null) {
+            Map<String, List<ExecutableElement>> result = new LinkedHashMap<>();
+            for (MemberView view = this; view != null; view = view.base) {
+                for (Map.Entry<String, List<ExecutableElement>> entry : view.buckets.entrySet()) {
+                    if (!result.containsKey(entry.getKey())) {
+                        result.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            flattened = result;
+        }
+        return flattened;
+    }
+
+    public TypeElement getType() {
+        return type;
+    }
+
+    public List<VariableElement> getDeclaredFields() {
+        return fields;
+    }
+
+    public List<ExecutableElement> getDeclaredMethods() {
+        return methods;
+    }
+
+    public List<MemberView> getParents() {
+        return parents;
+    }
+
+    /**
+     * 当前类型及其父类型的全部字段：自身声明的字段在前，父类型中的私有字段不计入
+     *
+     * @param action 字段回调
+     */
+    public void forEachField(Consumer<VariableElement> action) {
+        getAllFields().forEach(action);
+    }
+
+    /**
+     * 当前类型及其父类型的全部方法：自身声明的方法在前，被覆盖的方法只保留最具体的一个，
+     * 父类型中的私有方法和接口静态方法不计入
+     *
+     * @param action 方法回调
+     */
+    public void forEachMethod(Consumer<ExecutableElement> action) {
+        getAllMethods().forEach(action);
+    }
+
+    public List<VariableElement> getAllFields() {
+        if (allFields == null) {
+            List<VariableElement> result = new ArrayList<>(fields);
+            List<MemberView> views = collectViews();
+            for (int index = 1; index < views.size(); index++) {
+                for (VariableElement field : views.get(index).fields) {
+                    if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+                        result.add(field);
+                    }
+                }
+            }
+            allFields = Collections.unmodifiableList(result);
+        }
+        return allFields;
+    }
+
+    public List<ExecutableElement> getAllMethods() {
+        if (allMethods == null) {
+            List<ExecutableElement> result = new ArrayList<>(methods);
+            Set<String> visited = new HashSet<>();
+            for (MemberView view = this; view != null; view = view.base) {
+                for (Map.Entry<String, List<ExecutableElement>> entry : view.buckets.entrySet()) {
+                    if (visited.add(entry.getKey())) {
+                        owner.collectInherited(this, entry.getValue(), result);
+                    }
+                }
+            }
+            allMethods = Collections.unmodifiableList(result);
+        }
+        return allMethods;
+    }
+
+    /**
+     * 深度优先收集当前视图及全部父类型视图，多条路径到达的视图只收集一次
+     */
+    List<MemberView> collectViews() {
+        List<MemberView> views = new ArrayList<>();
+        collect(this, views, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return views;
+    }
+
+    private static void collect(MemberView view, List<MemberView> views, Set<MemberView> visited) {
+        if (!visited.add(view)) {
+            return;
+        }
+        views.add(view);
+        for (MemberView parent : view.parents) {
+            collect(parent, views, visited);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MemberView{" + type + ", fields=" + fields.size() + ", methods=" + methods.size() + '}';
+    }
+}
@@ -1,9 +1,14 @@
 package org.sheedon.compilationtool.builder;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.type.TypeMirror;
 
 /**
@@ -16,8 +21,12 @@ import javax.lang.model.type.TypeMirror;
 public class MethodBuilder extends AnnotationBuilder {
 
     private final TypeBuilder typeBuilder;
+    private ExecutableElement element;
     private String name;
     private TypeMirror returnType;
+    private Set<Modifier> modifiers = Collections.emptySet();
+    // 方法参数类型
+    private final List<TypeMirror> parameterTypes = new ArrayList<>();
     private final Map<String, TypeParameterBuilder> typeParameters = new LinkedHashMap<>();
 
     public MethodBuilder(TypeBuilder typeBuilder, ExecutableElement element) {
@@ -27,8 +36,11 @@ public class MethodBuilder extends AnnotationBuilder {
 
     private void attachExecutableElement(ExecutableElement element) {
         if (element == null) return;
+        this.element = element;
         this.name = element.getSimpleName().toString();
         this.returnType = element.getReturnType();
+        this.modifiers = element.getModifiers();
+        element.getParameters().forEach(action -> this.parameterTypes.add(action.asType()));
 
         element.getTypeParameters().forEach(action ->
                 this.typeParameters.put(action.getSimpleName().toString(),
@@ -39,6 +51,10 @@ public class MethodBuilder extends AnnotationBuilder {
         return typeBuilder;
     }
 
+    public ExecutableElement getElement() {
+        return element;
+    }
+
     public String getName() {
         return name;
     }
@@ -47,6 +63,14 @@ public class MethodBuilder extends AnnotationBuilder {
         return returnType;
     }
 
+    public Set<Modifier> getModifiers() {
+        return modifiers;
+    }
+
+    public List<TypeMirror> getParameterTypes() {
+        return parameterTypes;
+    }
+
     public Map<String, TypeParameterBuilder> getTypeParameters() {
         return typeParameters;
     }
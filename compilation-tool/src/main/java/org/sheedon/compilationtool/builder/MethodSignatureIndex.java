@@ -0,0 +1,158 @@
+package org.sheedon.compilationtool.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * 方法签名索引，覆盖/实现关系查询不再两两调用 Elements.overrides。
+ * <p>
+ * 索引即 {@link TypeBuilder} 对应类型的 {@link MemberView}：签名为方法在当前类上替换泛型并擦除后的
+ * 「方法名(参数类型,...)」，例如 Base&lt;T&gt;.set(T) 在 Sub extends Base&lt;String&gt; 上为 set(java.lang.String)，
+ * 与 Sub.set(String) 落在同一签名下。查询时只比较同一签名下的方法。
+ * <p>
+ * 成员视图由 {@link MemberTypeResolver} 持有的 {@link InheritedMembers} 创建，共用同一解析者的 TypeBuilder
+ * 共用父类型的视图与签名桶，每个子类只为自身声明的方法、泛型实参改变签名的父类方法和新实现的接口建立签名桶。
+ * 签名中的实际类型取自 javac 的 Types.asMemberOf，不读取泛型检索（RetrievalClassModel）的结果，不依赖目标类。
+ * <p>
+ * 覆盖条件与 {@link InheritedMembers} 相同：声明类为父类型，两者均非私有、非静态，包私有方法只被同包的方法覆盖。
+ * 不含构造方法和初始化块。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/16 8:30 下午
+ */
+public class MethodSignatureIndex {
+
+    private final TypeBuilder typeBuilder;
+    private final MemberTypeResolver memberTypeResolver;
+    private final InheritedMembers inheritedMembers;
+    private final MemberView view;
+
+    public MethodSignatureIndex(TypeBuilder typeBuilder) {
+        this.typeBuilder = typeBuilder;
+        this.memberTypeResolver = typeBuilder.getMemberTypeResolver();
+        this.inheritedMembers = memberTypeResolver.getInheritedMembers();
+        this.view = inheritedMembers.of(typeBuilder.getElement());
+    }
+
+    /**
+     * 方法在当前类上擦除后的签名
+     *
+     * @param methodBuilder 当前类或父类型中的方法
+     * @return 签名，例如 set(java.lang.String)；方法不在索引中时返回null
+     */
+    public String getSignature(MethodBuilder methodBuilder) {
+        return methodBuilder.getElement() == null ? null : view.signatureOf(methodBuilder.getElement());
+    }
+
+    /**
+     * 签名相同的方法
+     *
+     * @param signature 签名，例如 set(java.lang.String)
+     * @return 方法，当前类在前，其次父类、接口
+     */
+    public List<MethodBuilder> findBySignature(String signature) {
+        List<ExecutableElement> methods = view.findBySignature(signature);
+        if (methods.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<MethodBuilder> result = new ArrayList<>(methods.size());
+        for (ExecutableElement method : methods) {
+            MethodBuilder methodBuilder = builderOf(method);
+            if (methodBuilder != null) {
+                result.add(methodBuilder);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 覆盖指定方法的子类型方法，例如目标接口方法在当前类及中间父类中的实现
+     *
+     * @param methodBuilder 父类型中的方法
+     * @return 覆盖方法，当前类在前
+     */
+    public List<MethodBuilder> overridesOf(MethodBuilder methodBuilder) {
+        List<MethodBuilder> result = new ArrayList<>();
+        for (MethodBuilder candidate : findBySignature(getSignature(methodBuilder))) {
+            if (inheritedMembers.overrides(candidate.getElement(), methodBuilder.getElement())) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 指定方法覆盖的父类型方法
+     *
+     * @param methodBuilder 当前类或父类型中的方法
+     * @return 被覆盖的方法
+     */
+    public List<MethodBuilder> overriddenBy(MethodBuilder methodBuilder) {
+        List<MethodBuilder> result = new ArrayList<>();
+        for (MethodBuilder candidate : findBySignature(getSignature(methodBuilder))) {
+            if (inheritedMembers.overrides(methodBuilder.getElement(), candidate.getElement())) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 当前类上调用指定方法时实际执行的方法：父类链中最具体的非抽象方法优先，
+     * 例如 C extends B implements I 中 B.m() 为 I.m() 的实现；
+     * 其次为不被其他默认方法覆盖的接口默认方法
+     *
+     * @param methodBuilder 当前类或父类型中的方法
+     * @return 实现方法，只有抽象声明时返回null
+     */
+    public MethodBuilder implementationOf(MethodBuilder methodBuilder) {
+        String signature = getSignature(methodBuilder);
+        if (signature == null) {
+            return null;
+        }
+        TypeElement element = typeBuilder.getElement();
+        List<ExecutableElement> bucket = view.findBySignature(signature);
+        ExecutableElement result = null;
+        for (ExecutableElement candidate : bucket) {
+            Set<Modifier> modifiers = candidate.getModifiers();
+            if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.STATIC)) {
+                continue;
+            }
+            boolean declared = candidate.getEnclosingElement().equals(element);
+            if (!declared && (!InheritedMembers.isVisible(candidate, element)
+                    || inheritedMembers.isOverridden(candidate, bucket))) {
+                continue;
+            }
+            if (declared) {
+                result = candidate;
+                break;
+            }
+            // 父类链中的方法优先于接口默认方法
+            if (result == null || isInterface(result) && !isInterface(candidate)) {
+                result = candidate;
+            }
+        }
+        return result == null ? null : builderOf(result);
+    }
+
+    /**
+     * 方法元素对应的构造者，父类型构造者由同一解析者共用
+     */
+    private MethodBuilder builderOf(ExecutableElement method) {
+        TypeElement declaring = (TypeElement) method.getEnclosingElement();
+        TypeBuilder builder = declaring.equals(typeBuilder.getElement()) ? typeBuilder
+                : memberTypeResolver.ancestorBuilder(declaring);
+        return builder.getMethodBuilder(method);
+    }
+
+    private static boolean isInterface(ExecutableElement method) {
+        return method.getEnclosingElement().getKind().isInterface();
+    }
+}
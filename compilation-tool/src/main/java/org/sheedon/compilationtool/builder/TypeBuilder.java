@@ -1,14 +1,20 @@
 package org.sheedon.compilationtool.builder;
 
+import org.sheedon.compilationtool.retrieval.trace.ProfilingEvents;
 import org.sheedon.compilationtool.utils.ClassUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ExecutableType;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
 
@@ -21,36 +27,51 @@ import javax.lang.model.util.Types;
  */
 public class TypeBuilder extends AnnotationBuilder {
 
+    private final TypeElement element;
+    // 成员类型解析者，同一棵构造者树共用
+    private final MemberTypeResolver memberTypeResolver;
     private final String packageName;
     private final String qualifiedName;
     private final String simpleName;
+    private final Set<Modifier> modifiers;
     private TypeBuilder superTypeBuilder;
     private final List<TypeBuilder> interfaceBuilders = new ArrayList<>();
     // 目标泛型
     // 字段
     private final List<FieldBuilder> fieldBuilders = new ArrayList<>();
     private final List<MethodBuilder> methodBuilders = new ArrayList<>();
+    // 方法元素 - 构造者，首次按元素查找时创建
+    private Map<ExecutableElement, MethodBuilder> methodBuilderMap;
+    // 方法签名索引，首次查询时创建
+    private MethodSignatureIndex methodSignatureIndex;
 
     public TypeBuilder(TypeElement element, Types types) {
+        this(element, types, new MemberTypeResolver(types));
+    }
+
+    /**
+     * @param element            类型元素
+     * @param types              类型工具类
+     * @param memberTypeResolver 成员类型解析者，处理大量子类时传入同一个以共用缓存和父类型构造者
+     */
+    public TypeBuilder(TypeElement element, Types types, MemberTypeResolver memberTypeResolver) {
+        ProfilingEvents.Span span = ProfilingEvents.beginTypeBuilder();
+        this.element = element;
+        this.memberTypeResolver = memberTypeResolver;
         this.packageName = ClassUtils.loadPackageName(element);
         this.qualifiedName = element.getQualifiedName().toString();
         this.simpleName = element.getSimpleName().toString();
+        this.modifiers = element.getModifiers();
 
         Element superTypeElement = types.asElement(element.getSuperclass());
         if (superTypeElement instanceof TypeElement) {
-            this.superTypeBuilder = new TypeBuilder((TypeElement) superTypeElement, types);
+            this.superTypeBuilder = memberTypeResolver.ancestorBuilder((TypeElement) superTypeElement);
         }
         List<? extends TypeMirror> typeMirrors = element.getInterfaces();
-        //noinspection ConstantConditions
-        typeMirrors.stream().filter(it -> !(it instanceof TypeElement)).forEach(action ->
-                interfaceBuilders.add(new TypeBuilder((TypeElement) action, types))
+        typeMirrors.stream().map(types::asElement).filter(it -> it instanceof TypeElement).forEach(action ->
+                interfaceBuilders.add(memberTypeResolver.ancestorBuilder((TypeElement) action))
         );
 
-        element.getEnclosedElements()
-                .stream()
-                .filter(it -> it instanceof VariableElement)
-                .forEach(item -> fieldBuilders.add(new FieldBuilder(this, (VariableElement) item)));
-
         element.getEnclosedElements()
                 .forEach(item -> {
                     if (item instanceof VariableElement) {
@@ -59,6 +80,10 @@ public class TypeBuilder extends AnnotationBuilder {
                         methodBuilders.add(new MethodBuilder(this, (ExecutableElement) item));
                     }
                 });
+
+        if (span != null) {
+            span.commit(qualifiedName, fieldBuilders.size() + methodBuilders.size(), null);
+        }
     }
 
     // TODO 传入目标搜索内容
@@ -66,6 +91,67 @@ public class TypeBuilder extends AnnotationBuilder {
 
     }
 
+    /**
+     * 字段在当前类上的类型，父类中声明的泛型字段替换为当前类的实际类型
+     *
+     * @param fieldBuilder 当前类或父类型中的字段
+     * @return 字段类型
+     */
+    public TypeMirror getMemberType(FieldBuilder fieldBuilder) {
+        VariableElement fieldElement = fieldBuilder.getElement();
+        return fieldElement == null ? fieldBuilder.getReturnType()
+                : memberTypeResolver.resolve(element, fieldElement);
+    }
+
+    /**
+     * 方法在当前类上的类型，参数和返回值中的泛型替换为当前类的实际类型
+     *
+     * @param methodBuilder 当前类或父类型中的方法
+     * @return 方法类型，构造者未关联方法元素时返回null
+     */
+    public ExecutableType getMemberType(MethodBuilder methodBuilder) {
+        ExecutableElement methodElement = methodBuilder.getElement();
+        if (methodElement == null) {
+            return null;
+        }
+        TypeMirror mirror = memberTypeResolver.resolve(element, methodElement);
+        return mirror instanceof ExecutableType ? (ExecutableType) mirror : null;
+    }
+
+    /**
+     * 当前类及全部父类型方法的签名索引，用于查询覆盖/实现关系
+     */
+    public MethodSignatureIndex getMethodSignatureIndex() {
+        if (methodSignatureIndex == null) {
+            methodSignatureIndex = new MethodSignatureIndex(this);
+        }
+        return methodSignatureIndex;
+    }
+
+    /**
+     * 当前类中声明的方法元素对应的构造者
+     *
+     * @param method 方法元素
+     * @return MethodBuilder，不是当前类声明的方法时返回null
+     */
+    MethodBuilder getMethodBuilder(ExecutableElement method) {
+        if (methodBuilderMap == null) {
+            methodBuilderMap = new HashMap<>();
+            for (MethodBuilder methodBuilder : methodBuilders) {
+                methodBuilderMap.put(methodBuilder.getElement(), methodBuilder);
+            }
+        }
+        return methodBuilderMap.get(method);
+    }
+
+    public TypeElement getElement() {
+        return element;
+    }
+
+    public MemberTypeResolver getMemberTypeResolver() {
+        return memberTypeResolver;
+    }
+
     public String getPackageName() {
         return packageName;
     }
@@ -78,6 +164,10 @@ public class TypeBuilder extends AnnotationBuilder {
         return simpleName;
     }
 
+    public Set<Modifier> getModifiers() {
+        return modifiers;
+    }
+
     public TypeBuilder getSuperTypeBuilder() {
         return superTypeBuilder;
     }
@@ -18,6 +18,7 @@ public class TypeParameterBuilder extends AnnotationBuilder{
 
     // 方法构建者 形参关联的方法
     private final MethodBuilder methodBuilder;
+    private TypeParameterElement element;
     // 形式参数名
     private String name;
     private TypeMirror returnType;
@@ -35,6 +36,7 @@ public class TypeParameterBuilder extends AnnotationBuilder{
     private void attachTypeParameter(TypeParameterElement element) {
         if (element == null) return;
 
+        this.element = element;
         name = element.getSimpleName().toString();
         returnType = element.asType();
     }
@@ -43,6 +45,10 @@ public class TypeParameterBuilder extends AnnotationBuilder{
         return methodBuilder;
     }
 
+    public TypeParameterElement getElement() {
+        return element;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,63 @@
+package org.sheedon.compilationtool.fingerprint;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 指纹摘要，每个值以「标记 + 长度 + 内容」写入 SHA-256，避免相邻值拼接后产生歧义
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/13 2:20 下午
+ */
+final class FingerprintHasher {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+    FingerprintHasher() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 所有 Java 平台必须支持 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    FingerprintHasher put(char tag, String value) {
+        digest.update((byte) tag);
+        if (value == null) {
+            putLength(-1);
+            return this;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putLength(bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    FingerprintHasher put(char tag, int value) {
+        digest.update((byte) tag);
+        putLength(value);
+        return this;
+    }
+
+    private void putLength(int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    String hash() {
+        byte[] bytes = digest.digest();
+        char[] chars = new char[bytes.length * 2];
+        for (int index = 0; index < bytes.length; index++) {
+            chars[index * 2] = HEX[(bytes[index] >> 4) & 0xF];
+            chars[index * 2 + 1] = HEX[bytes[index] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,83 @@
+package org.sheedon.compilationtool.fingerprint;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 指纹存储，保存上次编译的指纹，并记录本次编译的指纹。
+ * 每行一条「输出文件名=指纹」，按名称排序，读写位置由处理器决定，
+ * 例如通过 Filer 读写 CLASS_OUTPUT 下的资源文件。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/13 3:30 下午
+ */
+public class FingerprintStore {
+
+    private static final char SEPARATOR = '=';
+
+    // 上次编译的指纹
+    private final Map<String, String> previous = new HashMap<>();
+    // 本次编译的指纹
+    private final Map<String, String> current = new TreeMap<>();
+
+    /**
+     * 加载上次编译的指纹，格式错误的行直接忽略
+     *
+     * @param reader 指纹文件
+     */
+    public void load(Reader reader) throws IOException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader
+                ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            int index = line.lastIndexOf(SEPARATOR);
+            if (index > 0) {
+                previous.put(line.substring(0, index), line.substring(index + 1));
+            }
+        }
+    }
+
+    /**
+     * 记录本次编译的指纹，并判断是否与上次编译一致
+     *
+     * @param key         输出文件名
+     * @param fingerprint 输入指纹
+     * @return true 代表输入未变化，可跳过写入
+     */
+    public boolean isUnchanged(String key, String fingerprint) {
+        current.put(key, fingerprint);
+        return fingerprint.equals(previous.get(key));
+    }
+
+    /**
+     * 上次编译存在、本次编译未记录的输出文件名
+     */
+    public Set<String> removedKeys() {
+        Set<String> keys = new TreeSet<>(previous.keySet());
+        keys.removeAll(current.keySet());
+        return keys;
+    }
+
+    /**
+     * 写出本次编译的指纹
+     *
+     * @param writer 指纹文件
+     */
+    public void store(Writer writer) throws IOException {
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            writer.write(entry.getKey());
+            writer.write(SEPARATOR);
+            writer.write(entry.getValue());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+}
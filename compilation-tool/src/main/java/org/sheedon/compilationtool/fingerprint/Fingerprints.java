@@ -0,0 +1,382 @@
+package org.sheedon.compilationtool.fingerprint;
+
+import org.sheedon.compilationtool.builder.AnnotationBuilder;
+import org.sheedon.compilationtool.builder.FieldBuilder;
+import org.sheedon.compilationtool.builder.MethodBuilder;
+import org.sheedon.compilationtool.builder.TypeBuilder;
+import org.sheedon.compilationtool.builder.TypeParameterBuilder;
+import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
+import org.sheedon.compilationtool.retrieval.core.TypeVariableKey;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.MirroredTypesException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+
+/**
+ * 构造者与泛型记录的指纹，用于判断生成文件的输入是否变化：
+ * 名称、修饰符、类型、形式父类与接口（含泛型实参）、元素上声明的注解（含注解值）和构造者上附加的注解写入摘要，
+ * 字段、方法、接口按声明顺序写入，调整成员顺序或修改注解均会改变指纹；
+ * 相同输入在不同编译中得到相同指纹。
+ * <p>
+ * 父类型以其声明的指纹参与计算，按类型元素缓存，众多子类共用同一父类时只计算一次；
+ * 父类型构造者上手动附加的注解不参与计算。继承结构中有尚未生成的类型时不缓存。
+ * <p>
+ * 处理器可保存上次编译的指纹（见 {@link FingerprintStore}），指纹一致时跳过写入生成文件，
+ * 避免下游 javac 重新编译未变化的生成代码。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/13 2:40 下午
+ */
+public final class Fingerprints {
+
+    private static final Comparator<Annotation> ANNOTATION_ORDER =
+            Comparator.comparing(annotation -> annotation.annotationType().getName());
+    private static final Comparator<Method> MEMBER_ORDER = Comparator.comparing(Method::getName);
+    // 类型元素 - 声明的指纹，类型元素回收后随之移除
+    private static final Map<TypeElement, String> DECLARATIONS = new WeakHashMap<>();
+
+    private Fingerprints() {
+    }
+
+    /**
+     * 类指纹，包含父类、接口、字段和方法的指纹
+     *
+     * @param builder 类构造者
+     * @return 64 位十六进制字符串
+     */
+    public static String ofType(TypeBuilder builder) {
+        FingerprintHasher hasher = new FingerprintHasher();
+        hasher.put('T', builder.getQualifiedName());
+        putModifiers(hasher, builder.getModifiers());
+        putAnnotations(hasher, builder.getElement(), builder);
+
+        TypeBuilder superTypeBuilder = builder.getSuperTypeBuilder();
+        hasher.put('S', superTypeBuilder == null ? null : ofDeclaration(superTypeBuilder.getElement()));
+        putSupertypeArguments(hasher, builder.getElement());
+
+        List<TypeBuilder> interfaceBuilders = builder.getInterfaceBuilders();
+        hasher.put('I', interfaceBuilders.size());
+        interfaceBuilders.forEach(item -> hasher.put('i', ofDeclaration(item.getElement())));
+
+        List<FieldBuilder> fields = builder.getFieldBuilders();
+        hasher.put('F', fields.size());
+        fields.forEach(item -> hasher.put('f', ofField(item)));
+
+        List<MethodBuilder> methods = builder.getMethodBuilders();
+        hasher.put('M', methods.size());
+        methods.forEach(item -> hasher.put('m', ofMethod(item)));
+        return hasher.hash();
+    }
+
+    /**
+     * 类型声明的指纹：与 {@link #ofType(TypeBuilder)} 相同的内容，只取自元素，
+     * 按类型元素缓存，用作子类指纹中的父类型部分
+     *
+     * @param element 类型元素
+     * @return 64 位十六进制字符串
+     */
+    public static String ofDeclaration(TypeElement element) {
+        synchronized (DECLARATIONS) {
+            String fingerprint = DECLARATIONS.get(element);
+            if (fingerprint != null) {
+                return fingerprint;
+            }
+        }
+
+        boolean[] erroneous = new boolean[1];
+        FingerprintHasher hasher = new FingerprintHasher();
+        hasher.put('T', element.getQualifiedName().toString());
+        putModifiers(hasher, element.getModifiers());
+        putAnnotations(hasher, element, null);
+
+        TypeMirror superclass = element.getSuperclass();
+        hasher.put('S', superclass.getKind() == TypeKind.NONE ? null : ofSupertype(superclass, erroneous));
+        putSupertypeArguments(hasher, element);
+
+        List<? extends TypeMirror> interfaces = element.getInterfaces();
+        hasher.put('I', interfaces.size());
+        interfaces.forEach(item -> hasher.put('i', ofSupertype(item, erroneous)));
+
+        List<FieldBuilder> fields = new ArrayList<>();
+        List<MethodBuilder> methods = new ArrayList<>();
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed instanceof VariableElement) {
+                fields.add(new FieldBuilder(null, (VariableElement) enclosed));
+            } else if (enclosed instanceof ExecutableElement) {
+                methods.add(new MethodBuilder(null, (ExecutableElement) enclosed));
+            }
+        }
+        hasher.put('F', fields.size());
+        fields.forEach(item -> hasher.put('f', ofField(item)));
+        hasher.put('M', methods.size());
+        methods.forEach(item -> hasher.put('m', ofMethod(item)));
+
+        String fingerprint = hasher.hash();
+        if (!erroneous[0]) {
+            synchronized (DECLARATIONS) {
+                DECLARATIONS.put(element, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 形式父类和接口本身，例如 Parent&lt;String&gt;：父类型声明的指纹不含当前类传入的泛型实参
+     */
+    private static void putSupertypeArguments(FingerprintHasher hasher, TypeElement element) {
+        hasher.put('s', typeName(element.getSuperclass()));
+        for (TypeMirror mirror : element.getInterfaces()) {
+            hasher.put('j', typeName(mirror));
+        }
+    }
+
+    /**
+     * 父类型声明的指纹，尚未生成的类型记为其名称，当前类的指纹不缓存
+     */
+    private static String ofSupertype(TypeMirror mirror, boolean[] erroneous) {
+        if (mirror.getKind() == TypeKind.DECLARED) {
+            Element element = ((DeclaredType) mirror).asElement();
+            if (element instanceof TypeElement) {
+                String fingerprint = ofDeclaration((TypeElement) element);
+                synchronized (DECLARATIONS) {
+                    erroneous[0] |= !DECLARATIONS.containsKey(element);
+                }
+                return fingerprint;
+            }
+        }
+        erroneous[0] = true;
+        return typeName(mirror);
+    }
+
+    /**
+     * 类指纹与其泛型记录的组合指纹
+     *
+     * @param builder       类构造者
+     * @param record        当前类关联目标类的泛型记录
+     * @param targetElement 目标类
+     * @return 64 位十六进制字符串
+     */
+    public static String ofType(TypeBuilder builder, IGenericsRecord record, TypeElement targetElement) {
+        return new FingerprintHasher()
+                .put('T', ofType(builder))
+                .put('R', ofRecord(record, targetElement))
+                .hash();
+    }
+
+    /**
+     * 字段指纹
+     *
+     * @param builder 字段构造者
+     * @return 64 位十六进制字符串
+     */
+    public static String ofField(FieldBuilder builder) {
+        FingerprintHasher hasher = new FingerprintHasher();
+        hasher.put('N', builder.getName());
+        putModifiers(hasher, builder.getModifiers());
+        hasher.put('t', typeName(builder.getReturnType()));
+        putAnnotations(hasher, builder.getElement(), builder);
+        return hasher.hash();
+    }
+
+    /**
+     * 方法指纹
+     *
+     * @param builder 方法构造者
+     * @return 64 位十六进制字符串
+     */
+    public static String ofMethod(MethodBuilder builder) {
+        FingerprintHasher hasher = new FingerprintHasher();
+        hasher.put('N', builder.getName());
+        putModifiers(hasher, builder.getModifiers());
+        hasher.put('t', typeName(builder.getReturnType()));
+
+        List<TypeMirror> parameterTypes = builder.getParameterTypes();
+        hasher.put('P', parameterTypes.size());
+        parameterTypes.forEach(item -> hasher.put('p', typeName(item)));
+        if (builder.getElement() != null) {
+            // 参数上声明的注解
+            for (VariableElement parameter : builder.getElement().getParameters()) {
+                putAnnotations(hasher, parameter, null);
+            }
+        }
+
+        Collection<TypeParameterBuilder> typeParameters = builder.getTypeParameters().values();
+        hasher.put('G', typeParameters.size());
+        for (TypeParameterBuilder typeParameter : typeParameters) {
+            hasher.put('g', typeParameter.getName());
+            TypeMirror mirror = typeParameter.getReturnType();
+            hasher.put('b', mirror instanceof TypeVariable
+                    ? typeName(((TypeVariable) mirror).getUpperBound()) : typeName(mirror));
+            putAnnotations(hasher, typeParameter.getElement(), typeParameter);
+        }
+        putAnnotations(hasher, builder.getElement(), builder);
+        return hasher.hash();
+    }
+
+    /**
+     * 泛型记录指纹，按目标类泛型坐标依次写入已绑定的实际类型
+     *
+     * @param record        泛型记录，可为null
+     * @param targetElement 目标类
+     * @return 64 位十六进制字符串
+     */
+    public static String ofRecord(IGenericsRecord record, TypeElement targetElement) {
+        FingerprintHasher hasher = new FingerprintHasher();
+        hasher.put('R', targetElement.getQualifiedName().toString());
+        int count = targetElement.getTypeParameters().size();
+        hasher.put('C', count);
+        for (int index = 0; index < count; index++) {
+            TypeMirror mirror = record == null ? null
+                    : record.get(TypeVariableKey.of(targetElement, index).getName());
+            hasher.put('r', mirror == null ? null : typeName(mirror));
+        }
+        return hasher.hash();
+    }
+
+    private static String typeName(TypeMirror mirror) {
+        if (mirror == null) {
+            return null;
+        }
+        return mirror.getKind() == TypeKind.NONE ? "" : mirror.toString();
+    }
+
+    private static void putModifiers(FingerprintHasher hasher, Set<Modifier> modifiers) {
+        // 按名称排序写入，枚举序号在不同 JDK 中可能变化
+        Set<String> names = new TreeSet<>();
+        for (Modifier modifier : modifiers) {
+            names.add(modifier.name());
+        }
+        hasher.put('X', names.toString());
+    }
+
+    /**
+     * 元素上声明的注解按声明顺序写入，其后为构造者上附加的注解，按注解类型排序
+     *
+     * @param element 元素，可为null
+     * @param builder 构造者，可为null
+     */
+    private static void putAnnotations(FingerprintHasher hasher, Element element, AnnotationBuilder builder) {
+        List<? extends AnnotationMirror> mirrors = element == null
+                ? new ArrayList<AnnotationMirror>() : element.getAnnotationMirrors();
+        hasher.put('D', mirrors.size());
+        mirrors.forEach(item -> hasher.put('d', mirrorValue(item)));
+
+        List<Annotation> annotations = new ArrayList<>();
+        if (builder != null) {
+            for (Annotation annotation : builder.getAnnotations()) {
+                if (annotation != null) {
+                    annotations.add(annotation);
+                }
+            }
+        }
+        annotations.sort(ANNOTATION_ORDER);
+        hasher.put('A', annotations.size());
+        annotations.forEach(item -> hasher.put('a', annotationValue(item)));
+    }
+
+    /**
+     * 注解的规范形式：注解类型 + 按声明顺序的显式成员值
+     */
+    private static String mirrorValue(AnnotationMirror mirror) {
+        StringBuilder builder = new StringBuilder("@").append(typeName(mirror.getAnnotationType())).append('(');
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : mirror.getElementValues().entrySet()) {
+            builder.append(entry.getKey().getSimpleName()).append('=').append(entry.getValue()).append(',');
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * 注解的规范形式：注解类型 + 按名称排序的成员值
+     */
+    private static String annotationValue(Annotation annotation) {
+        Class<? extends Annotation> annotationType = annotation.annotationType();
+        List<Method> members = new ArrayList<>();
+        for (Method method : annotationType.getDeclaredMethods()) {
+            if (method.getParameterCount() == 0) {
+                members.add(method);
+            }
+        }
+        members.sort(MEMBER_ORDER);
+
+        StringBuilder builder = new StringBuilder("@").append(annotationType.getName()).append('(');
+        for (Method member : members) {
+            builder.append(member.getName()).append('=').append(memberValue(annotation, member)).append(',');
+        }
+        return builder.append(')').toString();
+    }
+
+    private static String memberValue(Annotation annotation, Method member) {
+        try {
+            member.setAccessible(true);
+            return canonicalValue(member.invoke(annotation));
+        } catch (InvocationTargetException e) {
+            // 处理器中读取 Class 类型的成员会抛出 MirroredTypeException，改用其 TypeMirror
+            Throwable cause = e.getCause();
+            if (cause instanceof MirroredTypeException) {
+                return typeName(((MirroredTypeException) cause).getTypeMirror());
+            }
+            if (cause instanceof MirroredTypesException) {
+                List<String> names = new ArrayList<>();
+                for (TypeMirror mirror : ((MirroredTypesException) cause).getTypeMirrors()) {
+                    names.add(typeName(mirror));
+                }
+                return names.toString();
+            }
+            return cause == null ? "?" : cause.getClass().getName();
+        } catch (IllegalAccessException | RuntimeException e) {
+            return "?";
+        }
+    }
+
+    private static String canonicalValue(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Annotation) {
+            return annotationValue((Annotation) value);
+        }
+        if (value instanceof Class) {
+            return ((Class<?>) value).getName();
+        }
+        if (value instanceof Enum) {
+            Enum<?> enumValue = (Enum<?>) value;
+            return enumValue.getDeclaringClass().getName() + "." + enumValue.name();
+        }
+        if (value.getClass().isArray()) {
+            StringBuilder builder = new StringBuilder("[");
+            for (int index = 0; index < Array.getLength(value); index++) {
+                builder.append(canonicalValue(Array.get(value, index))).append(',');
+            }
+            return builder.append(']').toString();
+        }
+        if (value instanceof String) {
+            return ((String) value).length() + ":" + value;
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,506 @@
+package org.sheedon.compilationtool.generation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
+
+/**
+ * 生成文件流水线：渲染与写入分离。
+ * 1.处理器在 process() 中提交渲染任务，任务只生成源码字符串，不得访问 javac 对象，
+ * 例如 JavaPoet 的 {@code javaFile::toString}，在线程池中并行执行。
+ * 2.{@link #flush()} 在处理器线程中按提交顺序等待结果并通过 Filer 写入，
+ * Filer 始终只被一个线程访问，输出顺序与线程调度无关。
+ * <p>
+ * 来源元素在提交时记录，写入时传给 Filer，与直接调用 createSourceFile 一致。
+ * <p>
+ * 聚合模式（{@link OutputMode}）下，同一包或同一目标类的生成类型作为公开静态内部类写入同一个编译单元，
+ * 大量小文件合并为少数几个，减少下一轮 javac 的逐文件解析、编译开销；
+ * 编译单元的来源元素为其中全部类型的来源元素。此时渲染任务只返回类型声明（不含 package 与 import，
+ * 类型使用全类名），例如 JavaPoet 的 {@code typeSpec::toString}，类型需声明为 public，
+ * 未声明 static 的类写入时补上 static，使其可在编译单元外直接实例化；
+ * 同一编译单元中不能有同名类型，内部类也不能与编译单元同名，重名在 {@link #submit} 时抛出 IllegalArgumentException。
+ * 聚合模式下需在同一轮中提交全部类型后调用一次 {@link #flush()}，再次写入同一编译单元会失败。
+ * <p>
+ * 渲染线程在首次提交时创建，{@link #flush()} 写完全部任务后即关闭，下次提交时重新创建；
+ * 流水线在两轮之间不持有线程，处理器未调用 {@link #close()} 也不会在 Gradle 守护进程中遗留线程。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 10:20 上午
+ */
+public class GenerationPipeline implements AutoCloseable {
+
+    private final Filer filer;
+    // 渲染线程数
+    private final int threads;
+    // 渲染线程池，首次提交时创建，无待写入任务时关闭
+    private ExecutorService executor;
+    // 输出方式
+    private final OutputMode outputMode;
+    // 聚合编译单元的类名，PER_PACKAGE 时为完整类名，PER_TARGET 时为目标类简单类名后的后缀
+    private final String unitName;
+    // 待写入的任务，按提交顺序
+    private final List<PendingSource> pendingSources = new ArrayList<>();
+    // 生成类实际的全类名 - 提交时的全类名，用于检查重名
+    private final Map<String, String> generatedNames = new HashMap<>();
+
+    /**
+     * 使用 CPU 核数 - 1 个渲染线程，至少 1 个
+     *
+     * @param filer 文件写入者
+     */
+    public GenerationPipeline(Filer filer) {
+        this(filer, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public GenerationPipeline(Filer filer, int threads) {
+        this(filer, threads, OutputMode.PER_TYPE, null);
+    }
+
+    /**
+     * 聚合输出，使用 CPU 核数 - 1 个渲染线程，至少 1 个
+     *
+     * @param filer      文件写入者
+     * @param outputMode 输出方式
+     * @param unitName   聚合编译单元的类名，例如 PER_PACKAGE 时为 Routers，PER_TARGET 时为 $$Routers
+     */
+    public GenerationPipeline(Filer filer, OutputMode outputMode, String unitName) {
+        this(filer, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), outputMode, unitName);
+    }
+
+    public GenerationPipeline(Filer filer, int threads, OutputMode outputMode, String unitName) {
+        if (outputMode != OutputMode.PER_TYPE && (unitName == null || unitName.isEmpty())) {
+            throw new IllegalArgumentException("unit name is required for " + outputMode);
+        }
+        this.filer = filer;
+        this.threads = Math.max(1, threads);
+        this.outputMode = outputMode;
+        this.unitName = unitName;
+    }
+
+    /**
+     * 输出方式
+     */
+    public enum OutputMode {
+        // 每个生成类型一个文件
+        PER_TYPE,
+        // 同一包的生成类型写入 包名.unitName
+        PER_PACKAGE,
+        // 同一目标类的生成类型写入 目标类包名.目标类简单类名 + unitName
+        PER_TARGET
+    }
+
+    /**
+     * 提交渲染任务，PER_TARGET 时以生成类自身作为目标类
+     *
+     * @param qualifiedName       生成类的全类名
+     * @param task                渲染任务，返回源码；聚合模式下返回类型声明
+     * @param originatingElements 来源元素
+     * @return 生成类实际的全类名，聚合模式下为编译单元的内部类
+     */
+    public String submit(String qualifiedName, Callable<? extends CharSequence> task, Element... originatingElements) {
+        return submit(qualifiedName, qualifiedName, task, originatingElements);
+    }
+
+    /**
+     * 提交渲染任务
+     *
+     * @param target              目标类全类名，只在 PER_TARGET 时使用
+     * @param qualifiedName       生成类的全类名
+     * @param task                渲染任务，返回源码；聚合模式下返回类型声明
+     * @param originatingElements 来源元素
+     * @return 生成类实际的全类名，聚合模式下为编译单元的内部类
+     * @throws IllegalArgumentException 生成类与已提交的类型重名，聚合模式下为同一编译单元中简单类名相同，
+     *                                  或简单类名与编译单元相同
+     */
+    public String submit(String target, String qualifiedName, Callable<? extends CharSequence> task,
+                         Element... originatingElements) {
+        String unit = unitOf(target, qualifiedName);
+        if (unit != null && simpleName(qualifiedName).equals(simpleName(unit))) {
+            throw new IllegalArgumentException("generated type " + qualifiedName
+                    + " has the same simple name as its unit " + unit);
+        }
+        String generatedName = unit == null ? qualifiedName : unit + "." + simpleName(qualifiedName);
+        String submitted = generatedNames.get(generatedName);
+        if (submitted != null) {
+            throw new IllegalArgumentException("duplicate generated type " + generatedName
+                    + ": " + submitted + ", " + qualifiedName);
+        }
+        generatedNames.put(generatedName, qualifiedName);
+        pendingSources.add(new PendingSource(unit, qualifiedName, executor().submit(task), originatingElements));
+        return generatedName;
+    }
+
+    /**
+     * 渲染线程池，不存在时创建
+     */
+    private ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, new RenderThreadFactory());
+        }
+        return executor;
+    }
+
+    /**
+     * 无待写入任务时关闭渲染线程池
+     */
+    private void shutdownIfIdle() {
+        if (executor != null && pendingSources.isEmpty()) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * 生成类实际的全类名，可在提交前用于生成代码间的引用
+     *
+     * @param target        目标类全类名，只在 PER_TARGET 时使用
+     * @param qualifiedName 生成类的全类名
+     * @return 全类名，聚合模式下为编译单元的内部类
+     */
+    public String generatedName(String target, String qualifiedName) {
+        String unit = unitOf(target, qualifiedName);
+        return unit == null ? qualifiedName : unit + "." + simpleName(qualifiedName);
+    }
+
+    /**
+     * 编译单元的全类名，PER_TYPE 时返回null
+     */
+    private String unitOf(String target, String qualifiedName) {
+        switch (outputMode) {
+            case PER_PACKAGE:
+                return qualify(packageName(qualifiedName), unitName);
+            case PER_TARGET:
+                return qualify(packageName(target), simpleName(target) + unitName);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 按提交顺序写入已提交的任务，先完成的任务在等待后续渲染时即可写入。
+     * 渲染失败的任务跳过，其余任务写入后抛出第一个异常。写入结束后关闭渲染线程池。
+     *
+     * @return 写入的文件数
+     * @throws IOException 渲染或写入失败
+     */
+    public int flush() throws IOException {
+        List<PendingSource> sources = new ArrayList<>(pendingSources);
+        pendingSources.clear();
+        try {
+            return outputMode == OutputMode.PER_TYPE ? flushTypes(sources) : flushUnits(sources);
+        } finally {
+            shutdownIfIdle();
+        }
+    }
+
+    /**
+     * 按提交顺序逐个写入
+     */
+    private int flushTypes(List<PendingSource> sources) throws IOException {
+
+        int count = 0;
+        IOException failure = null;
+        for (PendingSource source : sources) {
+            try {
+                write(source.qualifiedName, source.await(), source.originatingElements);
+                count++;
+            } catch (IOException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return count;
+    }
+
+    /**
+     * 按编译单元首次提交的顺序写入，单元内按提交顺序排列；渲染失败的类型跳过，其余类型照常写入
+     */
+    private int flushUnits(List<PendingSource> sources) throws IOException {
+        Map<String, List<PendingSource>> units = new LinkedHashMap<>();
+        for (PendingSource source : sources) {
+            List<PendingSource> members = units.get(source.unit);
+            if (members == null) {
+                members = new ArrayList<>();
+                units.put(source.unit, members);
+            }
+            members.add(source);
+        }
+
+        int count = 0;
+        IOException failure = null;
+        for (Map.Entry<String, List<PendingSource>> entry : units.entrySet()) {
+            List<CharSequence> contents = new ArrayList<>();
+            Set<Element> originatingElements = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+            List<Element> orderedElements = new ArrayList<>();
+            for (PendingSource source : entry.getValue()) {
+                try {
+                    contents.add(nestedDeclaration(source.qualifiedName, source.await()));
+                } catch (IOException e) {
+                    failure = addFailure(failure, e);
+                    continue;
+                }
+                for (Element element : source.originatingElements) {
+                    if (originatingElements.add(element)) {
+                        orderedElements.add(element);
+                    }
+                }
+            }
+            if (contents.isEmpty()) {
+                continue;
+            }
+
+            try {
+                write(entry.getKey(), renderUnit(entry.getKey(), contents), orderedElements.toArray(new Element[0]));
+                count++;
+            } catch (IOException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return count;
+    }
+
+    /**
+     * 编译单元源码：类型声明缩进后作为内部类依次写入
+     */
+    private static CharSequence renderUnit(String unit, List<CharSequence> contents) {
+        String packageName = packageName(unit);
+        String simpleName = simpleName(unit);
+        StringBuilder builder = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            builder.append("package ").append(packageName).append(";\n\n");
+        }
+        builder.append("public final class ").append(simpleName).append(" {\n\n")
+                .append("    private ").append(simpleName).append("() {\n    }\n");
+        for (CharSequence content : contents) {
+            builder.append('\n');
+            String[] lines = content.toString().split("\\r?\\n", -1);
+            int end = lines.length;
+            while (end > 0 && lines[end - 1].trim().isEmpty()) {
+                end--;
+            }
+            for (int index = 0; index < end; index++) {
+                if (!lines[index].isEmpty()) {
+                    builder.append("    ").append(lines[index]);
+                }
+                builder.append('\n');
+            }
+        }
+        return builder.append("}\n");
+    }
+
+    /**
+     * 作为内部类写入的类型声明：未声明 static 的类补上 static，位于访问修饰符之后、其他修饰符之前，
+     * 接口、枚举、注解、record 作为成员类型时本身即为静态
+     *
+     * @throws IOException 渲染结果不是类型声明
+     */
+    private static CharSequence nestedDeclaration(String qualifiedName, CharSequence content) throws IOException {
+        String text = content.toString();
+        boolean isStatic = false;
+        // static 的插入位置，-1 表示尚未遇到修饰符
+        int insertion = -1;
+        int depth = 0;
+        int index = 0;
+        while (index < text.length()) {
+            char c = text.charAt(index);
+            if (c == '/' && text.startsWith("//", index)) {
+                int end = text.indexOf('\n', index);
+                index = end == -1 ? text.length() : end + 1;
+            } else if (c == '/' && text.startsWith("/*", index)) {
+                int end = text.indexOf("*/", index + 2);
+                index = end == -1 ? text.length() : end + 2;
+            } else if (c == '"' || c == '\'') {
+                index = skipLiteral(text, index);
+            } else if (c == '(') {
+                depth++;
+                index++;
+            } else if (c == ')') {
+                depth--;
+                index++;
+            } else if (c == '{' && depth == 0) {
+                break;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = index + 1;
+                while (end < text.length() && Character.isJavaIdentifierPart(text.charAt(end))) {
+                    end++;
+                }
+                String word = text.substring(index, end);
+                // 注解名及其参数不是修饰符
+                boolean modifier = depth == 0 && !precededBy(text, index, '@') && !precededBy(text, index, '.');
+                if (modifier && "static".equals(word)) {
+                    isStatic = true;
+                } else if (modifier && "class".equals(word)) {
+                    if (isStatic) {
+                        return content;
+                    }
+                    int position = insertion == -1 ? index : insertion;
+                    return text.substring(0, position) + "static " + text.substring(position);
+                } else if (depth == 0 && "interface".equals(word)
+                        || modifier && ("enum".equals(word) || "record".equals(word))) {
+                    // 接口与注解（@interface）
+                    return content;
+                } else if (modifier && ("public".equals(word) || "protected".equals(word)
+                        || "private".equals(word))) {
+                    insertion = end + 1;
+                } else if (modifier && insertion == -1) {
+                    insertion = index;
+                }
+                index = end;
+            } else {
+                index++;
+            }
+        }
+        throw new IOException("render did not return a type declaration: " + qualifiedName);
+    }
+
+    /**
+     * 跳过字符串或字符字面量，返回其后的位置
+     */
+    private static int skipLiteral(String text, int start) {
+        char quote = text.charAt(start);
+        int index = start + 1;
+        while (index < text.length()) {
+            char c = text.charAt(index);
+            if (c == '\\') {
+                index += 2;
+            } else if (c == quote) {
+                return index + 1;
+            } else {
+                index++;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 标识符前（忽略空白）是否为指定字符
+     */
+    private static boolean precededBy(String text, int index, char c) {
+        int previous = index - 1;
+        while (previous >= 0 && Character.isWhitespace(text.charAt(previous))) {
+            previous--;
+        }
+        return previous >= 0 && text.charAt(previous) == c;
+    }
+
+    private static IOException addFailure(IOException failure, IOException e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    private static String packageName(String qualifiedName) {
+        int index = qualifiedName.lastIndexOf('.');
+        return index == -1 ? "" : qualifiedName.substring(0, index);
+    }
+
+    private static String simpleName(String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+
+    private static String qualify(String packageName, String simpleName) {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    private void write(String qualifiedName, CharSequence content, Element[] originatingElements) throws IOException {
+        JavaFileObject fileObject = filer.createSourceFile(qualifiedName, originatingElements);
+        try (Writer writer = fileObject.openWriter()) {
+            writer.append(content);
+        }
+    }
+
+    /**
+     * 待写入的任务数
+     */
+    public int pendingCount() {
+        return pendingSources.size();
+    }
+
+    /**
+     * 取消未写入的任务并关闭线程池，可重复调用
+     */
+    @Override
+    public void close() {
+        for (PendingSource source : pendingSources) {
+            source.future.cancel(true);
+        }
+        pendingSources.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private static final class PendingSource {
+        // 编译单元全类名，PER_TYPE 时为null
+        private final String unit;
+        private final String qualifiedName;
+        private final Future<? extends CharSequence> future;
+        private final Element[] originatingElements;
+
+        PendingSource(String unit, String qualifiedName, Future<? extends CharSequence> future,
+                      Element[] originatingElements) {
+            this.unit = unit;
+            this.qualifiedName = qualifiedName;
+            this.future = future;
+            this.originatingElements = originatingElements;
+        }
+
+        CharSequence await() throws IOException {
+            try {
+                CharSequence content = future.get();
+                if (content == null) {
+                    throw new IOException("render returned null: " + qualifiedName);
+                }
+                return content;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while rendering " + qualifiedName, e);
+            } catch (ExecutionException e) {
+                throw new IOException("failed to render " + qualifiedName, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * 渲染线程为守护线程，不阻止编译进程退出
+     */
+    private static final class RenderThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "compilationtool-render-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
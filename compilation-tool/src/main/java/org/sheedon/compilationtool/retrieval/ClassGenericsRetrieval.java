@@ -1,13 +1,12 @@
 package org.sheedon.compilationtool.retrieval;
 
 import org.sheedon.compilationtool.retrieval.core.AbstractGenericsRetrieval;
-import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
 import org.sheedon.compilationtool.retrieval.core.IRetrieval;
 import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+import org.sheedon.compilationtool.retrieval.trace.CacheDecision;
 import org.sheedon.compilationtool.utils.GenericsRecordUtils;
 
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
 import javax.lang.model.element.Element;
@@ -40,6 +39,7 @@ import javax.lang.model.util.Types;
  * 2.2 核实是否是目标类，是则与当前类关联，否则继续检索。
  * 2.3 核实是否在排除包中，是则说明搜索不到，返回null，否则继续检索。
  * 2.4 回到0，检索父类信息
+ * 2.5 父类尚未生成（其他处理器在后续轮次生成），当前类加入延迟检索队列，不记录结果。
  * 3.关联行为，分为「同类-层级关联」和「继承类-坐标关联」
  * 3.1 同类-层级关联：
  * 在 ParentClass 类中的 形式类 TargetClass<K,String> 和 实际类 TargetClass<T,K> 进行泛型关联。
@@ -72,7 +72,7 @@ public class ClassGenericsRetrieval extends AbstractGenericsRetrieval {
      * @param types   类型工具类
      */
     @Override
-    public RetrievalClassModel searchGenerics(TypeElement element, Types types) {
+    protected RetrievalClassModel retrievalGenerics(TypeElement element, Types types) {
 
         // 当前类的全类名
         String qualifiedName = element.getQualifiedName().toString();
@@ -81,27 +81,26 @@ public class ClassGenericsRetrieval extends AbstractGenericsRetrieval {
         Map<String, RetrievalClassModel> retrievalMap = retrieval.retrievalClassMap();
         // 当前的检索记录
         RetrievalClassModel currentModel = retrievalMap.get(qualifiedName);
-        if (currentModel != null && currentModel.isCompeted()) {
-            return currentModel;
+        if (currentModel != null && currentModel.getState() != RetrievalClassModel.State.UNVISITED) {
+            return loadedModel(element, currentModel);
         }
 
         // 当前类必需是类，并且父类必需存在，最终要继承目标类
         if (isInterfaceOrNotHasParentClass(element)) {
+            trace(element, CacheDecision.FILTERED);
             return null;
         }
+        trace(element, CacheDecision.MISS);
 
         // 构建当前泛型记录类
-        currentModel = new RetrievalClassModel() {
-            @Override
-            protected IGenericsRecord createGenericsRecord() {
-                return retrieval.genericsRecord();
-            }
-        };
+        currentModel = createClassModel();
+        currentModel.markInProgress();
         retrievalMap.put(qualifiedName, currentModel);
 
 
         // 检索得到当前类的泛型信息
-        return retrievalCurrentClass(element, types);
+        RetrievalClassModel model = retrievalCurrentClass(element, types);
+        return markRetrieved(element, currentModel, model);
     }
 
     /**
@@ -125,6 +124,11 @@ public class ClassGenericsRetrieval extends AbstractGenericsRetrieval {
             return null;
         }
 
+        // 父类尚未生成，等待后续轮次
+        if (deferIfMissing(element, superTypeMirror, types)) {
+            return null;
+        }
+
         Element superElement = types.asElement(superTypeMirror);
         if (!(superElement instanceof TypeElement)) {
             return null;
@@ -141,21 +145,18 @@ public class ClassGenericsRetrieval extends AbstractGenericsRetrieval {
         RetrievalClassModel currentModel = classMap.get(qualifiedName);
 
         // 先核实一步，若存在，可减少后续目标节点和过滤节点的盘点耗时
-        RetrievalClassModel checkLoaded = GenericsRecordUtils.checkLoaded(superRetrievalModel, currentModel, element, retrieval);
-        if (checkLoaded != null && checkLoaded.isCompeted()) {
+        traceLoaded(superTypeElement);
+        RetrievalClassModel checkLoaded = GenericsRecordUtils.checkLoaded(superRetrievalModel, superTypeMirror,
+                currentModel, element, retrieval);
+        if (checkLoaded != null) {
             return checkLoaded;
         }
 
         // 目标节点
-        String targetClassName = retrieval.canonicalName();
-        if (Objects.equals(superclassName, targetClassName)) {
+        if (retrieval.isTargetElement(superTypeElement)) {
+            trace(superTypeElement, CacheDecision.TARGET);
             // 目标节点
-            RetrievalClassModel nodeClass = GenericsRecordUtils.traverseTargetGenerics(superTypeMirror, qualifiedName, retrieval);
-            if (nodeClass == null) {
-                return null;
-            }
-            GenericsRecordUtils.appendBindPosition(nodeClass, element.getTypeParameters());
-            return nodeClass;
+            return GenericsRecordUtils.traverseTargetGenerics(superTypeMirror, element, retrieval);
         }
 
 
@@ -163,6 +164,7 @@ public class ClassGenericsRetrieval extends AbstractGenericsRetrieval {
         Set<String> filterablePackages = retrieval.filterablePackages();
         for (String filterablePackage : filterablePackages) {
             if (superclassName.startsWith(filterablePackage)) {
+                trace(superTypeElement, CacheDecision.FILTERED);
                 return null;
             }
         }
@@ -170,6 +172,7 @@ public class ClassGenericsRetrieval extends AbstractGenericsRetrieval {
         // 得到父类检索信息
         RetrievalClassModel superClassModel = searchGenerics(superTypeElement, types);
         if (superClassModel == null) {
+            deferWithSuper(element, superTypeElement);
             return null;
         }
 
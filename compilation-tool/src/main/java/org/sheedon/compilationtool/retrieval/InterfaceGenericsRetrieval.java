@@ -1,19 +1,19 @@
 package org.sheedon.compilationtool.retrieval;
 
 import org.sheedon.compilationtool.retrieval.core.AbstractGenericsRetrieval;
-import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
 import org.sheedon.compilationtool.retrieval.core.IRetrieval;
 import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+import org.sheedon.compilationtool.retrieval.trace.CacheDecision;
 import org.sheedon.compilationtool.utils.ClassUtils;
 import org.sheedon.compilationtool.utils.GenericsRecordUtils;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
 
@@ -79,6 +79,11 @@ public class InterfaceGenericsRetrieval extends AbstractGenericsRetrieval {
         super(retrieval);
     }
 
+    @Override
+    protected boolean isInterfaceRetrieval() {
+        return true;
+    }
+
     /**
      * 从当前类开始检索，层级向上，搜索到目标类为止，再层级返回填充泛型存储信息，
      * 最终将当前类的泛型关联信息作为结果输出。
@@ -87,7 +92,7 @@ public class InterfaceGenericsRetrieval extends AbstractGenericsRetrieval {
      * @param types   类型工具类
      */
     @Override
-    public RetrievalClassModel searchGenerics(TypeElement element, Types types) {
+    protected RetrievalClassModel retrievalGenerics(TypeElement element, Types types) {
 
         // 当前类的全类名
         String qualifiedName = element.getQualifiedName().toString();
@@ -96,22 +101,20 @@ public class InterfaceGenericsRetrieval extends AbstractGenericsRetrieval {
         Map<String, RetrievalClassModel> retrievalMap = retrieval.retrievalClassMap();
         // 当前的检索记录
         RetrievalClassModel currentModel = retrievalMap.get(qualifiedName);
-        if (currentModel != null) {
-            return currentModel;
+        if (currentModel != null && currentModel.getState() != RetrievalClassModel.State.UNVISITED) {
+            return loadedModel(element, currentModel);
         }
+        trace(element, CacheDecision.MISS);
 
-        // 构建当前泛型记录类
-        currentModel = new RetrievalClassModel() {
-            @Override
-            protected IGenericsRecord createGenericsRecord() {
-                return retrieval.genericsRecord();
-            }
-        };
+        // 构建当前泛型记录类，检索结束前其他路径到达时不可使用
+        currentModel = createClassModel();
+        currentModel.markInProgress();
         retrievalMap.put(qualifiedName, currentModel);
 
 
         // 检索得到当前类的泛型信息
-        return retrievalCurrentClass(element, types);
+        RetrievalClassModel model = retrievalCurrentClass(element, types);
+        return markRetrieved(element, currentModel, model);
     }
 
     /**
@@ -125,7 +128,7 @@ public class InterfaceGenericsRetrieval extends AbstractGenericsRetrieval {
      * 5.核实父类是否是在过滤包中，不是则检索形式父类的实际类，回到 searchClassGenerics()方法。
      * 5.核实接口是否是在过滤包中，不是则检索形式接口的实际类，回到 searchClassGenerics()方法。
      * 6.从父类/接口得到数据后，将泛型数据关联「同类-层级关联」+「继承类-坐标关联」。
-     * 7.都拿不到则返回null
+     * 7.都拿不到则返回null，其中有尚未生成的父类/接口时，当前类加入延迟检索队列，等待后续轮次重新检索
      *
      * @param element 当前类的元素
      * @param types   类型工具
@@ -140,39 +143,44 @@ public class InterfaceGenericsRetrieval extends AbstractGenericsRetrieval {
         // 形式父类信息，若形式父类数据存在「泛型检索信息」则直接返回。
         TypeMirror superTypeMirror = element.getSuperclass();
         String superclassName = null;
-        if (superTypeMirror != null) {
+        // 尚未生成的父类加入延迟检索队列，继续检索接口
+        if (superTypeMirror != null && !deferIfMissing(element, superTypeMirror, types)) {
 
             Element superElement = types.asElement(superTypeMirror);
             superclassName = ClassUtils.loadQualifiedName(superElement);
-            RetrievalClassModel checkLoaded = GenericsRecordUtils.checkTypeElementAndLoaded(superElement, classMap, currentModel, element, retrieval);
+            traceLoaded(superElement);
+            RetrievalClassModel checkLoaded = GenericsRecordUtils.checkTypeElementAndLoaded(superTypeMirror, superElement,
+                    classMap, currentModel, element, retrieval);
             if (checkLoaded != null) {
                 return checkLoaded;
             }
         }
 
-        // 目标节点（目标接口）
-        String targetClassName = retrieval.canonicalName();
         // 形式接口信息
         List<? extends TypeMirror> interfaces = element.getInterfaces();
         for (TypeMirror mirror : interfaces) {
+            // 尚未生成的接口，在检索接口时处理
+            if (mirror.getKind() == TypeKind.ERROR) {
+                continue;
+            }
             // 在形式接口上是否已经加载泛型存储数据
             Element interfaceElement = types.asElement(mirror);
-            RetrievalClassModel checkLoaded = GenericsRecordUtils.checkTypeElementAndLoaded(interfaceElement, classMap,
-                    currentModel, element, retrieval);
+            traceLoaded(interfaceElement);
+            RetrievalClassModel checkLoaded = GenericsRecordUtils.checkTypeElementAndLoaded(mirror, interfaceElement,
+                    classMap, currentModel, element, retrieval);
             if (checkLoaded != null) {
                 return checkLoaded;
             }
 
             // 检索父类是否是目标类，不是则检索下一个
-            String interfaceName = ClassUtils.loadQualifiedName(interfaceElement);
-            if (!Objects.equals(interfaceName, targetClassName)) {
+            if (!retrieval.isTargetElement(interfaceElement)) {
                 continue;
             }
+            trace(interfaceElement, CacheDecision.TARGET);
 
             // 目标节点
-            RetrievalClassModel nodeClass = GenericsRecordUtils.traverseTargetGenerics(mirror, qualifiedName, retrieval);
+            RetrievalClassModel nodeClass = GenericsRecordUtils.traverseTargetGenerics(mirror, element, retrieval);
             if (nodeClass != null) {
-                GenericsRecordUtils.appendBindPosition(nodeClass, element.getTypeParameters());
                 return nodeClass;
             }
         }
@@ -182,17 +190,24 @@ public class InterfaceGenericsRetrieval extends AbstractGenericsRetrieval {
         if (superclassName != null) {
             Set<String> filterablePackages = retrieval.filterablePackages();
             long count = filterablePackages.stream().filter(superclassName::startsWith).count();
-            if (count == 0) {
+            if (count > 0) {
+                trace(types.asElement(superTypeMirror), CacheDecision.FILTERED);
+            } else {
                 // 得到父类检索信息
-                RetrievalClassModel superClassModel = searchGenerics((TypeElement) types.asElement(superTypeMirror), types);
+                TypeElement superTypeElement = (TypeElement) types.asElement(superTypeMirror);
+                RetrievalClassModel superClassModel = searchGenerics(superTypeElement, types);
                 if (superClassModel != null) {
                     return GenericsRecordUtils.traverseNodeAndBindPosition(superTypeMirror, currentModel, superClassModel, element, retrieval);
                 }
+                deferWithSuper(element, superTypeElement);
             }
         }
 
         // 检索接口——根节点/需要过滤的节点，不是则检索到实际接口上
         for (TypeMirror typeMirror : interfaces) {
+            if (deferIfMissing(element, typeMirror, types)) {
+                continue;
+            }
             String interfaceName = ClassUtils.loadQualifiedName(types.asElement(typeMirror));
             if (interfaceName == null) {
                 continue;
@@ -200,12 +215,16 @@ public class InterfaceGenericsRetrieval extends AbstractGenericsRetrieval {
 
             Set<String> filterablePackages = retrieval.filterablePackages();
             long count = filterablePackages.stream().filter(interfaceName::startsWith).count();
-            if (count == 0) {
+            if (count > 0) {
+                trace(types.asElement(typeMirror), CacheDecision.FILTERED);
+            } else {
                 // 得到接口检索信息
-                RetrievalClassModel interfaceClassModel = searchGenerics((TypeElement) types.asElement(typeMirror), types);
+                TypeElement interfaceElement = (TypeElement) types.asElement(typeMirror);
+                RetrievalClassModel interfaceClassModel = searchGenerics(interfaceElement, types);
                 if (interfaceClassModel != null) {
                     return GenericsRecordUtils.traverseNodeAndBindPosition(typeMirror, currentModel, interfaceClassModel, element, retrieval);
                 }
+                deferWithSuper(element, interfaceElement);
             }
         }
         return null;
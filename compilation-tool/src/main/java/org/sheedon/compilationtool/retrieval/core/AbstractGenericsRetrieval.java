@@ -1,5 +1,34 @@
 package org.sheedon.compilationtool.retrieval.core;
 
+import org.sheedon.compilationtool.retrieval.library.GenericsIndex;
+import org.sheedon.compilationtool.retrieval.library.LibraryBinding;
+import org.sheedon.compilationtool.retrieval.library.LibraryTypeScope;
+import org.sheedon.compilationtool.retrieval.library.SignatureBindingResolver;
+import org.sheedon.compilationtool.retrieval.library.TypeDescriptor;
+import org.sheedon.compilationtool.retrieval.trace.CacheDecision;
+import org.sheedon.compilationtool.retrieval.trace.ProfilingEvents;
+import org.sheedon.compilationtool.retrieval.trace.RetrievalTracer;
+import org.sheedon.compilationtool.utils.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
 /**
  * 抽象泛型检索类
  *
@@ -10,8 +39,731 @@ package org.sheedon.compilationtool.retrieval.core;
 public abstract class AbstractGenericsRetrieval implements ISearch{
 
     protected IRetrieval.AbstractRetrieval retrieval;
+    // 依赖库缓存的检索签名：检索方式 + 目标类 + 过滤包
+    private String librarySignature;
+    // 发布索引的资源名
+    private String indexResourceName;
+    // 按泛型参数检索中的类型，用于识别循环继承
+    private final Set<TypeElement> slotResolving = new HashSet<>();
+    // 新建规范实例的检索记录
+    private final RetrievalModelInterner.ModelFactory modelFactory = this::createClassModel;
+    // 是否在最外层检索中
+    private boolean searching;
+    // 最外层检索是否在记录 JFR 事件
+    private boolean profiling;
+    // 最外层检索经过的节点数
+    private int searchHops;
+    // 最外层检索中根节点的缓存判定
+    private CacheDecision searchDecision;
 
     public AbstractGenericsRetrieval(IRetrieval.AbstractRetrieval retrieval) {
         this.retrieval = retrieval;
     }
+
+    /**
+     * 附加单次编译内共用的注册表，同一编译中检索方式、目标类、过滤包和泛型记录都相同的检索者共用检索结果，
+     * 需在首次检索前调用
+     *
+     * @param registry 注册表，见 {@link RetrievalRegistry#of}
+     */
+    public void attachRegistry(RetrievalRegistry registry) {
+        String signature = librarySignature() + "|" + retrieval.genericsRecord().getClass().getName();
+        retrieval.attachRegistry(registry, signature);
+    }
+
+    /**
+     * 检索入口，开启追踪时记录检索路径，实际检索由 retrievalGenerics 执行；
+     * 最外层检索结束时提交 JFR 事件，见 {@link ProfilingEvents}
+     *
+     * @param element 类型元素
+     * @param types   类型工具类
+     */
+    @Override
+    public RetrievalClassModel searchGenerics(TypeElement element, Types types) {
+        retrieval.canonicalTypes(types);
+        if (searching) {
+            return searchTraced(element, types);
+        }
+
+        ProfilingEvents.Span span = ProfilingEvents.beginRetrieval();
+        searching = true;
+        profiling = span != null;
+        searchHops = 0;
+        searchDecision = null;
+        try {
+            return searchTraced(element, types);
+        } finally {
+            searching = false;
+            profiling = false;
+            if (span != null) {
+                span.commit(element.getQualifiedName().toString(), searchHops,
+                        searchDecision == null ? null : searchDecision.name());
+            }
+        }
+    }
+
+    private RetrievalClassModel searchTraced(TypeElement element, Types types) {
+        RetrievalTracer tracer = retrieval.tracer();
+        if (tracer == null) {
+            return searchReachable(element, types);
+        }
+
+        tracer.begin(element);
+        try {
+            return searchReachable(element, types);
+        } finally {
+            tracer.end();
+        }
+    }
+
+    /**
+     * 只检索目标类的一个泛型，该泛型在父类/接口上已有结果时不再向上检索，
+     * 不创建其他泛型的检索记录；结果按「类 + 泛型」记录，之后的完整检索在全部泛型已知时直接使用。
+     * 目标类未绑定时执行完整检索。
+     *
+     * @param element  类型元素
+     * @param typeName 目标类泛型名称，例如 ResponseModel
+     * @param types    类型工具类
+     * @return 绑定的实际类型，未绑定或检索不到目标类时返回null
+     */
+    public TypeMirror searchGenerics(TypeElement element, String typeName, Types types) {
+        TypeElement targetElement = retrieval.targetElement();
+        int position = targetElement == null ? -1 : indexOfTypeParameter(targetElement, typeName);
+        if (position == -1) {
+            RetrievalClassModel model = searchGenerics(element, types);
+            return model == null ? null : model.getRecord().get(typeName);
+        }
+        retrieval.canonicalTypes(types);
+        return slotOf(element, position, types).getMirror();
+    }
+
+    /**
+     * 检索目标类第 position 个泛型在当前类上的结果
+     *
+     * @param element  类型元素
+     * @param position 目标类泛型坐标
+     * @param types    类型工具类
+     * @return GenericsSlot
+     * @throws IllegalArgumentException 目标类未绑定，或 position 不是目标类的泛型坐标
+     */
+    public GenericsSlot searchSlot(TypeElement element, int position, Types types) {
+        TypeElement targetElement = retrieval.targetElement();
+        if (targetElement == null) {
+            throw new IllegalArgumentException("target element is not bound");
+        }
+        int count = targetElement.getTypeParameters().size();
+        if (position < 0 || position >= count) {
+            throw new IllegalArgumentException("position " + position + " out of range [0, " + count
+                    + ") of " + targetElement.getQualifiedName());
+        }
+        retrieval.canonicalTypes(types);
+        return slotOf(element, position, types);
+    }
+
+    /**
+     * 检索单个泛型，position 已校验
+     */
+    private GenericsSlot slotOf(TypeElement element, int position, Types types) {
+        String qualifiedName = element.getQualifiedName().toString();
+        Map<String, GenericsSlot[]> slotMap = retrieval.retrievalSlotMap();
+        GenericsSlot[] slots = slotMap.get(qualifiedName);
+        if (slots != null && slots[position] != null) {
+            return slots[position];
+        }
+
+        // 完整检索已有结果
+        RetrievalClassModel model = retrieval.retrievalClassMap().get(qualifiedName);
+        if (model != null && model.isResolved()) {
+            return slotOfModel(model, position);
+        }
+        if (model != null && model.getState() == RetrievalClassModel.State.UNREACHABLE) {
+            return GenericsSlot.UNREACHABLE;
+        }
+        // 等待后续轮次生成的类型，不做记录
+        if (model != null && model.getState() == RetrievalClassModel.State.DEFERRED) {
+            return GenericsSlot.UNREACHABLE;
+        }
+
+        ReachabilityIndex reachabilityIndex = retrieval.reachabilityIndex(types);
+        GenericsSlot slot;
+        if (reachabilityIndex != null && !reachabilityIndex.isReachable(element, retrieval.libraryScope())) {
+            slot = GenericsSlot.UNREACHABLE;
+        } else if (!slotResolving.add(element)) {
+            // 循环继承，不做记录
+            return GenericsSlot.UNREACHABLE;
+        } else {
+            try {
+                slot = retrievalSlot(element, position, types);
+            } finally {
+                slotResolving.remove(element);
+            }
+        }
+
+        DeferredResolution deferredResolution = retrieval.deferredResolution();
+        if (slot == GenericsSlot.UNREACHABLE && deferredResolution.isParked(qualifiedName)) {
+            return slot;
+        }
+        deferredResolution.remove(qualifiedName);
+
+        if (slots == null) {
+            slots = new GenericsSlot[retrieval.targetElement().getTypeParameters().size()];
+            slotMap.put(qualifiedName, slots);
+        }
+        if (slot == GenericsSlot.UNREACHABLE) {
+            Arrays.fill(slots, slot);
+        } else {
+            slots[position] = slot;
+        }
+        return slot;
+    }
+
+    /**
+     * 先核实形式父类/接口是否为目标类，再沿父类、接口向上检索，与完整检索的顺序一致
+     */
+    private GenericsSlot retrievalSlot(TypeElement element, int position, Types types) {
+        List<TypeMirror> supertypes = slotSupertypes(element);
+        for (TypeMirror supertype : supertypes) {
+            Element superElement = types.asElement(supertype);
+            if (!retrieval.isTargetElement(superElement)) {
+                continue;
+            }
+            List<? extends TypeMirror> arguments = ((DeclaredType) supertype).getTypeArguments();
+            if (arguments.size() == ((TypeElement) superElement).getTypeParameters().size()) {
+                return slotOfArgument(arguments.get(position), element);
+            }
+        }
+
+        for (TypeMirror supertype : supertypes) {
+            if (deferIfMissing(element, supertype, types)) {
+                continue;
+            }
+            Element superElement = types.asElement(supertype);
+            if (!(superElement instanceof TypeElement) || retrieval.isTargetElement(superElement)
+                    || isFiltered(((TypeElement) superElement).getQualifiedName().toString())) {
+                continue;
+            }
+
+            GenericsSlot superSlot = slotOf((TypeElement) superElement, position, types);
+            if (superSlot.getKind() == GenericsSlot.Kind.UNREACHABLE) {
+                deferWithSuper(element, (TypeElement) superElement);
+                continue;
+            }
+            if (superSlot.getKind() != GenericsSlot.Kind.VARIABLE) {
+                // 已绑定或未绑定，与当前类的泛型无关，直接沿用
+                return superSlot;
+            }
+            List<? extends TypeMirror> arguments = ((DeclaredType) supertype).getTypeArguments();
+            return superSlot.getPosition() < arguments.size()
+                    ? slotOfArgument(arguments.get(superSlot.getPosition()), element) : GenericsSlot.UNBOUND;
+        }
+        return GenericsSlot.UNREACHABLE;
+    }
+
+    /**
+     * 检索的形式父类/接口：泛型类检索只沿类的父类，泛型接口检索沿父类及接口，
+     * 包含尚未生成的 ERROR 类型，由检索时加入延迟检索队列
+     */
+    private List<TypeMirror> slotSupertypes(TypeElement element) {
+        List<TypeMirror> supertypes = new ArrayList<>();
+        boolean interfaceRetrieval = isInterfaceRetrieval();
+        if (!interfaceRetrieval && element.getKind().isInterface()) {
+            return supertypes;
+        }
+
+        TypeMirror superclass = element.getSuperclass();
+        if (superclass != null && isDeclaredOrError(superclass)) {
+            supertypes.add(superclass);
+        }
+        if (interfaceRetrieval) {
+            for (TypeMirror mirror : element.getInterfaces()) {
+                if (isDeclaredOrError(mirror)) {
+                    supertypes.add(mirror);
+                }
+            }
+        }
+        return supertypes;
+    }
+
+    private static boolean isDeclaredOrError(TypeMirror mirror) {
+        return mirror.getKind() == TypeKind.DECLARED || mirror.getKind() == TypeKind.ERROR;
+    }
+
+    /**
+     * 形式父类/接口上的泛型实际类型：类型为绑定，当前类的泛型为关联，其余为未绑定
+     */
+    private GenericsSlot slotOfArgument(TypeMirror argument, TypeElement element) {
+        if (argument.getKind() == TypeKind.DECLARED) {
+            CanonicalTypeTable canonicalTypes = retrieval.canonicalTypes();
+            return GenericsSlot.bound(canonicalTypes == null ? argument : canonicalTypes.canonical(argument));
+        }
+        TypeVariableKey key = TypeVariableKey.of(argument);
+        if (key != null && key.getGenericElement() == element) {
+            return GenericsSlot.variable(key.getIndex());
+        }
+        return GenericsSlot.UNBOUND;
+    }
+
+    private GenericsSlot slotOfModel(RetrievalClassModel model, int position) {
+        TypeVariableKey targetKey = TypeVariableKey.of(retrieval.targetElement(), position);
+        TypeMirror mirror = model.getRecord().get(targetKey.getName());
+        if (mirror != null) {
+            return GenericsSlot.bound(mirror);
+        }
+        int index = model.getPositionByTargetIndex(position);
+        return index == -1 ? GenericsSlot.UNBOUND : GenericsSlot.variable(index);
+    }
+
+    private boolean isFiltered(String qualifiedName) {
+        for (String filterablePackage : retrieval.filterablePackages()) {
+            if (qualifiedName.startsWith(filterablePackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOfTypeParameter(TypeElement element, String typeName) {
+        List<? extends TypeParameterElement> parameters = element.getTypeParameters();
+        for (int index = 0; index < parameters.size(); index++) {
+            if (parameters.get(index).getSimpleName().contentEquals(typeName)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 先由 {@link ReachabilityIndex} 排除不是目标类子类型的类型，再执行检索
+     *
+     * @param element 类型元素
+     * @param types   类型工具类
+     */
+    private RetrievalClassModel searchReachable(TypeElement element, Types types) {
+        ReachabilityIndex reachabilityIndex = retrieval.reachabilityIndex(types);
+        if (reachabilityIndex != null && !reachabilityIndex.isReachable(element, retrieval.libraryScope())) {
+            trace(element, CacheDecision.UNRELATED);
+            return null;
+        }
+        restoreSlots(element);
+        return searchLibraryOrRetrieval(element, types);
+    }
+
+    /**
+     * 按泛型参数检索已得到全部泛型的结果时，直接组成检索记录，不再向上检索
+     *
+     * @param element 类型元素
+     */
+    private void restoreSlots(TypeElement element) {
+        String qualifiedName = element.getQualifiedName().toString();
+        GenericsSlot[] slots = retrieval.retrievalSlotMap().get(qualifiedName);
+        if (slots == null || retrieval.retrievalClassMap().containsKey(qualifiedName)) {
+            return;
+        }
+        for (GenericsSlot slot : slots) {
+            if (slot == null) {
+                return;
+            }
+        }
+
+        RetrievalClassModel model = createClassModel();
+        if (slots.length > 0 && slots[0] == GenericsSlot.UNREACHABLE) {
+            model.markResolved(false);
+            putRetrieved(qualifiedName, model);
+            return;
+        }
+
+        TypeElement targetElement = retrieval.targetElement();
+        for (int index = 0; index < slots.length; index++) {
+            TypeVariableKey targetKey = TypeVariableKey.of(targetElement, index);
+            if (slots[index].getKind() == GenericsSlot.Kind.BOUND) {
+                model.addGenericsRecord(targetKey, slots[index].getMirror());
+            } else if (slots[index].getKind() == GenericsSlot.Kind.VARIABLE) {
+                model.bindPosition(slots[index].getPosition(), targetKey);
+            }
+        }
+        model.markResolved(true);
+        putRetrieved(qualifiedName, model);
+    }
+
+    /**
+     * 依赖库中的类型优先从 {@link org.sheedon.compilationtool.retrieval.library.LibraryTypeCache} 加载，
+     * 未命中则先读取 class 文件的 Signature 属性检索，无法得出结果再由 javac 检索，结果写入缓存；
+     * 其他类型直接检索。
+     *
+     * @param element 类型元素
+     * @param types   类型工具类
+     */
+    private RetrievalClassModel searchLibraryOrRetrieval(TypeElement element, Types types) {
+        LibraryTypeScope scope = retrieval.libraryScope();
+        if (scope == null) {
+            return retrievalGenerics(element, types);
+        }
+
+        // 本次编译已检索过，交由检索类处理；源码类型不查找 classpath 条目和发布的索引
+        String qualifiedName = element.getQualifiedName().toString();
+        if (retrieval.retrievalClassMap().containsKey(qualifiedName) || scope.isSourceType(element)) {
+            return retrievalGenerics(element, types);
+        }
+
+        // 依赖库模块发布的索引
+        LibraryBinding published = scope.publishedBinding(element, indexResourceName());
+        if (published != null) {
+            if (!published.isReachable()) {
+                trace(element, CacheDecision.FILTERED);
+                putUnreachable(qualifiedName);
+                return null;
+            }
+            RetrievalClassModel model = restoreLibraryModel(published, scope);
+            if (model != null) {
+                trace(element, CacheDecision.HIT);
+                return putRetrieved(qualifiedName, model);
+            }
+        }
+
+        String entryHash = scope.entryHash(element);
+        if (entryHash == null) {
+            return retrievalGenerics(element, types);
+        }
+
+        String signature = librarySignature();
+        LibraryBinding binding = scope.getCache().get(entryHash, qualifiedName, signature, scope);
+        if (binding != null) {
+            if (!binding.isReachable()) {
+                trace(element, CacheDecision.FILTERED);
+                putUnreachable(qualifiedName);
+                return null;
+            }
+            RetrievalClassModel model = restoreLibraryModel(binding, scope);
+            if (model != null) {
+                trace(element, CacheDecision.HIT);
+                return putRetrieved(qualifiedName, model);
+            }
+        }
+
+        SignatureBindingResolver resolver = scope.signatureResolver(signature, retrieval.targetElement(),
+                retrieval.filterablePackages(), isInterfaceRetrieval());
+        String binaryName = scope.getElements().getBinaryName(element).toString();
+        binding = resolver == null ? null : resolver.resolve(binaryName);
+        if (binding != null) {
+            scope.getCache().put(entryHash, qualifiedName, signature, binding,
+                    scope.dependencyHashes(resolver.dependenciesOf(binaryName)));
+            if (!binding.isReachable()) {
+                trace(element, CacheDecision.FILTERED);
+                putUnreachable(qualifiedName);
+                return null;
+            }
+            RetrievalClassModel model = restoreLibraryModel(binding, scope);
+            if (model != null) {
+                trace(element, CacheDecision.MISS);
+                return putRetrieved(qualifiedName, model);
+            }
+        }
+
+        RetrievalClassModel model = retrievalGenerics(element, types);
+        if (!retrieval.deferredResolution().isParked(qualifiedName)) {
+            scope.getCache().put(entryHash, qualifiedName, signature,
+                    LibraryBinding.of(model, element, retrieval.targetElement()),
+                    scope.dependencyHashes(element, retrieval.filterablePackages(), isInterfaceRetrieval()));
+        }
+        return model;
+    }
+
+    /**
+     * 检索给定类型，结果写入索引，用于发布到模块输出供下游模块使用（见 GenericsIndexPublisher）
+     *
+     * @param elements 类型元素，一般为本次编译的全部类型
+     * @param types    类型工具类
+     * @return GenericsIndex，目标类未绑定时返回null
+     */
+    public GenericsIndex createIndex(Collection<? extends TypeElement> elements, Types types) {
+        TypeElement targetElement = retrieval.targetElement();
+        if (targetElement == null) {
+            return null;
+        }
+
+        GenericsIndex index = new GenericsIndex(targetElement.getQualifiedName().toString(),
+                isInterfaceRetrieval(), targetElement.getTypeParameters().size());
+        for (TypeElement element : elements) {
+            if (element == targetElement) {
+                continue;
+            }
+            RetrievalClassModel model = searchGenerics(element, types);
+            String qualifiedName = element.getQualifiedName().toString();
+            // 父类型始终未生成，不写入索引
+            if (!retrieval.deferredResolution().isParked(qualifiedName)) {
+                index.put(qualifiedName, LibraryBinding.of(model, element, targetElement));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 发布索引的资源名，由检索方式、目标类和过滤包决定
+     */
+    public String indexResourceName() {
+        if (indexResourceName == null) {
+            indexResourceName = GenericsIndex.resourceName(retrieval.canonicalName(), isInterfaceRetrieval(),
+                    retrieval.filterablePackages());
+        }
+        return indexResourceName;
+    }
+
+    /**
+     * 释放等待本轮新生成类型的延迟检索类型，清除它们的检索记录，其他类型的检索记录保持不变。
+     * 在每轮处理开始时调用，返回的类型需重新检索。
+     *
+     * @param roundEnv 本轮环境
+     * @param elements 元素工具类
+     * @return 需要重新检索的类型元素
+     */
+    public List<TypeElement> releaseDeferred(RoundEnvironment roundEnv, Elements elements) {
+        List<TypeElement> releasedElements = new ArrayList<>();
+        Set<String> released = retrieval.deferredResolution().release(roundEnv.getRootElements());
+        if (released.isEmpty()) {
+            return releasedElements;
+        }
+
+        ReachabilityIndex reachabilityIndex = retrieval.reachabilityIndex();
+        ResolvedTypeIndex resolvedTypeIndex = retrieval.resolvedTypeIndex();
+        for (String qualifiedName : released) {
+            retrieval.retrievalClassMap().remove(qualifiedName);
+            retrieval.retrievalSlotMap().remove(qualifiedName);
+            if (resolvedTypeIndex != null) {
+                resolvedTypeIndex.remove(qualifiedName);
+            }
+            TypeElement element = elements.getTypeElement(qualifiedName);
+            if (element == null) {
+                continue;
+            }
+            if (reachabilityIndex != null) {
+                reachabilityIndex.markReachable(element);
+            }
+            releasedElements.add(element);
+        }
+        return releasedElements;
+    }
+
+    /**
+     * 记录检索不到目标类的依赖库类型，其他路径到达时不再检索
+     *
+     * @param qualifiedName 全类名
+     */
+    private void putUnreachable(String qualifiedName) {
+        RetrievalClassModel model = createClassModel();
+        model.markResolved(false);
+        putRetrieved(qualifiedName, model);
+    }
+
+    /**
+     * 将依赖库缓存结果还原为当前编译中的检索记录，类型无法还原时返回null
+     *
+     * @param binding 缓存结果
+     * @param scope   依赖库缓存作用域
+     * @return RetrievalClassModel
+     */
+    private RetrievalClassModel restoreLibraryModel(LibraryBinding binding, LibraryTypeScope scope) {
+        TypeElement targetElement = retrieval.targetElement();
+        if (targetElement == null) {
+            return null;
+        }
+
+        RetrievalClassModel model = createClassModel();
+        for (int index = 0; index < binding.getBindingCount(); index++) {
+            TypeDescriptor descriptor = binding.getBinding(index);
+            if (descriptor == null) {
+                continue;
+            }
+            TypeMirror mirror = descriptor.toTypeMirror(scope.getElements(), scope.getTypes());
+            if (mirror == null) {
+                return null;
+            }
+            model.addGenericsRecord(TypeVariableKey.of(targetElement, index), mirror);
+        }
+
+        for (int index = 0; index < binding.getPositionCount(); index++) {
+            int targetPosition = binding.getTargetPosition(index);
+            if (targetPosition != -1) {
+                model.bindPosition(index, TypeVariableKey.of(targetElement, targetPosition));
+            }
+        }
+        model.markResolved(true);
+        return model;
+    }
+
+    private String librarySignature() {
+        if (librarySignature == null) {
+            Set<String> packages = new TreeSet<>(retrieval.filterablePackages());
+            librarySignature = getClass().getName() + "|" + retrieval.canonicalName() + "|" + packages;
+        }
+        return librarySignature;
+    }
+
+    /**
+     * 父类/接口尚未生成（ERROR 类型）时，当前类型加入延迟检索队列，等待该类型生成
+     *
+     * @param element   类型元素
+     * @param supertype 形式父类/接口
+     * @param types     类型工具类
+     * @return 是否尚未生成
+     */
+    protected boolean deferIfMissing(TypeElement element, TypeMirror supertype, Types types) {
+        if (supertype == null || supertype.getKind() != TypeKind.ERROR) {
+            return false;
+        }
+        Element missingElement = types.asElement(supertype);
+        String missingName = ClassUtils.loadQualifiedName(missingElement);
+        if (missingName == null) {
+            missingName = types.erasure(supertype).toString();
+        }
+        trace(missingElement, CacheDecision.DEFERRED);
+        retrieval.deferredResolution().park(element.getQualifiedName().toString(), missingName);
+        return true;
+    }
+
+    /**
+     * 父类/接口在等待尚未生成的类型时，当前类型一同等待
+     *
+     * @param element      类型元素
+     * @param superElement 父类/接口元素
+     */
+    protected void deferWithSuper(TypeElement element, TypeElement superElement) {
+        DeferredResolution deferredResolution = retrieval.deferredResolution();
+        String superName = superElement.getQualifiedName().toString();
+        if (deferredResolution.isParked(superName)) {
+            deferredResolution.parkWith(element.getQualifiedName().toString(), superName);
+        }
+    }
+
+    /**
+     * 检索结束，标记检索记录的状态：检索不到目标类且在等待尚未生成的类型时标记为 DEFERRED，
+     * 否则移出延迟检索队列，按结果标记为 RESOLVED 或 UNREACHABLE；
+     * 检索结束的记录替换为结构相同的规范实例
+     *
+     * @param element      类型元素
+     * @param currentModel 当前类的检索记录
+     * @param model        检索结果
+     * @return 检索结果，已检索到目标类时为规范实例
+     */
+    protected RetrievalClassModel markRetrieved(TypeElement element, RetrievalClassModel currentModel,
+                                                RetrievalClassModel model) {
+        DeferredResolution deferredResolution = retrieval.deferredResolution();
+        String qualifiedName = element.getQualifiedName().toString();
+        if (model == null && deferredResolution.isParked(qualifiedName)) {
+            currentModel.markDeferred();
+            return null;
+        }
+        deferredResolution.remove(qualifiedName);
+        currentModel.markResolved(model != null);
+        if (model == null) {
+            putRetrieved(qualifiedName, currentModel);
+            return null;
+        }
+        return model != currentModel ? model : putRetrieved(qualifiedName, model);
+    }
+
+    /**
+     * 存入检索结束的记录，结构相同的记录共用 {@link RetrievalModelInterner} 中的规范实例，
+     * 同时更新 {@link ResolvedTypeIndex}
+     *
+     * @param qualifiedName 全类名
+     * @param model         已检索到或检索不到目标类的记录
+     * @return 存入的记录
+     */
+    private RetrievalClassModel putRetrieved(String qualifiedName, RetrievalClassModel model) {
+        RetrievalModelInterner interner = retrieval.modelInterner();
+        RetrievalClassModel canonical = interner == null ? model : interner.intern(model, modelFactory);
+        retrieval.retrievalClassMap().put(qualifiedName, canonical);
+        ResolvedTypeIndex resolvedTypeIndex = retrieval.resolvedTypeIndex();
+        if (resolvedTypeIndex != null) {
+            resolvedTypeIndex.put(qualifiedName, canonical);
+        }
+        return canonical;
+    }
+
+    /**
+     * 是否沿接口检索，接口检索类返回true
+     */
+    protected boolean isInterfaceRetrieval() {
+        return false;
+    }
+
+    /**
+     * 创建检索记录，泛型记录由检索者职责提供
+     */
+    protected RetrievalClassModel createClassModel() {
+        return new RetrievalClassModel() {
+            @Override
+            protected IGenericsRecord createGenericsRecord() {
+                return retrieval.genericsRecord();
+            }
+
+            @Override
+            protected TypeMirror canonical(TypeMirror mirror) {
+                CanonicalTypeTable canonicalTypes = retrieval.canonicalTypes();
+                return canonicalTypes == null || mirror == null ? mirror : canonicalTypes.canonical(mirror);
+            }
+        };
+    }
+
+    /**
+     * 从当前类开始检索，层级向上，搜索到目标类为止
+     *
+     * @param element 类型元素
+     * @param types   类型工具类
+     */
+    protected abstract RetrievalClassModel retrievalGenerics(TypeElement element, Types types);
+
+    /**
+     * 记录检索路径上的一跳
+     *
+     * @param element  节点元素
+     * @param decision 缓存判定
+     */
+    protected void trace(Element element, CacheDecision decision) {
+        if (profiling) {
+            searchHops++;
+            if (searchDecision == null) {
+                searchDecision = decision;
+            }
+        }
+        RetrievalTracer tracer = retrieval.tracer();
+        if (tracer != null) {
+            tracer.hop(element, decision);
+        }
+    }
+
+    /**
+     * 若节点已存在检索记录，记录命中或部分命中
+     *
+     * @param element 节点元素
+     */
+    protected void traceLoaded(Element element) {
+        RetrievalTracer tracer = retrieval.tracer();
+        if (!profiling && (tracer == null || !tracer.isRecording())) {
+            return;
+        }
+
+        String qualifiedName = ClassUtils.loadQualifiedName(element);
+        RetrievalClassModel model = qualifiedName == null ? null : retrieval.retrievalClassMap().get(qualifiedName);
+        if (model != null && model.isResolved()) {
+            trace(element, model.isCompeted() ? CacheDecision.HIT : CacheDecision.PARTIAL);
+        }
+    }
+
+    /**
+     * 已存在检索记录时的结果：已检索到目标类则直接使用，
+     * 检索不到、检索中（循环继承）或等待尚未生成的类型时返回null，不再重复检索
+     *
+     * @param element 类型元素
+     * @param model   检索记录
+     */
+    protected RetrievalClassModel loadedModel(Element element, RetrievalClassModel model) {
+        if (model.isResolved()) {
+            trace(element, model.isCompeted() ? CacheDecision.HIT : CacheDecision.PARTIAL);
+            return model;
+        }
+        trace(element, model.getState() == RetrievalClassModel.State.DEFERRED
+                ? CacheDecision.DEFERRED : CacheDecision.FILTERED);
+        return null;
+    }
 }
@@ -0,0 +1,163 @@
+package org.sheedon.compilationtool.retrieval.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.QualifiedNameable;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Types;
+
+/**
+ * 已解析类型的规范表：按 Types.isSameType 判定相同的类型只保留一个实例，并分配从 0 开始的整数 id。
+ * <p>
+ * 检索记录中的实际类型（例如 java.lang.String）在成千上万个记录中重复出现，
+ * 而 TypeMirror 没有可用的 equals。存入规范实例后，记录共用同一对象，
+ * 比较与分组可以直接使用 id 或引用比较。
+ * <p>
+ * 先按结构哈希（类名、泛型实际类型、数组组件等）分桶，只对同桶类型调用 isSameType。
+ * 顶层通配符按 isSameType 的定义与任何类型都不相同，这里改为按字符串比较。
+ * 类型注解不参与判定，规范实例保留首次存入的类型注解。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 5:20 下午
+ */
+public class CanonicalTypeTable {
+
+    private final Types types;
+    // 结构哈希 - 同桶的 id
+    private final Map<Integer, List<Integer>> buckets = new HashMap<>();
+    // id - 规范实例
+    private final List<TypeMirror> mirrors = new ArrayList<>();
+    // 规范实例 - id，非规范实例不保留，避免持有重复对象
+    private final Map<TypeMirror, Integer> identities = new IdentityHashMap<>();
+
+    public CanonicalTypeTable(Types types) {
+        this.types = types;
+    }
+
+    /**
+     * 类型的 id，首次出现时分配
+     *
+     * @param mirror 类型
+     * @return id，mirror 为null时返回 -1
+     */
+    public int idOf(TypeMirror mirror) {
+        if (mirror == null) {
+            return -1;
+        }
+        Integer id = identities.get(mirror);
+        if (id != null) {
+            return id;
+        }
+
+        int hash = structuralHash(mirror);
+        List<Integer> bucket = buckets.get(hash);
+        if (bucket == null) {
+            bucket = new ArrayList<>(1);
+            buckets.put(hash, bucket);
+        }
+        for (Integer candidate : bucket) {
+            if (sameType(mirrors.get(candidate), mirror)) {
+                return candidate;
+            }
+        }
+
+        id = mirrors.size();
+        mirrors.add(mirror);
+        bucket.add(id);
+        identities.put(mirror, id);
+        return id;
+    }
+
+    /**
+     * 类型的规范实例
+     *
+     * @param mirror 类型
+     * @return 规范实例，mirror 为null时返回null
+     */
+    public TypeMirror canonical(TypeMirror mirror) {
+        return mirror == null ? null : mirrors.get(idOf(mirror));
+    }
+
+    /**
+     * 根据 id 获取规范实例
+     *
+     * @param id 类型 id
+     * @return 规范实例，id 不存在时返回null
+     */
+    public TypeMirror typeOf(int id) {
+        return id < 0 || id >= mirrors.size() ? null : mirrors.get(id);
+    }
+
+    /**
+     * 类型是否与 id 对应的类型相同
+     *
+     * @param id     类型 id
+     * @param mirror 类型
+     */
+    public boolean isSameType(int id, TypeMirror mirror) {
+        return id >= 0 && id == idOf(mirror);
+    }
+
+    public int size() {
+        return mirrors.size();
+    }
+
+    private boolean sameType(TypeMirror canonical, TypeMirror mirror) {
+        if (canonical.getKind() == TypeKind.WILDCARD || mirror.getKind() == TypeKind.WILDCARD) {
+            return canonical.getKind() == mirror.getKind() && canonical.toString().equals(mirror.toString());
+        }
+        return types.isSameType(canonical, mirror);
+    }
+
+    /**
+     * 结构哈希，相同类型必然哈希相同
+     */
+    private static int structuralHash(TypeMirror mirror) {
+        switch (mirror.getKind()) {
+            case DECLARED:
+            case ERROR: {
+                DeclaredType declaredType = (DeclaredType) mirror;
+                int hash = nameHash(declaredType.asElement());
+                for (TypeMirror argument : declaredType.getTypeArguments()) {
+                    hash = 31 * hash + structuralHash(argument);
+                }
+                return hash;
+            }
+            case ARRAY:
+                return 31 * structuralHash(((ArrayType) mirror).getComponentType()) + 1;
+            case TYPEVAR: {
+                Element element = ((TypeVariable) mirror).asElement();
+                Element genericElement = element instanceof TypeParameterElement
+                        ? ((TypeParameterElement) element).getGenericElement() : null;
+                return 31 * nameHash(genericElement) + element.getSimpleName().toString().hashCode();
+            }
+            case WILDCARD: {
+                WildcardType wildcardType = (WildcardType) mirror;
+                TypeMirror bound = wildcardType.getExtendsBound() != null
+                        ? wildcardType.getExtendsBound() : wildcardType.getSuperBound();
+                return 31 * (bound == null ? 0 : structuralHash(bound)) + 2;
+            }
+            default:
+                return mirror.getKind().name().hashCode();
+        }
+    }
+
+    private static int nameHash(Element element) {
+        if (element instanceof QualifiedNameable) {
+            return ((QualifiedNameable) element).getQualifiedName().toString().hashCode();
+        }
+        return element == null ? 0 : element.getSimpleName().toString().hashCode();
+    }
+}
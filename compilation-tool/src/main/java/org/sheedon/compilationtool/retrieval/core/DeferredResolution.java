@@ -0,0 +1,164 @@
+package org.sheedon.compilationtool.retrieval.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * 延迟检索队列：父类/接口由其他处理器在后续轮次生成时，当前轮次中为 ERROR 类型，
+ * 继承结构中包含它的类型不记录检索结果，连同缺失的类型名暂存于此。
+ * 后续轮次生成了该类型后，只释放等待它的类型重新检索，其他类型的检索结果保持不变。
+ * <p>
+ * 缺失的类型名为源码中的书写形式，例如 GenBase 或 a.b.GenBase，
+ * 因此新生成的类型按全类名的各级后缀匹配：a.b.GenBase、b.GenBase、GenBase。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/15 2:40 下午
+ */
+public class DeferredResolution {
+
+    // 缺失的类型名 - 等待该类型的全类名
+    private final Map<String, Set<String>> waitingMap = new HashMap<>();
+    // 全类名 - 等待的缺失类型名
+    private final Map<String, Set<String>> missingMap = new HashMap<>();
+
+    /**
+     * 暂存类型，等待缺失的类型生成
+     *
+     * @param qualifiedName 全类名
+     * @param missingName   缺失的类型名
+     */
+    public void park(String qualifiedName, String missingName) {
+        Set<String> missingNames = missingMap.get(qualifiedName);
+        if (missingNames == null) {
+            missingNames = new LinkedHashSet<>();
+            missingMap.put(qualifiedName, missingNames);
+        }
+        missingNames.add(missingName);
+
+        Set<String> waitingNames = waitingMap.get(missingName);
+        if (waitingNames == null) {
+            waitingNames = new LinkedHashSet<>();
+            waitingMap.put(missingName, waitingNames);
+        }
+        waitingNames.add(qualifiedName);
+    }
+
+    /**
+     * 暂存类型，与父类型等待相同的缺失类型
+     *
+     * @param qualifiedName      全类名
+     * @param superQualifiedName 已暂存的父类型全类名
+     */
+    public void parkWith(String qualifiedName, String superQualifiedName) {
+        Set<String> missingNames = missingMap.get(superQualifiedName);
+        if (missingNames == null) {
+            return;
+        }
+        for (String missingName : missingNames.toArray(new String[0])) {
+            park(qualifiedName, missingName);
+        }
+    }
+
+    /**
+     * 是否在等待缺失的类型
+     *
+     * @param qualifiedName 全类名
+     */
+    public boolean isParked(String qualifiedName) {
+        return missingMap.containsKey(qualifiedName);
+    }
+
+    /**
+     * 等待的缺失类型名，未暂存时返回空集合
+     *
+     * @param qualifiedName 全类名
+     */
+    public Set<String> missingNames(String qualifiedName) {
+        Set<String> missingNames = missingMap.get(qualifiedName);
+        return missingNames == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(missingNames);
+    }
+
+    /**
+     * 移出队列，例如类型已由其他路径检索到目标类
+     *
+     * @param qualifiedName 全类名
+     */
+    public void remove(String qualifiedName) {
+        Set<String> missingNames = missingMap.remove(qualifiedName);
+        if (missingNames == null) {
+            return;
+        }
+        for (String missingName : missingNames) {
+            Set<String> waitingNames = waitingMap.get(missingName);
+            if (waitingNames != null) {
+                waitingNames.remove(qualifiedName);
+                if (waitingNames.isEmpty()) {
+                    waitingMap.remove(missingName);
+                }
+            }
+        }
+    }
+
+    /**
+     * 根据本轮新生成的类型（包含内部类）释放等待它们的类型，释放的类型移出队列
+     *
+     * @param generatedElements 本轮新生成的类型，一般为 RoundEnvironment.getRootElements()
+     * @return 需要重新检索的全类名
+     */
+    public Set<String> release(Collection<? extends Element> generatedElements) {
+        Set<String> released = new LinkedHashSet<>();
+        if (waitingMap.isEmpty()) {
+            return released;
+        }
+        for (Element element : generatedElements) {
+            if (element instanceof TypeElement) {
+                release((TypeElement) element, released);
+            }
+        }
+        for (String qualifiedName : released) {
+            remove(qualifiedName);
+        }
+        return released;
+    }
+
+    private void release(TypeElement element, Set<String> released) {
+        String name = element.getQualifiedName().toString();
+        int index = -1;
+        do {
+            Set<String> waitingNames = waitingMap.get(name.substring(index + 1));
+            if (waitingNames != null) {
+                released.addAll(waitingNames);
+            }
+            index = name.indexOf('.', index + 1);
+        } while (index != -1);
+
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement) {
+                release((TypeElement) enclosed, released);
+            }
+        }
+    }
+
+    /**
+     * 全部暂存的全类名
+     */
+    public Set<String> parkedNames() {
+        return Collections.unmodifiableSet(missingMap.keySet());
+    }
+
+    public boolean isEmpty() {
+        return missingMap.isEmpty();
+    }
+
+    public int size() {
+        return missingMap.size();
+    }
+}
@@ -0,0 +1,75 @@
+package org.sheedon.compilationtool.retrieval.core;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * 单个目标类泛型在某个类上的检索结果，用于按泛型参数检索：
+ * 已绑定实际类型（BOUND）、关联当前类的第 i 个泛型（VARIABLE）、
+ * 未绑定（UNBOUND，例如原始类型）或检索不到目标类（UNREACHABLE）。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 3:10 下午
+ */
+public final class GenericsSlot {
+
+    public enum Kind {
+        BOUND,
+        VARIABLE,
+        UNBOUND,
+        UNREACHABLE
+    }
+
+    public static final GenericsSlot UNBOUND = new GenericsSlot(Kind.UNBOUND, null, -1);
+    public static final GenericsSlot UNREACHABLE = new GenericsSlot(Kind.UNREACHABLE, null, -1);
+
+    private final Kind kind;
+    // 实际类型，仅 BOUND
+    private final TypeMirror mirror;
+    // 当前类泛型坐标，仅 VARIABLE
+    private final int position;
+
+    private GenericsSlot(Kind kind, TypeMirror mirror, int position) {
+        this.kind = kind;
+        this.mirror = mirror;
+        this.position = position;
+    }
+
+    public static GenericsSlot bound(TypeMirror mirror) {
+        return new GenericsSlot(Kind.BOUND, mirror, -1);
+    }
+
+    public static GenericsSlot variable(int position) {
+        return new GenericsSlot(Kind.VARIABLE, null, position);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * 已绑定的实际类型，其他情况返回null
+     */
+    public TypeMirror getMirror() {
+        return mirror;
+    }
+
+    /**
+     * 关联的当前类泛型坐标，其他情况返回 -1
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case BOUND:
+                return "BOUND(" + mirror + ")";
+            case VARIABLE:
+                return "VARIABLE(" + position + ")";
+            default:
+                return kind.name();
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package org.sheedon.compilationtool.retrieval.core;
 
-import java.util.HashMap;
+import org.sheedon.compilationtool.retrieval.library.LibraryTypeScope;
+import org.sheedon.compilationtool.retrieval.trace.RetrievalTracer;
+
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+
 /**
  * 检索
  *
@@ -42,7 +48,20 @@ public interface IRetrieval {
 
     abstract class AbstractRetrieval implements IRetrieval{
 
-        private final Map<String, RetrievalClassModel> classMap = new HashMap<>();
+        // 检索结果，附加注册表后与签名相同的检索者共用
+        private RetrievalResults results = new RetrievalResults();
+        // 单次编译内共用的注册表，默认关闭
+        private RetrievalRegistry registry;
+        // 目标类元素，首次匹配到全类名后锁定，之后按引用比较
+        private TypeElement targetElement;
+        // 检索路径追踪者，默认关闭
+        private RetrievalTracer tracer;
+        // 依赖库类型缓存作用域，默认关闭
+        private LibraryTypeScope libraryScope;
+        // 可达性索引，目标类绑定后创建
+        private ReachabilityIndex reachabilityIndex;
+        // 已解析类型的规范表，首次检索时创建
+        private CanonicalTypeTable canonicalTypes;
 
         @Override
         public Set<String> filterablePackages() {
@@ -51,7 +70,178 @@ public interface IRetrieval {
 
         @Override
         public Map<String, RetrievalClassModel> retrievalClassMap() {
-            return classMap;
+            return results.classMap;
+        }
+
+        /**
+         * 按泛型参数检索的记录，数组下标为目标类泛型坐标，未检索的坐标为null
+         */
+        public Map<String, GenericsSlot[]> retrievalSlotMap() {
+            return results.slotMap;
+        }
+
+        /**
+         * 绑定目标类元素，可在处理器中通过 Elements.getTypeElement(canonicalName()) 提前设置，
+         * 未设置时，在检索中首次匹配到目标类全类名时自动绑定
+         *
+         * @param targetElement 目标类元素
+         */
+        public void bindTargetElement(TypeElement targetElement) {
+            this.targetElement = targetElement;
+            this.reachabilityIndex = null;
+        }
+
+        /**
+         * 目标类元素，未绑定时为null
+         */
+        public TypeElement targetElement() {
+            return targetElement;
+        }
+
+        /**
+         * 可达性索引，目标类未绑定时返回null，此时不做预过滤
+         *
+         * @param types 类型工具类
+         */
+        public ReachabilityIndex reachabilityIndex(Types types) {
+            if (reachabilityIndex == null && targetElement != null) {
+                reachabilityIndex = registry != null ? registry.reachabilityIndex(targetElement)
+                        : new ReachabilityIndex(targetElement, types);
+            }
+            return reachabilityIndex;
+        }
+
+        /**
+         * 可达性索引，尚未创建时为null
+         */
+        public ReachabilityIndex reachabilityIndex() {
+            return reachabilityIndex;
+        }
+
+        /**
+         * 已解析类型的规范表，检索记录中的实际类型均为其中的规范实例
+         *
+         * @param types 类型工具类
+         */
+        public CanonicalTypeTable canonicalTypes(Types types) {
+            if (canonicalTypes == null) {
+                canonicalTypes = registry != null ? registry.canonicalTypes() : new CanonicalTypeTable(types);
+            }
+            return canonicalTypes;
+        }
+
+        /**
+         * 已解析类型的规范表，尚未检索时为null
+         */
+        public CanonicalTypeTable canonicalTypes() {
+            return canonicalTypes;
+        }
+
+        /**
+         * 检索记录的规范表，结构相同的已检索记录共用同一个实例，目标类未绑定时返回null
+         */
+        public RetrievalModelInterner modelInterner() {
+            return results.modelInterner(targetElement);
+        }
+
+        /**
+         * 泛型实际类型的反向索引，随检索结果增量更新，目标类未绑定或尚未检索时返回null
+         */
+        public ResolvedTypeIndex resolvedTypeIndex() {
+            return results.resolvedTypeIndex(targetElement, canonicalTypes);
+        }
+
+        /**
+         * 延迟检索队列，继承结构中包含尚未生成类型的类型暂存于此
+         */
+        public DeferredResolution deferredResolution() {
+            return results.deferredResolution;
+        }
+
+        /**
+         * 附加单次编译内共用的注册表，检索签名相同的检索者共用检索结果，需在首次检索前调用；
+         * 目标类未绑定时一并绑定
+         *
+         * @param registry  注册表
+         * @param signature 检索签名
+         */
+        void attachRegistry(RetrievalRegistry registry, String signature) {
+            RetrievalResults shared = registry.results(signature);
+            if (shared != results && !results.isEmpty()) {
+                throw new IllegalStateException("attach registry before retrieval");
+            }
+            this.registry = registry;
+            this.results = shared;
+            this.canonicalTypes = null;
+            this.reachabilityIndex = null;
+            // 共用的检索结果可能已由其他检索者检索，不再经过目标类，需提前绑定
+            if (targetElement == null) {
+                targetElement = registry.typeElement(canonicalName());
+            }
+        }
+
+        /**
+         * 单次编译内共用的注册表，未附加时为null
+         */
+        public RetrievalRegistry registry() {
+            return registry;
+        }
+
+        /**
+         * 附加依赖库类型缓存作用域，传入null则关闭缓存
+         *
+         * @param libraryScope 依赖库类型缓存作用域
+         */
+        public void attachLibraryScope(LibraryTypeScope libraryScope) {
+            this.libraryScope = libraryScope;
+            if (libraryScope != null && targetElement == null) {
+                targetElement = libraryScope.getElements().getTypeElement(canonicalName());
+            }
+        }
+
+        /**
+         * 依赖库类型缓存作用域，未开启时为null
+         */
+        public LibraryTypeScope libraryScope() {
+            return libraryScope;
+        }
+
+        /**
+         * 附加检索路径追踪者，传入null则关闭追踪
+         *
+         * @param tracer 检索路径追踪者
+         */
+        public void attachTracer(RetrievalTracer tracer) {
+            this.tracer = tracer;
+        }
+
+        /**
+         * 检索路径追踪者，未开启时为null
+         */
+        public RetrievalTracer tracer() {
+            return tracer;
+        }
+
+        /**
+         * 是否是目标类元素
+         *
+         * @param element 元素
+         * @return 是否是目标类
+         */
+        public boolean isTargetElement(Element element) {
+            if (!(element instanceof TypeElement)) {
+                return false;
+            }
+
+            if (targetElement != null) {
+                return targetElement == element;
+            }
+
+            if (((TypeElement) element).getQualifiedName().contentEquals(canonicalName())) {
+                targetElement = (TypeElement) element;
+                return true;
+            }
+            return false;
         }
     }
 }
@@ -0,0 +1,179 @@
+package org.sheedon.compilationtool.retrieval.core;
+
+import org.sheedon.compilationtool.retrieval.library.ClassSignature;
+import org.sheedon.compilationtool.retrieval.library.GenericSignature;
+import org.sheedon.compilationtool.retrieval.library.LibraryTypeScope;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * 可达性索引，在完整检索前判断类型是否可能检索到目标类：
+ * 以擦除后的目标类型执行一次 Types.isSubtype，结果按类型元素缓存。
+ * <p>
+ * 只用于排除，不是子类型必然检索不到目标类；是子类型仍需完整检索，
+ * 因为检索路径可能经过过滤包，或「泛型类」检索不沿接口查找。
+ * 继承结构中有尚未生成的类型（ERROR）时无法判断，视为可能检索到，交由完整检索加入延迟检索队列。
+ * <p>
+ * 依赖库（jar 或 JDK 模块）中的类型不调用 Types.isSubtype，否则 javac 会补全整条父类链、读取每个 class 文件，
+ * 而 Signature 检索正是为了跳过这一步；改为按 class 文件中记录的父类、接口名判断，
+ * 无法读取 class 文件时视为可能检索到。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/13 9:30 上午
+ */
+public class ReachabilityIndex {
+
+    private final Types types;
+    private final TypeElement targetElement;
+    // 擦除后的目标类型
+    private final TypeMirror erasedTarget;
+    // 目标类二进制名，首次判断依赖库类型时加载
+    private String targetBinaryName;
+    // 依赖库类型二进制名 - 是否为目标类的子类型
+    private final Map<String, Boolean> libraryReachableMap = new HashMap<>();
+    // 类型元素 - 是否为目标类的子类型
+    private final Map<TypeElement, Boolean> reachableMap = new HashMap<>();
+    // 类型元素 - 继承结构中是否有尚未生成的类型
+    private final Map<TypeElement, Boolean> erroneousMap = new HashMap<>();
+
+    public ReachabilityIndex(TypeElement targetElement, Types types) {
+        this.types = types;
+        this.targetElement = targetElement;
+        this.erasedTarget = types.erasure(targetElement.asType());
+    }
+
+    /**
+     * 是否可能检索到目标类
+     *
+     * @param element 类型元素
+     * @return false 代表不是目标类的子类型，无需检索
+     */
+    public boolean isReachable(TypeElement element) {
+        return isReachable(element, null);
+    }
+
+    /**
+     * 是否可能检索到目标类，依赖库中的类型按 class 文件判断
+     *
+     * @param element      类型元素
+     * @param libraryScope 依赖库缓存作用域，为null时均由 Types.isSubtype 判断
+     * @return false 代表不是目标类的子类型，无需检索
+     */
+    public boolean isReachable(TypeElement element, LibraryTypeScope libraryScope) {
+        Boolean reachable = reachableMap.get(element);
+        if (reachable == null) {
+            reachable = libraryScope != null && libraryScope.entryHash(element) != null
+                    ? loadLibraryReachable(element, libraryScope)
+                    : loadReachable(element);
+            reachableMap.put(element, reachable);
+        }
+        return reachable;
+    }
+
+    private boolean loadLibraryReachable(TypeElement element, LibraryTypeScope libraryScope) {
+        if (targetBinaryName == null) {
+            targetBinaryName = libraryScope.getElements().getBinaryName(targetElement).toString();
+        }
+        String binaryName = libraryScope.getElements().getBinaryName(element).toString();
+        return isLibraryReachable(binaryName, libraryScope, new HashSet<String>());
+    }
+
+    /**
+     * 沿 class 文件中的父类、接口名查找目标类，结果按二进制名缓存
+     */
+    private boolean isLibraryReachable(String binaryName, LibraryTypeScope libraryScope, Set<String> visiting) {
+        if (binaryName.equals(targetBinaryName)) {
+            return true;
+        }
+        Boolean reachable = libraryReachableMap.get(binaryName);
+        if (reachable != null) {
+            return reachable;
+        }
+        if (!visiting.add(binaryName)) {
+            // 循环继承，交由完整检索处理
+            return true;
+        }
+
+        ClassSignature signature = libraryScope.classSignature(binaryName);
+        if (signature == null) {
+            // 无法读取 class 文件，例如父类型尚未生成或在源码中
+            reachable = true;
+        } else {
+            reachable = signature.getSuperclass() != null
+                    && isLibraryReachable(signature.getSuperclass().getName(), libraryScope, visiting);
+            for (GenericSignature mirror : signature.getInterfaces()) {
+                if (reachable) {
+                    break;
+                }
+                reachable = isLibraryReachable(mirror.getName(), libraryScope, visiting);
+            }
+        }
+        visiting.remove(binaryName);
+        libraryReachableMap.put(binaryName, reachable);
+        return reachable;
+    }
+
+    private boolean loadReachable(TypeElement element) {
+        TypeMirror erasure = types.erasure(element.asType());
+        if (erasure.getKind() == TypeKind.ERROR) {
+            return true;
+        }
+        // 父类型尚未生成时无法判断，交由完整检索处理
+        return types.isSubtype(erasure, erasedTarget) || hasErrorSupertype(element);
+    }
+
+    /**
+     * 继承结构中是否有尚未生成的类型，只在不是子类型时判断，结果按类型元素缓存
+     */
+    private boolean hasErrorSupertype(TypeElement element) {
+        Boolean erroneous = erroneousMap.get(element);
+        if (erroneous != null) {
+            return erroneous;
+        }
+        // 先存入，循环继承时不再重复进入
+        erroneousMap.put(element, false);
+
+        erroneous = hasErrorSupertype(element.getSuperclass());
+        for (TypeMirror mirror : element.getInterfaces()) {
+            erroneous = erroneous || hasErrorSupertype(mirror);
+        }
+        erroneousMap.put(element, erroneous);
+        return erroneous;
+    }
+
+    private boolean hasErrorSupertype(TypeMirror mirror) {
+        if (mirror.getKind() == TypeKind.ERROR) {
+            return true;
+        }
+        if (mirror.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        Element element = types.asElement(mirror);
+        return element instanceof TypeElement && hasErrorSupertype((TypeElement) element);
+    }
+
+    /**
+     * 父类型在后续轮次生成后，不再预过滤该类型，交由完整检索判断：
+     * javac 缓存在类型元素上的擦除类型仍指向上一轮的继承结构，Types.isSubtype 的结果不可信
+     *
+     * @param element 类型元素
+     */
+    public void markReachable(TypeElement element) {
+        reachableMap.put(element, true);
+        erroneousMap.remove(element);
+    }
+
+    public int size() {
+        return reachableMap.size();
+    }
+}
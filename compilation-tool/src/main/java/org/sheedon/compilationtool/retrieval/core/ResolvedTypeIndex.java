@@ -0,0 +1,152 @@
+package org.sheedon.compilationtool.retrieval.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * 泛型实际类型的反向索引：目标类泛型 × 实际类型 - 全类名，随检索结果存入增量更新。
+ * <p>
+ * 例如「RequestCard 为 LoginCard 的全部类」「按 ResponseModel 分组」，
+ * 直接取索引中的集合，无需遍历 retrievalClassMap() 再逐个读取泛型记录。
+ * 实际类型按 {@link CanonicalTypeTable} 的 id 分组，查询时传入的类型先换算为 id，按 isSameType 判定相同。
+ * <p>
+ * 只收录完整检索到目标类的记录，未绑定实际类型的泛型不收录；
+ * 只按泛型参数检索（searchSlot）的类型不在索引中。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/16 3:20 下午
+ */
+public class ResolvedTypeIndex {
+
+    private final CanonicalTypeTable canonicalTypes;
+    // 目标类泛型名称
+    private final String[] typeNames;
+    // 目标类泛型名称 - 坐标
+    private final Map<String, Integer> positions = new HashMap<>();
+    // 按目标类泛型坐标：实际类型 id - 全类名
+    private final List<Map<Integer, Set<String>>> groups;
+    // 全类名 - 各泛型实际类型 id，用于替换或移除时撤销
+    private final Map<String, int[]> classIds = new LinkedHashMap<>();
+
+    public ResolvedTypeIndex(TypeElement targetElement, CanonicalTypeTable canonicalTypes) {
+        this.canonicalTypes = canonicalTypes;
+        this.typeNames = new String[targetElement.getTypeParameters().size()];
+        this.groups = new ArrayList<>(typeNames.length);
+        for (int index = 0; index < typeNames.length; index++) {
+            typeNames[index] = TypeVariableKey.of(targetElement, index).getName();
+            positions.put(typeNames[index], index);
+            groups.add(new HashMap<Integer, Set<String>>());
+        }
+    }
+
+    /**
+     * 存入检索结果，已存入的同名类先撤销；未检索到目标类的记录只做撤销
+     *
+     * @param qualifiedName 全类名
+     * @param model         检索记录
+     */
+    public void put(String qualifiedName, RetrievalClassModel model) {
+        remove(qualifiedName);
+        if (model == null || !model.isResolved()) {
+            return;
+        }
+
+        IGenericsRecord record = model.getRecord();
+        int[] ids = new int[typeNames.length];
+        for (int index = 0; index < typeNames.length; index++) {
+            TypeMirror mirror = record.get(typeNames[index]);
+            ids[index] = mirror == null || mirror.getKind() == TypeKind.TYPEVAR ? -1 : canonicalTypes.idOf(mirror);
+            if (ids[index] == -1) {
+                continue;
+            }
+            Set<String> classes = groups.get(index).get(ids[index]);
+            if (classes == null) {
+                classes = new LinkedHashSet<>();
+                groups.get(index).put(ids[index], classes);
+            }
+            classes.add(qualifiedName);
+        }
+        classIds.put(qualifiedName, ids);
+    }
+
+    /**
+     * 移除类的检索结果，例如延迟检索的类型重新检索前
+     *
+     * @param qualifiedName 全类名
+     */
+    public void remove(String qualifiedName) {
+        int[] ids = classIds.remove(qualifiedName);
+        if (ids == null) {
+            return;
+        }
+        for (int index = 0; index < ids.length; index++) {
+            if (ids[index] == -1) {
+                continue;
+            }
+            Set<String> classes = groups.get(index).get(ids[index]);
+            if (classes != null) {
+                classes.remove(qualifiedName);
+                if (classes.isEmpty()) {
+                    groups.get(index).remove(ids[index]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 目标类泛型绑定为指定实际类型的全类名，例如 classesOf("RequestCard", loginCardType)
+     *
+     * @param typeName 目标类泛型名称
+     * @param mirror   实际类型
+     * @return 全类名，按存入顺序；泛型名称不存在或无匹配时返回空集合
+     */
+    public Set<String> classesOf(String typeName, TypeMirror mirror) {
+        Integer position = positions.get(typeName);
+        if (position == null || mirror == null) {
+            return Collections.emptySet();
+        }
+        Set<String> classes = groups.get(position).get(canonicalTypes.idOf(mirror));
+        return classes == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(classes);
+    }
+
+    /**
+     * 按目标类泛型的实际类型分组，例如 groupBy("ResponseModel")
+     *
+     * @param typeName 目标类泛型名称
+     * @return 实际类型（规范实例）- 全类名，按引用比较；泛型名称不存在时返回空 Map
+     */
+    public Map<TypeMirror, Set<String>> groupBy(String typeName) {
+        Integer position = positions.get(typeName);
+        if (position == null) {
+            return Collections.emptyMap();
+        }
+        Map<TypeMirror, Set<String>> result = new IdentityHashMap<>();
+        for (Map.Entry<Integer, Set<String>> entry : groups.get(position).entrySet()) {
+            result.put(canonicalTypes.typeOf(entry.getKey()), Collections.unmodifiableSet(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * 已收录的全类名，按存入顺序
+     */
+    public Set<String> indexedClasses() {
+        return Collections.unmodifiableSet(classIds.keySet());
+    }
+
+    public int size() {
+        return classIds.size();
+    }
+}
@@ -1,7 +1,8 @@
 package org.sheedon.compilationtool.retrieval.core;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import javax.lang.model.type.TypeMirror;
@@ -11,15 +12,18 @@ import javax.lang.model.type.TypeMirror;
  * 例如祖父类 GrandParentsClass，父类 ParentsClass，当前类 CurrentClass。
  * 我们要把 将 CurrentClass 中的 String 和 Integer 与 GrandParentsClass 中的 泛型F，T 关联
  * <p>
- * 第一步 将 GrandParentsClass中的F,T 和 ParentsClass 中GrandParentsClass的A,C关联
- * 这就是 recordType 方法，存入到 compareTable
+ * 每个类的 bindPositions 记录其泛型坐标直接关联的目标类泛型（相当于路径压缩后的并查集）：
  * <p>
- * 第二步 将 ParentsClass<A,B,C> 和 GrandParentsClass<A,C>关联
- * 这就是通过位置匹配，将同种泛型类型名称的记录坐标，存入bindPositions中，存入的是compareTable关联的父级泛型
+ * 第一步 ParentsClass<A,B,C> extends GrandParentsClass<A,C>，形式父类即目标类，
+ * A（坐标 0）直接关联 F，C（坐标 2）直接关联 T
  * <p>
- * 第三步 在 CurrentClass 中的 ParentsClass 进行位置匹配，就能拿到对应位置的祖父级泛型类型，完成 泛型——实体类型 关联
+ * 第二步 中间层级 MiddleClass<X> extends ParentsClass<X,Double,Integer>，形式父类第 0 个坐标为 X，
+ * 读取父类坐标 0 关联的 F，X（坐标 0）直接关联 F，见 {@link #composePosition(TypeVariableKey, RetrievalClassModel, int)}
  * <p>
- * 如果层级不止这些，那也是循环执行当前流程
+ * 第三步 CurrentClass extends ParentsClass<String,Double,Integer>，形式父类上为实际类型的坐标，
+ * 按父类该坐标关联的目标类泛型存入泛型记录：F = String，T = Integer，完成 泛型——实体类型 关联
+ * <p>
+ * 层级更多时逐层执行第二步，任一类的泛型对应目标类的哪个泛型都只需一次数组访问，见 {@link #getTargetIndex(int)}
  * <code>
  * class GrandParentsClass<F,T>{
  * }
@@ -39,14 +43,32 @@ import javax.lang.model.type.TypeMirror;
  */
 public abstract class RetrievalClassModel {
 
+    /**
+     * 检索状态，检索记录在检索前即存入记录 Map，只有 RESOLVED 的记录可被其他节点复用
+     */
+    public enum State {
+        // 尚未检索
+        UNVISITED,
+        // 检索中，其他路径到达时不可使用
+        IN_PROGRESS,
+        // 已检索到目标类
+        RESOLVED,
+        // 检索不到目标类
+        UNREACHABLE,
+        // 继承结构中的类型尚未生成，等待后续轮次重新检索，见 DeferredResolution
+        DEFERRED
+    }
+
+    private static final TypeVariableKey[] EMPTY_POSITIONS = new TypeVariableKey[0];
+
     // 请求路由泛型记录
     private IGenericsRecord record;
-    // 泛型对照类，当前类与父类
-    private final Map<String, String> compareTable = new HashMap<>();
-    // 泛型对照表的key 关联当前泛型集合的位置
-    private final Map<Integer, String> bindPositions = new HashMap<>();
-    // 默认前缀，防止与目标类名字重复，导致填充问题
-    public final static String PREFIX = "TYPE-";
+    // 检索状态
+    private State state = State.UNVISITED;
+    // 当前类泛型坐标 - 直接关联的目标类泛型，未关联为null
+    private TypeVariableKey[] bindPositions = EMPTY_POSITIONS;
+    // 规范实例的结构键，非null代表已冻结，由 RetrievalModelInterner 持有弱引用
+    private Object internKey;
 
     public RetrievalClassModel() {
     }
@@ -54,28 +76,17 @@ public abstract class RetrievalClassModel {
     /**
      * 添加泛型记录
      *
-     * @param typeName   参数类型名称
+     * @param targetKey  目标类泛型参数
      * @param typeMirror 实际参数类型
      */
-    public void addGenericsRecord(String typeName, TypeMirror typeMirror) {
-        if (typeName.startsWith(PREFIX)) {
-            typeName = typeName.replaceFirst(PREFIX, "");
+    public void addGenericsRecord(TypeVariableKey targetKey, TypeMirror typeMirror) {
+        checkMutable();
+        if (targetKey != null) {
             IGenericsRecord record = getRecord();
-            record.put(typeName, typeMirror);
+            record.put(targetKey.getName(), canonical(typeMirror));
         }
     }
 
-    /**
-     * 添加目标泛型记录
-     *
-     * @param typeName 参数类型名称
-     * @param mirror   实际参数类型
-     */
-    public void addTargetGenericsRecord(String typeName, TypeMirror mirror) {
-        IGenericsRecord record = getRecord();
-        record.put(typeName, mirror);
-    }
-
     /**
      * 获取泛型记录
      */
@@ -93,37 +104,47 @@ public abstract class RetrievalClassModel {
     protected abstract IGenericsRecord createGenericsRecord();
 
     /**
-     * 泛型对照表，
-     * class CurrentClass<T> extends SuperClass<T>{
-     * <p>
-     * }
-     * <p>
-     * class SuperClass<K>{
-     * <p>
-     * }
-     * <p>
-     * 匹配 T 和 K
+     * 存入泛型记录前的类型规范化，默认不处理，
+     * 检索类中替换为 {@link CanonicalTypeTable} 中的规范实例
      *
-     * @param currentTypeName 当前泛型类型名称
-     * @param superTypeName   父类泛型名称
+     * @param mirror 实际参数类型
+     * @return 存入记录的类型
      */
-    public void recordType(String currentTypeName, String superTypeName) {
-        compareTable.put(currentTypeName, superTypeName);
+    protected TypeMirror canonical(TypeMirror mirror) {
+        return mirror;
     }
 
+    /**
+     * 直接绑定坐标所关联的目标类泛型类型
+     *
+     * @param index     当前类的泛型坐标
+     * @param targetKey 目标类泛型类型
+     */
+    public void bindPosition(int index, TypeVariableKey targetKey) {
+        checkMutable();
+        if (targetKey == null || index < 0) {
+            return;
+        }
+        if (index >= bindPositions.length) {
+            bindPositions = Arrays.copyOf(bindPositions, index + 1);
+        }
+        bindPositions[index] = targetKey;
+    }
 
     /**
-     * 泛型类型绑定坐标
+     * 「同类-层级关联」+「继承类-坐标关联」一次完成：
+     * 父类/接口的各坐标已直接关联到目标类泛型，形式父类上该坐标的实际类型为当前类的泛型时，
+     * 当前类泛型直接关联到同一个目标类泛型
      *
-     * @param typeName 泛型类型
-     * @param index    坐标
+     * @param currentKey 形式父类上该坐标的实际类型，即当前类的泛型
+     * @param superModel 父类/接口的检索记录
+     * @param position   父类/接口的泛型坐标
      */
-    public void bindPosition(String typeName, int index) {
-        String superTypeName = compareTable.get(typeName);
-        if (superTypeName == null) {
+    public void composePosition(TypeVariableKey currentKey, RetrievalClassModel superModel, int position) {
+        if (currentKey == null || superModel == null) {
             return;
         }
-        bindPositions.put(index, superTypeName);
+        bindPosition(currentKey.getIndex(), superModel.getTargetKeyByPosition(position));
     }
 
     /**
@@ -140,32 +161,189 @@ public abstract class RetrievalClassModel {
      * @param record 泛型记录
      */
     public void bindGenericsRecord(IGenericsRecord record) {
+        checkMutable();
         this.record = record;
     }
 
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 开始检索
+     */
+    public void markInProgress() {
+        checkMutable();
+        state = State.IN_PROGRESS;
+    }
+
+    /**
+     * 检索结束，根据结果标记为 RESOLVED 或 UNREACHABLE
+     *
+     * @param reachable 是否检索到目标类
+     */
+    public void markResolved(boolean reachable) {
+        checkMutable();
+        state = reachable ? State.RESOLVED : State.UNREACHABLE;
+    }
+
+    /**
+     * 继承结构中的类型尚未生成，检索暂缓
+     */
+    public void markDeferred() {
+        checkMutable();
+        state = State.DEFERRED;
+    }
+
+    /**
+     * 是否已检索到目标类，可被其他节点复用
+     */
+    public boolean isResolved() {
+        return state == State.RESOLVED;
+    }
+
+    /**
+     * 按结构复制为已冻结的规范实例：泛型记录复制后以只读视图保存，复制坐标关联
+     *
+     * @param target    新建的检索记录
+     * @param internKey 结构键
+     * @return target
+     */
+    RetrievalClassModel copyFrozenTo(RetrievalClassModel target, Object internKey) {
+        target.record = FrozenGenericsRecord.of(getRecord());
+        target.state = state;
+        target.bindPositions = bindPositions.clone();
+        target.internKey = internKey;
+        return target;
+    }
+
     /**
-     * 获取坐标集合
+     * 是否为已冻结的规范实例，由多个类共用，不可修改
+     */
+    public boolean isFrozen() {
+        return internKey != null;
+    }
+
+    private void checkMutable() {
+        if (internKey != null) {
+            throw new IllegalStateException("interned RetrievalClassModel is immutable");
+        }
+    }
+
+    /**
+     * 获取坐标集合，按坐标升序
      */
     public Set<Integer> getPositions() {
-        return bindPositions.keySet();
+        Set<Integer> positions = new LinkedHashSet<>();
+        for (int index = 0; index < bindPositions.length; index++) {
+            if (bindPositions[index] != null) {
+                positions.add(index);
+            }
+        }
+        return Collections.unmodifiableSet(positions);
     }
 
     /**
-     * 根据坐标获取类型名称
+     * 坐标数组长度，大于已关联的最大坐标，按坐标遍历时使用，避免创建坐标集合
+     */
+    public int getPositionCount() {
+        return bindPositions.length;
+    }
+
+    /**
+     * 根据坐标获取所关联的目标类泛型类型
      *
      * @param position 坐标
-     * @return 类型名称
+     * @return 目标类泛型类型，未关联时返回null
+     */
+    public TypeVariableKey getTargetKeyByPosition(int position) {
+        return position < 0 || position >= bindPositions.length ? null : bindPositions[position];
+    }
+
+    /**
+     * 当前类泛型所关联的目标类泛型坐标
+     *
+     * @param position 当前类泛型坐标
+     * @return 目标类泛型坐标，未关联时返回-1
+     */
+    public int getTargetIndex(int position) {
+        TypeVariableKey targetKey = getTargetKeyByPosition(position);
+        return targetKey == null ? -1 : targetKey.getIndex();
+    }
+
+    /**
+     * 关联到指定目标类泛型的当前类泛型坐标
+     *
+     * @param targetIndex 目标类泛型坐标
+     * @return 当前类泛型坐标，多个时返回最小的，不存在时返回-1
      */
-    public String getTypeNameByPosition(int position) {
-        return bindPositions.get(position);
+    public int getPositionByTargetIndex(int targetIndex) {
+        for (int index = 0; index < bindPositions.length; index++) {
+            if (bindPositions[index] != null && bindPositions[index].getIndex() == targetIndex) {
+                return index;
+            }
+        }
+        return -1;
     }
 
     @Override
     public String toString() {
         return "RetrievalClassModel{" +
-                "record=" + record +
-                ", compareTable=" + compareTable +
-                ", bindPositions=" + bindPositions +
+                "state=" + state +
+                ", record=" + record +
+                ", bindPositions=" + Arrays.toString(bindPositions) +
                 '}';
     }
+
+    /**
+     * 规范实例的只读泛型记录：写入时抛出 UnsupportedOperationException，
+     * 复制时返回可修改的副本，供子类在其基础上填充
+     */
+    private static final class FrozenGenericsRecord implements IGenericsRecord {
+
+        private final IGenericsRecord record;
+
+        private FrozenGenericsRecord(IGenericsRecord record) {
+            this.record = record;
+        }
+
+        /**
+         * 复制后包装，原记录可能仍被其他未冻结的检索记录共用
+         */
+        static IGenericsRecord of(IGenericsRecord record) {
+            if (record instanceof FrozenGenericsRecord) {
+                return record;
+            }
+            try {
+                return new FrozenGenericsRecord(record.clone());
+            } catch (CloneNotSupportedException e) {
+                return new FrozenGenericsRecord(record);
+            }
+        }
+
+        @Override
+        public void put(String typeName, TypeMirror typeMirror) {
+            throw new UnsupportedOperationException("generics record of an interned RetrievalClassModel is immutable");
+        }
+
+        @Override
+        public TypeMirror get(String typeName) {
+            return record.get(typeName);
+        }
+
+        @Override
+        public boolean isCompeted() {
+            return record.isCompeted();
+        }
+
+        @Override
+        public IGenericsRecord clone() throws CloneNotSupportedException {
+            return record.clone();
+        }
+
+        @Override
+        public String toString() {
+            return record.toString();
+        }
+    }
 }
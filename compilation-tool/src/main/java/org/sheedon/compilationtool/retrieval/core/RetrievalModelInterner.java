@@ -0,0 +1,162 @@
+package org.sheedon.compilationtool.retrieval.core;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * 检索记录的弱引用规范表：结构相同的已检索记录（泛型记录中的实际类型、坐标关联均相同）共用同一个冻结实例。
+ * <p>
+ * 例如公共父类的众多直接子类传入相同的泛型实际类型时，每个子类都会得到内容相同的记录和 Map，
+ * 存入规范实例后 retrievalClassMap() 中只保留一份；检索不到目标类的记录全部共用一个实例。
+ * 实际类型已由 {@link CanonicalTypeTable} 规范化，按引用比较；
+ * 泛型对照表只在检索过程中使用且与当前类相关，规范实例中不保留。
+ * <p>
+ * 规范实例不再被任何记录 Map 引用后，连同表项一起回收。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/16 10:10 上午
+ */
+public class RetrievalModelInterner {
+
+    private final TypeElement targetElement;
+    // 目标类泛型名称
+    private final String[] typeNames;
+    // 结构键 - 规范实例，键由规范实例强引用
+    private final Map<Shape, WeakReference<RetrievalClassModel>> table = new WeakHashMap<>();
+    // 检索不到目标类的规范实例
+    private RetrievalClassModel unreachable;
+
+    public RetrievalModelInterner(TypeElement targetElement) {
+        this.targetElement = targetElement;
+        this.typeNames = new String[targetElement.getTypeParameters().size()];
+        for (int index = 0; index < typeNames.length; index++) {
+            typeNames[index] = TypeVariableKey.of(targetElement, index).getName();
+        }
+    }
+
+    /**
+     * 获取结构相同的规范实例，不存在时以 model 的结构新建；
+     * 只处理已检索到目标类和检索不到目标类的记录，其他记录原样返回
+     *
+     * @param model   已检索的记录
+     * @param factory 新建检索记录，规范实例需与 model 使用同一种泛型记录
+     * @return 规范实例
+     */
+    public RetrievalClassModel intern(RetrievalClassModel model, ModelFactory factory) {
+        if (model == null || model.isFrozen()) {
+            return model;
+        }
+        if (model.getState() == RetrievalClassModel.State.UNREACHABLE) {
+            if (unreachable == null) {
+                unreachable = model.copyFrozenTo(factory.create(), RetrievalClassModel.State.UNREACHABLE);
+            }
+            return unreachable;
+        }
+        if (!model.isResolved()) {
+            return model;
+        }
+        Shape shape = shapeOf(model);
+        if (shape == null) {
+            return model;
+        }
+
+        WeakReference<RetrievalClassModel> reference = table.get(shape);
+        RetrievalClassModel canonical = reference == null ? null : reference.get();
+        if (canonical == null) {
+            canonical = model.copyFrozenTo(factory.create(), shape);
+            table.put(shape, new WeakReference<>(canonical));
+        }
+        return canonical;
+    }
+
+    /**
+     * 存活的规范实例数
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * 结构键，坐标关联到其他类的泛型时返回null，不做规范化
+     */
+    private Shape shapeOf(RetrievalClassModel model) {
+        IGenericsRecord record = model.getRecord();
+        TypeMirror[] mirrors = new TypeMirror[typeNames.length];
+        for (int index = 0; index < typeNames.length; index++) {
+            mirrors[index] = record.get(typeNames[index]);
+        }
+
+        // 当前类泛型坐标，目标类泛型坐标 交替存放，按当前类坐标升序
+        int[] positions = new int[model.getPositionCount() * 2];
+        int count = 0;
+        for (int position = 0; position < model.getPositionCount(); position++) {
+            TypeVariableKey targetKey = model.getTargetKeyByPosition(position);
+            if (targetKey == null) {
+                continue;
+            }
+            if (targetKey.getGenericElement() != targetElement) {
+                return null;
+            }
+            positions[count++] = position;
+            positions[count++] = targetKey.getIndex();
+        }
+        positions = Arrays.copyOf(positions, count);
+        return new Shape(mirrors, positions, record.isCompeted());
+    }
+
+    /**
+     * 新建检索记录，由检索类提供
+     */
+    public interface ModelFactory {
+        RetrievalClassModel create();
+    }
+
+    private static final class Shape {
+
+        private final TypeMirror[] mirrors;
+        private final int[] positions;
+        private final boolean competed;
+        private final int hashCode;
+
+        Shape(TypeMirror[] mirrors, int[] positions, boolean competed) {
+            this.mirrors = mirrors;
+            this.positions = positions;
+            this.competed = competed;
+
+            int hash = Arrays.hashCode(positions) * 31 + (competed ? 1 : 0);
+            for (TypeMirror mirror : mirrors) {
+                hash = hash * 31 + System.identityHashCode(mirror);
+            }
+            this.hashCode = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Shape)) return false;
+            Shape shape = (Shape) o;
+            if (hashCode != shape.hashCode || competed != shape.competed
+                    || !Arrays.equals(positions, shape.positions)
+                    || mirrors.length != shape.mirrors.length) {
+                return false;
+            }
+            for (int index = 0; index < mirrors.length; index++) {
+                if (mirrors[index] != shape.mirrors[index]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
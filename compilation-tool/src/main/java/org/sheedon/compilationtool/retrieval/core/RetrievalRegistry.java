@@ -0,0 +1,157 @@
+package org.sheedon.compilationtool.retrieval.core;
+
+import org.sheedon.compilationtool.builder.AnnotationLookup;
+import org.sheedon.compilationtool.retrieval.library.LibraryTypeScope;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+
+/**
+ * 单次编译内共用的检索注册表：同一次 javac 中的多个处理器各自创建检索者时，
+ * 检索签名相同的检索者共用检索结果，继承结构只遍历一次。
+ * 检索签名不同的检索者（例如同一目标类的类检索与接口检索，或泛型记录不同）各自遍历继承结构，
+ * 只共用与检索方式无关的部分，即下面的 1、2、4、5 项。
+ * <p>
+ * 共用的内容：
+ * 1.已解析类型的规范表 {@link CanonicalTypeTable}。
+ * 2.按目标类的可达性索引 {@link ReachabilityIndex}（类型 - 是否为目标类的子类型），与检索方式无关。
+ * 3.按检索签名（检索方式 + 目标类 + 过滤包 + 泛型记录）的检索结果：检索记录、按泛型参数检索的记录、延迟检索队列等。
+ * 4.依赖库类型缓存作用域 {@link LibraryTypeScope}，class 文件及发布的索引只读取一次。
+ * 5.沿继承结构的注解查询 {@link AnnotationLookup}。
+ * <p>
+ * 按 ProcessingEnvironment 中的 Types 实例区分编译，构建工具为每个处理器包装 ProcessingEnvironment 时同样共用。
+ * 注册表由处理器持有，处理器随编译结束释放后，注册表随之回收。
+ * 在首次检索前附加，例如：
+ * <pre>
+ * mRetrieval = new ClassGenericsRetrieval(mTest);
+ * mRetrieval.attachRegistry(RetrievalRegistry.of(processingEnv));
+ * </pre>
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/16 5:00 下午
+ */
+public final class RetrievalRegistry {
+
+    // Types - 注册表，注册表只由处理器强引用
+    private static final Map<Types, WeakReference<RetrievalRegistry>> REGISTRIES = new WeakHashMap<>();
+
+    private final ProcessingEnvironment processingEnv;
+    private final CanonicalTypeTable canonicalTypes;
+    // 目标类 - 可达性索引
+    private final Map<TypeElement, ReachabilityIndex> reachabilityIndexes = new HashMap<>();
+    // 检索签名 - 检索结果
+    private final Map<String, RetrievalResults> resultsMap = new HashMap<>();
+    // 依赖库类型缓存作用域，未开启时为null
+    private LibraryTypeScope libraryScope;
+    private boolean libraryScopeLoaded;
+    // 沿继承结构的注解查询，首次使用时创建
+    private AnnotationLookup annotationLookup;
+
+    private RetrievalRegistry(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+        this.canonicalTypes = new CanonicalTypeTable(processingEnv.getTypeUtils());
+    }
+
+    /**
+     * 获取当前编译的注册表，不存在时创建
+     *
+     * @param processingEnv 处理环境
+     * @return RetrievalRegistry
+     */
+    public static RetrievalRegistry of(ProcessingEnvironment processingEnv) {
+        Types types = processingEnv.getTypeUtils();
+        synchronized (REGISTRIES) {
+            WeakReference<RetrievalRegistry> reference = REGISTRIES.get(types);
+            RetrievalRegistry registry = reference == null ? null : reference.get();
+            if (registry == null) {
+                registry = new RetrievalRegistry(processingEnv);
+                REGISTRIES.put(types, new WeakReference<>(registry));
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * 已解析类型的规范表
+     */
+    public CanonicalTypeTable canonicalTypes() {
+        return canonicalTypes;
+    }
+
+    /**
+     * 目标类的可达性索引，不存在时创建
+     *
+     * @param targetElement 目标类元素
+     * @return ReachabilityIndex，目标类为null时返回null
+     */
+    public ReachabilityIndex reachabilityIndex(TypeElement targetElement) {
+        if (targetElement == null) {
+            return null;
+        }
+        ReachabilityIndex reachabilityIndex = reachabilityIndexes.get(targetElement);
+        if (reachabilityIndex == null) {
+            reachabilityIndex = new ReachabilityIndex(targetElement, processingEnv.getTypeUtils());
+            reachabilityIndexes.put(targetElement, reachabilityIndex);
+        }
+        return reachabilityIndex;
+    }
+
+    /**
+     * 依赖库类型缓存作用域，按处理器参数创建一次，未开启时返回null，
+     * 见 {@link LibraryTypeScope#fromOptions(ProcessingEnvironment)}
+     */
+    public LibraryTypeScope libraryScope() {
+        if (!libraryScopeLoaded) {
+            libraryScope = LibraryTypeScope.fromOptions(processingEnv);
+            libraryScopeLoaded = true;
+        }
+        return libraryScope;
+    }
+
+    /**
+     * 沿继承结构的注解查询，同一编译中的处理器共用缓存
+     */
+    public AnnotationLookup annotationLookup() {
+        if (annotationLookup == null) {
+            annotationLookup = new AnnotationLookup();
+        }
+        return annotationLookup;
+    }
+
+    /**
+     * 根据全类名获取类型元素，不存在时返回null
+     *
+     * @param canonicalName 全类名
+     */
+    TypeElement typeElement(String canonicalName) {
+        return processingEnv.getElementUtils().getTypeElement(canonicalName);
+    }
+
+    /**
+     * 检索签名对应的检索结果，不存在时创建；只按完整签名共用，不同签名之间不复用检索记录
+     *
+     * @param signature 检索签名
+     */
+    RetrievalResults results(String signature) {
+        RetrievalResults results = resultsMap.get(signature);
+        if (results == null) {
+            results = new RetrievalResults();
+            resultsMap.put(signature, results);
+        }
+        return results;
+    }
+
+    /**
+     * 共用检索结果的检索签名数
+     */
+    public int size() {
+        return resultsMap.size();
+    }
+}
@@ -0,0 +1,62 @@
+package org.sheedon.compilationtool.retrieval.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.lang.model.element.TypeElement;
+
+/**
+ * 一种检索签名（检索方式 + 目标类 + 过滤包 + 泛型记录）的检索结果，
+ * 默认由检索者独占，附加 {@link RetrievalRegistry} 后由同一编译中签名相同的检索者共用。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/16 5:10 下午
+ */
+final class RetrievalResults {
+
+    // 全类名 - 检索记录
+    final Map<String, RetrievalClassModel> classMap = new HashMap<>();
+    // 按泛型参数检索的记录，全类名 - 目标类各泛型的检索结果
+    final Map<String, GenericsSlot[]> slotMap = new HashMap<>();
+    // 等待后续轮次生成类型的延迟检索队列
+    final DeferredResolution deferredResolution = new DeferredResolution();
+    // 检索记录的规范表及其目标类
+    private RetrievalModelInterner modelInterner;
+    private TypeElement internerTarget;
+    // 泛型实际类型的反向索引及其目标类
+    private ResolvedTypeIndex resolvedTypeIndex;
+    private TypeElement indexTarget;
+
+    /**
+     * 检索记录的规范表，目标类变化时重新创建，目标类未绑定时返回null
+     */
+    RetrievalModelInterner modelInterner(TypeElement targetElement) {
+        if (targetElement == null) {
+            return null;
+        }
+        if (modelInterner == null || internerTarget != targetElement) {
+            modelInterner = new RetrievalModelInterner(targetElement);
+            internerTarget = targetElement;
+        }
+        return modelInterner;
+    }
+
+    /**
+     * 泛型实际类型的反向索引，目标类变化时重新创建，目标类未绑定或尚未检索时返回null
+     */
+    ResolvedTypeIndex resolvedTypeIndex(TypeElement targetElement, CanonicalTypeTable canonicalTypes) {
+        if (targetElement == null || canonicalTypes == null) {
+            return null;
+        }
+        if (resolvedTypeIndex == null || indexTarget != targetElement) {
+            resolvedTypeIndex = new ResolvedTypeIndex(targetElement, canonicalTypes);
+            indexTarget = targetElement;
+        }
+        return resolvedTypeIndex;
+    }
+
+    boolean isEmpty() {
+        return classMap.isEmpty() && slotMap.isEmpty() && deferredResolution.isEmpty();
+    }
+}
@@ -0,0 +1,112 @@
+package org.sheedon.compilationtool.retrieval.core;
+
+import java.util.List;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Parameterizable;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+
+/**
+ * 泛型类型变量的定位键，由「声明元素」+「泛型参数坐标」组成
+ * 例如 class ParentClass<K,Model> 中的 Model，记为 (ParentClass, 1)
+ * <p>
+ * 声明元素按引用比较，不依赖 TypeMirror.toString()，
+ * 因此不同类中同名的泛型类型，或与目标类泛型同名的类型，不会再相互冲突。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/8 3:12 下午
+ */
+public final class TypeVariableKey {
+
+    // 声明泛型的元素（类、接口或方法）
+    private final Element genericElement;
+    // 泛型参数所在坐标
+    private final int index;
+    // 泛型参数名称，仅在需要时加载
+    private String name;
+
+    private TypeVariableKey(Element genericElement, int index) {
+        this.genericElement = genericElement;
+        this.index = index;
+    }
+
+    /**
+     * 根据声明元素和坐标创建定位键
+     *
+     * @param genericElement 声明泛型的元素
+     * @param index          泛型参数坐标
+     * @return TypeVariableKey
+     */
+    public static TypeVariableKey of(Element genericElement, int index) {
+        return new TypeVariableKey(genericElement, index);
+    }
+
+    /**
+     * 根据类型变量创建定位键，非类型变量返回null
+     *
+     * @param mirror 类型
+     * @return TypeVariableKey
+     */
+    public static TypeVariableKey of(TypeMirror mirror) {
+        if (mirror == null || mirror.getKind() != TypeKind.TYPEVAR) {
+            return null;
+        }
+
+        Element element = ((TypeVariable) mirror).asElement();
+        if (!(element instanceof TypeParameterElement)) {
+            return null;
+        }
+
+        Element genericElement = ((TypeParameterElement) element).getGenericElement();
+        if (!(genericElement instanceof Parameterizable)) {
+            return null;
+        }
+
+        int index = ((Parameterizable) genericElement).getTypeParameters().indexOf(element);
+        if (index == -1) {
+            return null;
+        }
+        return new TypeVariableKey(genericElement, index);
+    }
+
+    public Element getGenericElement() {
+        return genericElement;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * 泛型参数名称，例如 TargetClass<RequestCard, ResponseModel> 中坐标1的名称为 ResponseModel
+     */
+    public String getName() {
+        if (name == null) {
+            List<? extends TypeParameterElement> parameters = ((Parameterizable) genericElement).getTypeParameters();
+            name = parameters.get(index).getSimpleName().toString();
+        }
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TypeVariableKey)) return false;
+        TypeVariableKey that = (TypeVariableKey) o;
+        return index == that.index && genericElement == that.genericElement;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(genericElement) + index;
+    }
+
+    @Override
+    public String toString() {
+        return genericElement.getSimpleName() + "#" + index;
+    }
+}
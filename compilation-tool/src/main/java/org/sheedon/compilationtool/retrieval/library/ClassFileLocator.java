@@ -0,0 +1,21 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.net.URI;
+
+/**
+ * 按二进制名定位 class 文件
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/12 4:05 下午
+ */
+public interface ClassFileLocator {
+
+    /**
+     * 定位 class 文件
+     *
+     * @param binaryName 二进制名，例如 a.b.Outer$Inner
+     * @return class 文件位置，不存在时返回null
+     */
+    URI locate(String binaryName);
+}
@@ -0,0 +1,71 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按 URI 读取 class 文件内容：
+ * jar:file:/lib.jar!/a/b/C.class 通过内存映射的 {@link JarIndex} 读取；
+ * jrt:/ 与 file:/ 通过 NIO 读取。
+ * <p>
+ * jar 的索引只在当前读取者中缓存，随单次编译释放，不跨编译持有文件映射。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/12 2:40 下午
+ */
+public class ClassFileReader {
+
+    // jar 路径 - 条目索引，不支持的 jar 存入null
+    private final Map<String, JarIndex> jarIndexes = new HashMap<>();
+
+    /**
+     * 读取 class 文件
+     *
+     * @param uri class 文件位置
+     * @return 文件内容，读取失败返回null
+     */
+    public byte[] read(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+
+        try {
+            if ("jar".equals(uri.getScheme())) {
+                return readJarEntry(uri.toString());
+            }
+            Path path = Paths.get(uri);
+            return Files.readAllBytes(path);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private byte[] readJarEntry(String value) throws IOException {
+        int index = value.indexOf("!/");
+        if (index == -1) {
+            return null;
+        }
+
+        String jarPath = value.substring("jar:".length(), index);
+        JarIndex jarIndex;
+        if (jarIndexes.containsKey(jarPath)) {
+            jarIndex = jarIndexes.get(jarPath);
+        } else {
+            jarIndex = JarIndex.open(new File(URI.create(jarPath)));
+            jarIndexes.put(jarPath, jarIndex);
+        }
+
+        if (jarIndex == null) {
+            Path path = Paths.get(URI.create(value));
+            return Files.readAllBytes(path);
+        }
+        return jarIndex.read(value.substring(index + 2));
+    }
+}
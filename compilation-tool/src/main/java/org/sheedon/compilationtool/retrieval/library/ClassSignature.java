@@ -0,0 +1,267 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 从 class 文件中读取的类声明：泛型变量、父类和接口。
+ * 只解析常量池、类头和类属性中的 Signature、InnerClasses，跳过字段与方法，
+ * 不需要 javac 对该类型执行符号补全。
+ * <p>
+ * 二进制名中的 $ 不一定是内部类分隔符（例如生成的 Foo$$Router），
+ * 由 InnerClasses 属性记录的外部类和简单类名换算全类名，见 {@link #qualifiedName(String)}。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/12 3:40 下午
+ */
+public final class ClassSignature {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final String SIGNATURE = "Signature";
+    private static final String INNER_CLASSES = "InnerClasses";
+
+    // 二进制名
+    private final String binaryName;
+    private final int accessFlags;
+    // 泛型变量名
+    private final List<String> typeParameters;
+    // 父类，java.lang.Object 及接口的父类为 java.lang.Object，模块信息等为null
+    private final GenericSignature superclass;
+    private final List<GenericSignature> interfaces;
+    // 内部类二进制名 - {外部类二进制名, 简单类名}，来自 InnerClasses 属性
+    private final Map<String, String[]> innerClasses;
+    // 是否为顶层类，InnerClasses 属性中记录了自身的为成员类、匿名类或局部类
+    private final boolean topLevel;
+
+    private ClassSignature(String binaryName, int accessFlags, List<String> typeParameters,
+                           GenericSignature superclass, List<GenericSignature> interfaces,
+                           Map<String, String[]> innerClasses, boolean topLevel) {
+        this.binaryName = binaryName;
+        this.accessFlags = accessFlags;
+        this.typeParameters = typeParameters;
+        this.superclass = superclass;
+        this.interfaces = interfaces;
+        this.innerClasses = innerClasses;
+        this.topLevel = topLevel;
+    }
+
+    /**
+     * 解析 class 文件
+     *
+     * @param bytes class 文件内容
+     * @return ClassSignature，格式错误时返回null
+     */
+    public static ClassSignature read(byte[] bytes) {
+        try {
+            return read(ByteBuffer.wrap(bytes), bytes);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private static ClassSignature read(ByteBuffer buffer, byte[] bytes) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            return null;
+        }
+        // minor_version, major_version
+        buffer.position(buffer.position() + 4);
+
+        int count = buffer.getShort() & 0xFFFF;
+        String[] utf8 = new String[count];
+        int[] classes = new int[count];
+        for (int index = 1; index < count; index++) {
+            int tag = buffer.get() & 0xFF;
+            switch (tag) {
+                case 1: // Utf8
+                    int length = buffer.getShort() & 0xFFFF;
+                    utf8[index] = new DataInputStream(
+                            new ByteArrayInputStream(bytes, buffer.position() - 2, length + 2)).readUTF();
+                    buffer.position(buffer.position() + length);
+                    break;
+                case 7: // Class
+                    classes[index] = buffer.getShort() & 0xFFFF;
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    buffer.position(buffer.position() + 2);
+                    break;
+                case 15: // MethodHandle
+                    buffer.position(buffer.position() + 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    buffer.position(buffer.position() + 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    buffer.position(buffer.position() + 8);
+                    index++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("bad constant pool tag " + tag);
+            }
+        }
+
+        int accessFlags = buffer.getShort() & 0xFFFF;
+        String binaryName = className(utf8, classes, buffer.getShort() & 0xFFFF);
+        String superName = className(utf8, classes, buffer.getShort() & 0xFFFF);
+        int interfaceCount = buffer.getShort() & 0xFFFF;
+        List<String> interfaceNames = new ArrayList<>(interfaceCount);
+        for (int index = 0; index < interfaceCount; index++) {
+            interfaceNames.add(className(utf8, classes, buffer.getShort() & 0xFFFF));
+        }
+
+        // fields, methods
+        skipMembers(buffer);
+        skipMembers(buffer);
+
+        String signature = null;
+        Map<String, String[]> innerClasses = Collections.emptyMap();
+        boolean[] nested = new boolean[1];
+        int attributeCount = buffer.getShort() & 0xFFFF;
+        for (int index = 0; index < attributeCount; index++) {
+            String name = utf8[buffer.getShort() & 0xFFFF];
+            int length = buffer.getInt();
+            if (SIGNATURE.equals(name)) {
+                signature = utf8[buffer.getShort() & 0xFFFF];
+            } else if (INNER_CLASSES.equals(name)) {
+                innerClasses = readInnerClasses(buffer, utf8, classes, binaryName, nested);
+            } else {
+                buffer.position(buffer.position() + length);
+            }
+        }
+
+        if (signature == null) {
+            List<GenericSignature> interfaces = new ArrayList<>(interfaceNames.size());
+            for (String interfaceName : interfaceNames) {
+                interfaces.add(GenericSignature.ofClass(interfaceName));
+            }
+            return new ClassSignature(binaryName, accessFlags, Collections.<String>emptyList(),
+                    superName == null ? null : GenericSignature.ofClass(superName), interfaces, innerClasses, !nested[0]);
+        }
+
+        GenericSignature.Parser parser = new GenericSignature.Parser(signature);
+        List<String> typeParameters = parser.typeParameters();
+        GenericSignature superclass = parser.referenceType();
+        List<GenericSignature> interfaces = new ArrayList<>(interfaceCount);
+        while (parser.hasMore()) {
+            interfaces.add(parser.referenceType());
+        }
+        return new ClassSignature(binaryName, accessFlags, typeParameters, superclass, interfaces, innerClasses, !nested[0]);
+    }
+
+    /**
+     * InnerClasses 属性：成员类的外部类与简单类名，匿名类和局部类不记录；
+     * 属性中出现当前类自身时 nested[0] 置为 true
+     */
+    private static Map<String, String[]> readInnerClasses(ByteBuffer buffer, String[] utf8, int[] classes,
+                                                          String binaryName, boolean[] nested) {
+        int count = buffer.getShort() & 0xFFFF;
+        Map<String, String[]> innerClasses = new HashMap<>();
+        for (int index = 0; index < count; index++) {
+            String innerName = className(utf8, classes, buffer.getShort() & 0xFFFF);
+            String outerName = className(utf8, classes, buffer.getShort() & 0xFFFF);
+            int simpleNameIndex = buffer.getShort() & 0xFFFF;
+            // inner_class_access_flags
+            buffer.position(buffer.position() + 2);
+            if (binaryName.equals(innerName)) {
+                nested[0] = true;
+            }
+            if (innerName != null && outerName != null && simpleNameIndex != 0) {
+                innerClasses.put(innerName, new String[]{outerName, utf8[simpleNameIndex]});
+            }
+        }
+        return innerClasses;
+    }
+
+    private static String className(String[] utf8, int[] classes, int index) {
+        if (index == 0) {
+            return null;
+        }
+        return utf8[classes[index]].replace('/', '.');
+    }
+
+    private static void skipMembers(ByteBuffer buffer) {
+        int count = buffer.getShort() & 0xFFFF;
+        for (int index = 0; index < count; index++) {
+            // access_flags, name_index, descriptor_index
+            buffer.position(buffer.position() + 6);
+            int attributeCount = buffer.getShort() & 0xFFFF;
+            for (int attribute = 0; attribute < attributeCount; attribute++) {
+                buffer.position(buffer.position() + 2);
+                int length = buffer.getInt();
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+
+    public String getBinaryName() {
+        return binaryName;
+    }
+
+    /**
+     * 当前类引用的类型的全类名：InnerClasses 属性中的成员类为「外部类全类名.简单类名」，
+     * 其他类型为顶层类，全类名即二进制名，其中的 $ 保持不变
+     *
+     * @param binaryName 二进制名，例如 a.b.Outer$Inner
+     * @return 全类名，例如 a.b.Outer.Inner
+     */
+    public String qualifiedName(String binaryName) {
+        String[] innerClass = innerClasses.get(binaryName);
+        if (innerClass == null) {
+            return binaryName;
+        }
+        return qualifiedName(innerClass[0]) + "." + innerClass[1];
+    }
+
+    /**
+     * 是否为顶层类，类名中的 $ 不影响判断
+     */
+    public boolean isTopLevel() {
+        return topLevel;
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & ACC_INTERFACE) != 0;
+    }
+
+    public List<String> getTypeParameters() {
+        return typeParameters;
+    }
+
+    public GenericSignature getSuperclass() {
+        return superclass;
+    }
+
+    public List<GenericSignature> getInterfaces() {
+        return interfaces;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassSignature{" +
+                "binaryName='" + binaryName + '\'' +
+                ", typeParameters=" + typeParameters +
+                ", superclass=" + superclass +
+                ", interfaces=" + interfaces +
+                '}';
+    }
+}
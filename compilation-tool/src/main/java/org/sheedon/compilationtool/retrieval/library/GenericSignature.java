@@ -0,0 +1,230 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * class 文件 Signature 属性中的类型，例如 Ljava/util/List&lt;TT;&gt;;
+ * 类名统一为二进制名（a.b.Outer$Inner），仅保留检索泛型所需的信息。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/12 3:10 下午
+ */
+public final class GenericSignature {
+
+    public enum Kind {
+        // 类或接口
+        CLASS,
+        // 泛型变量
+        TYPE_VARIABLE,
+        // 数组
+        ARRAY,
+        // 通配符
+        WILDCARD,
+        // 基本类型
+        PRIMITIVE
+    }
+
+    private final Kind kind;
+    // 类的二进制名 / 泛型变量名 / 基本类型描述符
+    private final String name;
+    // 泛型实际类型，数组为其组件类型，通配符为其边界
+    private final List<GenericSignature> arguments;
+
+    private GenericSignature(Kind kind, String name, List<GenericSignature> arguments) {
+        this.kind = kind;
+        this.name = name;
+        this.arguments = arguments;
+    }
+
+    static GenericSignature ofClass(String binaryName) {
+        return new GenericSignature(Kind.CLASS, binaryName, Collections.<GenericSignature>emptyList());
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<GenericSignature> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * 转换为类型描述，包含泛型变量、通配符、数组等无法描述的类型时返回null
+     *
+     * @param declaring 出现该类型的 class 文件，用于将二进制名换算为全类名
+     */
+    public TypeDescriptor toDescriptor(ClassSignature declaring) {
+        if (kind != Kind.CLASS) {
+            return null;
+        }
+
+        TypeDescriptor[] descriptors = new TypeDescriptor[arguments.size()];
+        for (int index = 0; index < descriptors.length; index++) {
+            descriptors[index] = arguments.get(index).toDescriptor(declaring);
+            if (descriptors[index] == null) {
+                return null;
+            }
+        }
+        return new TypeDescriptor(declaring.qualifiedName(name), descriptors);
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case TYPE_VARIABLE:
+            case PRIMITIVE:
+                return name;
+            case ARRAY:
+                return arguments.get(0) + "[]";
+            case WILDCARD:
+                return arguments.isEmpty() ? "?" : "? " + name + " " + arguments.get(0);
+            default:
+                if (arguments.isEmpty()) {
+                    return name;
+                }
+                StringBuilder builder = new StringBuilder(name).append('<');
+                for (int index = 0; index < arguments.size(); index++) {
+                    if (index > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(arguments.get(index));
+                }
+                return builder.append('>').toString();
+        }
+    }
+
+    /**
+     * 类签名解析：[TypeParameters] SuperclassSignature SuperinterfaceSignature*
+     */
+    static final class Parser {
+
+        private final String value;
+        private int position;
+
+        Parser(String value) {
+            this.value = value;
+        }
+
+        /**
+         * 泛型变量名，泛型边界不参与检索，解析后丢弃
+         */
+        List<String> typeParameters() {
+            if (!accept('<')) {
+                return Collections.emptyList();
+            }
+
+            List<String> parameters = new ArrayList<>();
+            while (!accept('>')) {
+                int colon = value.indexOf(':', position);
+                parameters.add(value.substring(position, colon));
+                position = colon + 1;
+                // 类边界可为空，紧跟接口边界
+                if (peek() != ':') {
+                    referenceType();
+                }
+                while (accept(':')) {
+                    referenceType();
+                }
+            }
+            return parameters;
+        }
+
+        boolean hasMore() {
+            return position < value.length();
+        }
+
+        GenericSignature referenceType() {
+            char c = value.charAt(position);
+            switch (c) {
+                case 'L':
+                    return classType();
+                case 'T':
+                    int end = value.indexOf(';', position);
+                    String name = value.substring(position + 1, end);
+                    position = end + 1;
+                    return new GenericSignature(Kind.TYPE_VARIABLE, name, Collections.<GenericSignature>emptyList());
+                case '[':
+                    position++;
+                    return new GenericSignature(Kind.ARRAY, null, Collections.singletonList(javaType()));
+                default:
+                    throw new IllegalArgumentException("bad signature at " + position + ": " + value);
+            }
+        }
+
+        private GenericSignature javaType() {
+            char c = value.charAt(position);
+            if ("BCDFIJSZ".indexOf(c) != -1) {
+                position++;
+                return new GenericSignature(Kind.PRIMITIVE, String.valueOf(c),
+                        Collections.<GenericSignature>emptyList());
+            }
+            return referenceType();
+        }
+
+        private GenericSignature classType() {
+            position++;
+            StringBuilder name = new StringBuilder();
+            List<GenericSignature> arguments = Collections.emptyList();
+            while (true) {
+                int start = position;
+                while ("<.;".indexOf(value.charAt(position)) == -1) {
+                    position++;
+                }
+                name.append(value, start, position);
+                // 外部类的泛型不参与检索，以内部类的泛型为准
+                arguments = peek() == '<' ? typeArguments() : Collections.<GenericSignature>emptyList();
+                if (!accept('.')) {
+                    break;
+                }
+                name.append('$');
+            }
+            expect(';');
+            return new GenericSignature(Kind.CLASS, name.toString().replace('/', '.'), arguments);
+        }
+
+        private List<GenericSignature> typeArguments() {
+            expect('<');
+            List<GenericSignature> arguments = new ArrayList<>();
+            while (!accept('>')) {
+                char c = value.charAt(position);
+                if (c == '*') {
+                    position++;
+                    arguments.add(new GenericSignature(Kind.WILDCARD, null,
+                            Collections.<GenericSignature>emptyList()));
+                } else if (c == '+' || c == '-') {
+                    position++;
+                    arguments.add(new GenericSignature(Kind.WILDCARD, c == '+' ? "extends" : "super",
+                            Collections.singletonList(referenceType())));
+                } else {
+                    arguments.add(referenceType());
+                }
+            }
+            return arguments;
+        }
+
+        private char peek() {
+            return position < value.length() ? value.charAt(position) : 0;
+        }
+
+        private boolean accept(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw new IllegalArgumentException("expected '" + c + "' at " + position + ": " + value);
+            }
+        }
+    }
+}
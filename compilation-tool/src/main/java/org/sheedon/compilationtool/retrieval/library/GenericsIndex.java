@@ -0,0 +1,295 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 预先计算的泛型检索结果索引：全类名 - {@link LibraryBinding}，对应一个目标类和一种检索方式。
+ * <p>
+ * 二进制格式，类名存入字符串表后以序号引用，类型描述按前序写入：
+ * <pre>
+ * magic "CTGI", version
+ * target, interface, targetParameterCount
+ * stringCount, string*
+ * entryCount, (name, reachable, positionCount, position*, binding*)*
+ * binding := 0 (未绑定) | 1 + 字符串序号, argumentCount, binding*
+ * </pre>
+ * 整数均为变长编码；条目按全类名排序写出，相同输入得到相同文件，适合提交到版本库。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/14 10:20 上午
+ */
+public final class GenericsIndex {
+
+    // 依赖库模块发布索引的目录
+    public static final String RESOURCE_DIRECTORY = "META-INF/compilationtool/";
+
+    private static final int MAGIC = 0x43544749;
+    private static final int VERSION = 1;
+
+    // 目标类全类名
+    private final String target;
+    // 是否为接口检索
+    private final boolean interfaceRetrieval;
+    // 目标类泛型个数
+    private final int targetParameterCount;
+    // 全类名 - 检索结果
+    private final Map<String, LibraryBinding> bindings = new TreeMap<>();
+
+    public GenericsIndex(String target, boolean interfaceRetrieval, int targetParameterCount) {
+        this.target = target;
+        this.interfaceRetrieval = interfaceRetrieval;
+        this.targetParameterCount = targetParameterCount;
+    }
+
+    /**
+     * 发布到模块输出中的资源名，由目标类、检索方式和过滤包决定，
+     * 例如 META-INF/compilationtool/a.b.TargetClass.class.1f3e2a.idx
+     *
+     * @param target             目标类全类名
+     * @param interfaceRetrieval 是否为接口检索
+     * @param filterablePackages 过滤包
+     * @return 资源名
+     */
+    public static String resourceName(String target, boolean interfaceRetrieval,
+                                      Collection<String> filterablePackages) {
+        String packages = new TreeSet<>(filterablePackages).toString();
+        return RESOURCE_DIRECTORY + target + (interfaceRetrieval ? ".interface." : ".class.")
+                + Integer.toHexString(packages.hashCode()) + ".idx";
+    }
+
+    /**
+     * 存入检索结果，binding 为null时不存入
+     *
+     * @param qualifiedName 全类名
+     * @param binding       检索结果
+     */
+    public void put(String qualifiedName, LibraryBinding binding) {
+        if (binding != null) {
+            bindings.put(qualifiedName, binding);
+        }
+    }
+
+    /**
+     * 合并同一目标类、同一检索方式的索引
+     *
+     * @param other 其他索引
+     */
+    public void putAll(GenericsIndex other) {
+        if (!target.equals(other.target) || interfaceRetrieval != other.interfaceRetrieval) {
+            throw new IllegalArgumentException("index of " + other.target + " cannot merge into " + target);
+        }
+        bindings.putAll(other.bindings);
+    }
+
+    /**
+     * 获取检索结果，未记录返回null
+     *
+     * @param qualifiedName 全类名
+     * @return LibraryBinding
+     */
+    public LibraryBinding get(String qualifiedName) {
+        return bindings.get(qualifiedName);
+    }
+
+    public Map<String, LibraryBinding> getBindings() {
+        return Collections.unmodifiableMap(bindings);
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public boolean isInterfaceRetrieval() {
+        return interfaceRetrieval;
+    }
+
+    public int getTargetParameterCount() {
+        return targetParameterCount;
+    }
+
+    public int size() {
+        return bindings.size();
+    }
+
+    /**
+     * 写出索引，不关闭输出流
+     *
+     * @param outputStream 输出流
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        // 字符串表
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        for (Map.Entry<String, LibraryBinding> entry : bindings.entrySet()) {
+            addString(strings, stringIndexes, entry.getKey());
+            LibraryBinding binding = entry.getValue();
+            for (int index = 0; index < binding.getBindingCount(); index++) {
+                addStrings(strings, stringIndexes, binding.getBinding(index));
+            }
+        }
+
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        writeVarInt(output, VERSION);
+        output.writeUTF(target);
+        output.writeBoolean(interfaceRetrieval);
+        writeVarInt(output, targetParameterCount);
+
+        writeVarInt(output, strings.size());
+        for (String value : strings) {
+            output.writeUTF(value);
+        }
+
+        writeVarInt(output, bindings.size());
+        for (Map.Entry<String, LibraryBinding> entry : bindings.entrySet()) {
+            LibraryBinding binding = entry.getValue();
+            writeVarInt(output, stringIndexes.get(entry.getKey()));
+            output.writeBoolean(binding.isReachable());
+            if (!binding.isReachable()) {
+                continue;
+            }
+            writeVarInt(output, binding.getPositionCount());
+            for (int index = 0; index < binding.getPositionCount(); index++) {
+                // -1 写为 0
+                writeVarInt(output, binding.getTargetPosition(index) + 1);
+            }
+            for (int index = 0; index < targetParameterCount; index++) {
+                writeDescriptor(output, stringIndexes, binding.getBinding(index));
+            }
+        }
+        output.flush();
+    }
+
+    /**
+     * 读取索引，不关闭输入流
+     *
+     * @param inputStream 输入流
+     * @return GenericsIndex
+     * @throws IOException 读取失败或格式错误
+     */
+    public static GenericsIndex read(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("not a generics index");
+        }
+        int version = readVarInt(input);
+        if (version != VERSION) {
+            throw new IOException("unsupported generics index version " + version);
+        }
+
+        GenericsIndex index = new GenericsIndex(input.readUTF(), input.readBoolean(), readVarInt(input));
+
+        String[] strings = new String[readVarInt(input)];
+        for (int position = 0; position < strings.length; position++) {
+            strings[position] = input.readUTF();
+        }
+
+        int count = readVarInt(input);
+        for (int entry = 0; entry < count; entry++) {
+            String qualifiedName = strings[readVarInt(input)];
+            if (!input.readBoolean()) {
+                index.bindings.put(qualifiedName, LibraryBinding.UNREACHABLE);
+                continue;
+            }
+            int[] positions = new int[readVarInt(input)];
+            for (int position = 0; position < positions.length; position++) {
+                positions[position] = readVarInt(input) - 1;
+            }
+            TypeDescriptor[] descriptors = new TypeDescriptor[index.targetParameterCount];
+            for (int position = 0; position < descriptors.length; position++) {
+                descriptors[position] = readDescriptor(input, strings);
+            }
+            index.bindings.put(qualifiedName, new LibraryBinding(true, positions, descriptors));
+        }
+        return index;
+    }
+
+    private static void addStrings(List<String> strings, Map<String, Integer> stringIndexes,
+                                   TypeDescriptor descriptor) {
+        if (descriptor == null) {
+            return;
+        }
+        addString(strings, stringIndexes, descriptor.getQualifiedName());
+        for (TypeDescriptor argument : descriptor.getArguments()) {
+            addStrings(strings, stringIndexes, argument);
+        }
+    }
+
+    private static void addString(List<String> strings, Map<String, Integer> stringIndexes, String value) {
+        if (!stringIndexes.containsKey(value)) {
+            stringIndexes.put(value, strings.size());
+            strings.add(value);
+        }
+    }
+
+    private static void writeDescriptor(DataOutputStream output, Map<String, Integer> stringIndexes,
+                                        TypeDescriptor descriptor) throws IOException {
+        if (descriptor == null) {
+            writeVarInt(output, 0);
+            return;
+        }
+        writeVarInt(output, stringIndexes.get(descriptor.getQualifiedName()) + 1);
+        TypeDescriptor[] arguments = descriptor.getArguments();
+        writeVarInt(output, arguments.length);
+        for (TypeDescriptor argument : arguments) {
+            writeDescriptor(output, stringIndexes, argument);
+        }
+    }
+
+    private static TypeDescriptor readDescriptor(DataInputStream input, String[] strings) throws IOException {
+        int name = readVarInt(input);
+        if (name == 0) {
+            return null;
+        }
+        TypeDescriptor[] arguments = new TypeDescriptor[readVarInt(input)];
+        for (int index = 0; index < arguments.length; index++) {
+            arguments[index] = readDescriptor(input, strings);
+            if (arguments[index] == null) {
+                throw new IOException("unbound type argument in generics index");
+            }
+        }
+        return new TypeDescriptor(strings[name - 1], arguments);
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed variable-length integer");
+    }
+
+    @Override
+    public String toString() {
+        return "GenericsIndex{" +
+                "target='" + target + '\'' +
+                ", interfaceRetrieval=" + interfaceRetrieval +
+                ", size=" + bindings.size() +
+                '}';
+    }
+}
@@ -0,0 +1,104 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import org.sheedon.compilationtool.retrieval.core.AbstractGenericsRetrieval;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * 将本模块全部类型的检索结果以 {@link GenericsIndex} 写入输出目录的 META-INF/compilationtool/ 下，
+ * 随模块的 class 文件一起发布。
+ * <p>
+ * 下游模块附加 {@link LibraryTypeScope} 后，检索到本模块的类型时按需读取该索引，
+ * 直接使用其中的结果，不再重新检索上游的继承结构。下游需使用相同的目标类、检索方式和过滤包。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/15 10:30 上午
+ */
+public class GenericsIndexPublisher {
+
+    // 是否发布检索结果索引，例如 -Acompilationtool.publishIndex=true
+    public static final String OPTION_PUBLISH_INDEX = "compilationtool.publishIndex";
+
+    private final Filer filer;
+    private final Types types;
+    private final AbstractGenericsRetrieval retrieval;
+    // 本次编译的类型，包含内部类
+    private final Set<TypeElement> elements = new LinkedHashSet<>();
+    private boolean published;
+
+    public GenericsIndexPublisher(ProcessingEnvironment processingEnv, AbstractGenericsRetrieval retrieval) {
+        this.filer = processingEnv.getFiler();
+        this.types = processingEnv.getTypeUtils();
+        this.retrieval = retrieval;
+    }
+
+    /**
+     * 根据处理器参数创建发布者，未开启时返回null
+     *
+     * @param processingEnv 处理环境
+     * @param retrieval     检索类
+     * @return GenericsIndexPublisher
+     */
+    public static GenericsIndexPublisher fromOptions(ProcessingEnvironment processingEnv,
+                                                     AbstractGenericsRetrieval retrieval) {
+        String value = processingEnv.getOptions().get(OPTION_PUBLISH_INDEX);
+        return Boolean.parseBoolean(value) ? new GenericsIndexPublisher(processingEnv, retrieval) : null;
+    }
+
+    /**
+     * 记录本轮的类型，每轮处理时调用
+     *
+     * @param roundEnv 本轮环境
+     */
+    public void collect(RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                collect((TypeElement) element);
+            }
+        }
+    }
+
+    private void collect(TypeElement element) {
+        elements.add(element);
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement) {
+                collect((TypeElement) enclosed);
+            }
+        }
+    }
+
+    /**
+     * 检索已记录的类型并写出索引，在最后一轮（processingOver）调用一次
+     *
+     * @throws IOException 写出失败
+     */
+    public void publish() throws IOException {
+        if (published) {
+            return;
+        }
+        published = true;
+
+        GenericsIndex index = retrieval.createIndex(elements, types);
+        if (index == null) {
+            return;
+        }
+        FileObject fileObject = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+                retrieval.indexResourceName(), elements.toArray(new Element[0]));
+        try (OutputStream outputStream = fileObject.openOutputStream()) {
+            index.write(outputStream);
+        }
+    }
+}
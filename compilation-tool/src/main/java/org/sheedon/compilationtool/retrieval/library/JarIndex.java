@@ -0,0 +1,151 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 通过内存映射读取 jar 的条目，只解析中央目录建立索引，按需解压单个条目。
+ * 不支持 zip64，遇到时构建失败，由调用者回退到其他读取方式。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/12 2:10 下午
+ */
+final class JarIndex {
+
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int END_SIZE = 22;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final MappedByteBuffer buffer;
+    // 条目名 - 中央目录中的条目位置
+    private final Map<String, Integer> entries = new HashMap<>();
+
+    private JarIndex(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 映射 jar 并建立条目索引
+     *
+     * @param file jar 文件
+     * @return JarIndex，格式不支持时返回null
+     */
+    static JarIndex open(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        JarIndex index = new JarIndex(buffer);
+        return index.readCentralDirectory() ? index : null;
+    }
+
+    private boolean readCentralDirectory() {
+        int limit = buffer.limit();
+        int end = -1;
+        for (int position = limit - END_SIZE; position >= Math.max(0, limit - END_SIZE - 0xFFFF); position--) {
+            if (buffer.getInt(position) == END_SIGNATURE) {
+                end = position;
+                break;
+            }
+        }
+        if (end == -1) {
+            return false;
+        }
+
+        int count = buffer.getShort(end + 10) & 0xFFFF;
+        long offset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || offset == 0xFFFFFFFFL) {
+            return false;
+        }
+
+        int position = (int) offset;
+        for (int index = 0; index < count; index++) {
+            if (buffer.getInt(position) != CENTRAL_SIGNATURE) {
+                return false;
+            }
+            int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+            entries.put(readString(position + 46, nameLength), position);
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        return true;
+    }
+
+    private String readString(int position, int length) {
+        byte[] bytes = new byte[length];
+        for (int index = 0; index < length; index++) {
+            bytes[index] = buffer.get(position + index);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取条目内容
+     *
+     * @param name 条目名，例如 java/util/List.class
+     * @return 条目内容，不存在时返回null
+     */
+    byte[] read(String name) throws IOException {
+        Integer central = entries.get(name);
+        if (central == null) {
+            return null;
+        }
+
+        int method = buffer.getShort(central + 10) & 0xFFFF;
+        int compressedSize = buffer.getInt(central + 20);
+        int size = buffer.getInt(central + 24);
+        int local = buffer.getInt(central + 42);
+        if (buffer.getInt(local) != LOCAL_SIGNATURE) {
+            throw new IOException("bad local header: " + name);
+        }
+        int data = local + 30 + (buffer.getShort(local + 26) & 0xFFFF) + (buffer.getShort(local + 28) & 0xFFFF);
+
+        byte[] compressed = new byte[compressedSize];
+        for (int index = 0; index < compressedSize; index++) {
+            compressed[index] = buffer.get(data + index);
+        }
+        if (method == STORED) {
+            return compressed;
+        }
+        if (method != DEFLATED) {
+            throw new IOException("unsupported compression method " + method + ": " + name);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(size, 64));
+            byte[] chunk = new byte[Math.max(Math.min(size, 8192), 64)];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(chunk);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                output.write(chunk, 0, length);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("bad deflate data: " + name, e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
+import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+import org.sheedon.compilationtool.retrieval.core.TypeVariableKey;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * 依赖库类型的检索结果，是 RetrievalClassModel 不持有 javac 对象的存储形式：
+ * positions 记录当前类第 i 个泛型关联的目标类泛型坐标，未关联为 -1；
+ * bindings 记录目标类第 i 个泛型已绑定的实际类型，未绑定为null。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/11 9:55 上午
+ */
+public final class LibraryBinding {
+
+    // 无法检索到目标类
+    public static final LibraryBinding UNREACHABLE = new LibraryBinding(false, new int[0], new TypeDescriptor[0]);
+
+    private final boolean reachable;
+    private final int[] positions;
+    private final TypeDescriptor[] bindings;
+
+    LibraryBinding(boolean reachable, int[] positions, TypeDescriptor[] bindings) {
+        this.reachable = reachable;
+        this.positions = positions;
+        this.bindings = bindings;
+    }
+
+    /**
+     * 由检索结果创建存储形式，结果中存在无法描述的类型时返回null，不做缓存
+     *
+     * @param model         检索结果，null 代表无法检索到目标类
+     * @param element       当前类
+     * @param targetElement 目标类
+     * @return LibraryBinding
+     */
+    public static LibraryBinding of(RetrievalClassModel model, TypeElement element, TypeElement targetElement) {
+        if (model == null) {
+            return UNREACHABLE;
+        }
+        if (targetElement == null) {
+            return null;
+        }
+
+        List<? extends TypeParameterElement> parameters = element.getTypeParameters();
+        int[] positions = new int[parameters.size()];
+        for (int index = 0; index < positions.length; index++) {
+            TypeVariableKey targetKey = model.getTargetKeyByPosition(index);
+            positions[index] = targetKey == null ? -1 : targetKey.getIndex();
+        }
+
+        IGenericsRecord record = model.getRecord();
+        int targetCount = targetElement.getTypeParameters().size();
+        TypeDescriptor[] bindings = new TypeDescriptor[targetCount];
+        for (int index = 0; index < targetCount; index++) {
+            TypeMirror mirror = record == null ? null
+                    : record.get(TypeVariableKey.of(targetElement, index).getName());
+            if (mirror == null) {
+                continue;
+            }
+            bindings[index] = TypeDescriptor.of(mirror);
+            if (bindings[index] == null) {
+                return null;
+            }
+        }
+        return new LibraryBinding(true, positions, bindings);
+    }
+
+    /**
+     * 是否可以检索到目标类
+     */
+    public boolean isReachable() {
+        return reachable;
+    }
+
+    /**
+     * 当前类泛型坐标所关联的目标类泛型坐标，未关联返回 -1
+     */
+    public int getTargetPosition(int position) {
+        return position < positions.length ? positions[position] : -1;
+    }
+
+    public int getPositionCount() {
+        return positions.length;
+    }
+
+    /**
+     * 目标类泛型坐标所绑定的实际类型
+     */
+    public TypeDescriptor getBinding(int targetPosition) {
+        return targetPosition < bindings.length ? bindings[targetPosition] : null;
+    }
+
+    public int getBindingCount() {
+        return bindings.length;
+    }
+
+    @Override
+    public String toString() {
+        return "LibraryBinding{" +
+                "reachable=" + reachable +
+                ", positions=" + Arrays.toString(positions) +
+                ", bindings=" + Arrays.toString(bindings) +
+                '}';
+    }
+}
@@ -0,0 +1,192 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JVM 级别的依赖库类型检索结果缓存。
+ * <p>
+ * 依赖库（jar）中的继承结构在构建过程中不会变化，但每个模块的编译都会重新检索一遍。
+ * 该缓存存放在静态单例中，Gradle 守护进程中的多次编译可以共用，
+ * 以「classpath 条目哈希 + 全类名 + 检索签名」为键，存储不持有 javac 对象的 {@link LibraryBinding}。
+ * <p>
+ * 检索结果还取决于父类型所在的 jar：同时记录检索经过的父类型所在条目的哈希，
+ * 命中时逐个与当前编译中的条目哈希比对，任一 jar 版本变化则丢弃该结果，见 {@link EntryHashes}。
+ * <p>
+ * 基于 ConcurrentHashMap，读取无锁，写入按桶加锁，可在并行编译的多个模块间共用。
+ * 条目数超过上限时按 CLOCK（二次机会）近似淘汰：读取只设置条目的访问标记，
+ * 淘汰时跳过并清除已标记的条目，移除未标记的条目；同一时刻只有一个写入线程执行淘汰，
+ * 其他线程不等待，条目数可能短暂超过上限。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/11 10:20 上午
+ */
+public final class LibraryTypeCache {
+
+    // 默认最大条目数
+    private static final int DEFAULT_MAX_ENTRIES = 200_000;
+
+    private static final LibraryTypeCache INSTANCE = new LibraryTypeCache(DEFAULT_MAX_ENTRIES);
+
+    // 键 - 检索结果
+    private final ConcurrentHashMap<Key, CachedBinding> bindings = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    // 淘汰锁，只在超过上限时由写入线程尝试获取
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public LibraryTypeCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * 守护进程内共用的缓存
+     */
+    public static LibraryTypeCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取缓存的检索结果，父类型所在条目的哈希与当前不一致时移除并返回null
+     *
+     * @param entryHash     classpath 条目哈希
+     * @param qualifiedName 全类名
+     * @param signature     检索签名，区分目标类、过滤包和检索方式
+     * @param entryHashes   当前编译中的条目哈希
+     * @return LibraryBinding
+     */
+    public LibraryBinding get(String entryHash, String qualifiedName, String signature, EntryHashes entryHashes) {
+        Key key = new Key(entryHash, qualifiedName, signature);
+        CachedBinding entry = bindings.get(key);
+        if (entry == null) {
+            return null;
+        }
+        for (String dependency : entry.dependencies) {
+            if (!dependency.equals(entryHashes.currentHash(dependency))) {
+                bindings.remove(key, entry);
+                return null;
+            }
+        }
+        entry.referenced = true;
+        return entry.binding;
+    }
+
+    /**
+     * 存入检索结果，替换已存在的结果
+     *
+     * @param entryHash     classpath 条目哈希
+     * @param qualifiedName 全类名
+     * @param signature     检索签名
+     * @param binding       检索结果
+     * @param dependencies  检索经过的父类型所在条目的哈希，为null时不写入
+     */
+    public void put(String entryHash, String qualifiedName, String signature, LibraryBinding binding,
+                    String[] dependencies) {
+        if (binding == null || dependencies == null) {
+            return;
+        }
+        Key key = new Key(entryHash, qualifiedName, signature);
+        bindings.put(key, new CachedBinding(binding, dependencies));
+        if (bindings.size() > maxEntries) {
+            evict(key);
+        }
+    }
+
+    /**
+     * 淘汰条目直至不超过上限，刚写入的条目不参与本次淘汰；
+     * 第一遍移除未标记的条目并清除其他条目的标记，仍超过上限时第二遍按遍历顺序移除
+     *
+     * @param inserted 刚写入的键
+     */
+    private void evict(Key inserted) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            for (int pass = 0; pass < 2 && bindings.size() > maxEntries; pass++) {
+                Iterator<Map.Entry<Key, CachedBinding>> iterator = bindings.entrySet().iterator();
+                while (iterator.hasNext() && bindings.size() > maxEntries) {
+                    Map.Entry<Key, CachedBinding> entry = iterator.next();
+                    if (entry.getKey().equals(inserted)) {
+                        continue;
+                    }
+                    CachedBinding value = entry.getValue();
+                    if (pass == 0 && value.referenced) {
+                        value.referenced = false;
+                    } else {
+                        iterator.remove();
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return bindings.size();
+    }
+
+    public void clear() {
+        bindings.clear();
+    }
+
+    /**
+     * 当前编译中的条目哈希，由 {@link LibraryTypeScope} 提供
+     */
+    public interface EntryHashes {
+
+        /**
+         * 与缓存时记录的条目哈希对应的条目，在当前编译中的哈希
+         *
+         * @param entryHash 缓存时记录的条目哈希
+         * @return 当前的条目哈希，条目已不存在时返回null
+         */
+        String currentHash(String entryHash);
+    }
+
+    private static final class CachedBinding {
+        private final LibraryBinding binding;
+        // 父类型所在条目的哈希，已去重
+        private final String[] dependencies;
+        // 访问标记，读取时设置，淘汰时清除
+        private volatile boolean referenced;
+
+        CachedBinding(LibraryBinding binding, String[] dependencies) {
+            this.binding = binding;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private static final class Key {
+        private final String entryHash;
+        private final String qualifiedName;
+        private final String signature;
+        private final int hash;
+
+        Key(String entryHash, String qualifiedName, String signature) {
+            this.entryHash = entryHash;
+            this.qualifiedName = qualifiedName;
+            this.signature = signature;
+            this.hash = 31 * (31 * entryHash.hashCode() + qualifiedName.hashCode()) + signature.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash
+                    && qualifiedName.equals(key.qualifiedName)
+                    && entryHash.equals(key.entryHash)
+                    && signature.equals(key.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
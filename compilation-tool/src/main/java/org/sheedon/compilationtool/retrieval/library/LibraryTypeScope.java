@@ -0,0 +1,500 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * 单次编译中使用 {@link LibraryTypeCache} 的作用域：
+ * 1.判断类型是否来自依赖库（jar 或 JDK 模块），并计算其 classpath 条目哈希。
+ * 2.持有当前编译的 Elements/Types，用于将缓存结果还原为 TypeMirror。
+ * 3.缓存未命中时，通过 {@link SignatureBindingResolver} 直接读取 class 文件检索，避免补全父类链上的类型。
+ * 4.读取依赖库模块发布的检索结果索引（{@link GenericsIndexPublisher}）。
+ * 5.提供当前编译中的条目哈希，校验缓存结果所经过的父类型 jar 是否变化。
+ * <p>
+ * 源码中的类型和目录形式的 classpath 条目在构建过程中可能变化，不参与缓存。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/11 10:45 上午
+ */
+public class LibraryTypeScope implements ClassFileLocator, LibraryTypeCache.EntryHashes {
+
+    // 是否开启依赖库缓存，例如 -Acompilationtool.libraryCache=true
+    public static final String OPTION_LIBRARY_CACHE = "compilationtool.libraryCache";
+    // 是否通过 class 文件 Signature 属性检索依赖库类型，默认开启，例如 -Acompilationtool.librarySignature=false
+    public static final String OPTION_LIBRARY_SIGNATURE = "compilationtool.librarySignature";
+
+    // 不参与缓存的标记
+    private static final String NONE = "";
+    // 条目中不存在发布的索引
+    private static final GenericsIndex MISSING_INDEX = new GenericsIndex(NONE, false, 0);
+
+    private final Filer filer;
+    private final Elements elements;
+    private final Types types;
+    private final LibraryTypeCache cache;
+    // 类型 - classpath 条目哈希
+    private final Map<TypeElement, String> elementEntries = new HashMap<>();
+    // 类型 - 所在 classpath 条目，例如 jar:file:/lib.jar!/
+    private final Map<TypeElement, String> elementRoots = new HashMap<>();
+    // classpath 条目 + 资源名 - 依赖库模块发布的索引，不存在的记为 MISSING_INDEX
+    private final Map<String, GenericsIndex> publishedIndexes = new HashMap<>();
+    // 当前编译的输出目录，其中的索引来自上次编译，不使用
+    private String classOutputRoot;
+    // classpath 条目 - 条目哈希
+    private final Map<String, String> entryHashes = new HashMap<>();
+    // class 文件读取者，未开启 Signature 检索时为null
+    private final ClassFileReader classFileReader;
+    // 发布索引的读取者
+    private final ClassFileReader resourceReader;
+    // 检索签名 - Signature 检索者
+    private final Map<String, SignatureBindingResolver> resolvers = new HashMap<>();
+    // 二进制名 - class 文件中的类声明，无法读取的记为null
+    private final Map<String, ClassSignature> classSignatures = new HashMap<>();
+    // 本次编译源码（含生成的源码）中的顶层类型全类名，不经过 classpath 查找
+    private final Set<String> sourceTypes = new HashSet<>();
+    // 当前轮次，多个处理器共用实例时同一轮只收集一次
+    private RoundEnvironment round;
+
+    public LibraryTypeScope(ProcessingEnvironment processingEnv) {
+        this(processingEnv, LibraryTypeCache.getInstance());
+    }
+
+    public LibraryTypeScope(ProcessingEnvironment processingEnv, LibraryTypeCache cache) {
+        this.filer = processingEnv.getFiler();
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.cache = cache;
+        String value = processingEnv.getOptions().get(OPTION_LIBRARY_SIGNATURE);
+        this.classFileReader = value == null || Boolean.parseBoolean(value) ? new ClassFileReader() : null;
+        this.resourceReader = classFileReader == null ? new ClassFileReader() : classFileReader;
+    }
+
+    /**
+     * 根据处理器参数创建作用域，未开启时返回null
+     *
+     * @param processingEnv 处理环境
+     * @return LibraryTypeScope
+     */
+    public static LibraryTypeScope fromOptions(ProcessingEnvironment processingEnv) {
+        String value = processingEnv.getOptions().get(OPTION_LIBRARY_CACHE);
+        return Boolean.parseBoolean(value) ? new LibraryTypeScope(processingEnv) : null;
+    }
+
+    /**
+     * 开始新的一轮：记录本轮的源码类型，之后对这些类型的查询直接判定为非依赖库类型，
+     * 不再通过 Filer 查找 class 文件。处理器在每轮开始时调用，未调用时仍通过 Filer 判断。
+     *
+     * @param roundEnv 当前轮次
+     */
+    public void beginRound(RoundEnvironment roundEnv) {
+        if (round == roundEnv) {
+            return;
+        }
+        round = roundEnv;
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                sourceTypes.add(((TypeElement) element).getQualifiedName().toString());
+            }
+        }
+    }
+
+    /**
+     * 是否为本次编译源码中的类型，嵌套类型按其顶层类型判断
+     *
+     * @param element 类型元素
+     * @return 已由 {@link #beginRound(RoundEnvironment)} 记录为源码类型时返回true
+     */
+    public boolean isSourceType(TypeElement element) {
+        if (sourceTypes.isEmpty()) {
+            return false;
+        }
+        TypeElement outermost = element;
+        while (outermost.getEnclosingElement() instanceof TypeElement) {
+            outermost = (TypeElement) outermost.getEnclosingElement();
+        }
+        return sourceTypes.contains(outermost.getQualifiedName().toString());
+    }
+
+    /**
+     * 类型所在 classpath 条目的哈希，非依赖库类型返回null
+     *
+     * @param element 类型元素
+     * @return 条目哈希
+     */
+    public String entryHash(TypeElement element) {
+        String entryHash = elementEntries.get(element);
+        if (entryHash == null) {
+            entryHash = loadEntryHash(element);
+            elementEntries.put(element, entryHash);
+        }
+        return entryHash.isEmpty() ? null : entryHash;
+    }
+
+    private String loadEntryHash(TypeElement element) {
+        String entry = entryRoot(element);
+        return entry == null ? NONE : hashOfEntry(entry);
+    }
+
+    /**
+     * classpath 条目的哈希，每次编译只计算一次
+     *
+     * @param entry classpath 条目，例如 jar:file:/lib.jar!/
+     * @return 条目哈希，不参与缓存的条目返回 NONE
+     */
+    private String hashOfEntry(String entry) {
+        String entryHash = entryHashes.get(entry);
+        if (entryHash == null) {
+            try {
+                entryHash = createEntryHash(URI.create(entry).getScheme(), entry);
+            } catch (IllegalArgumentException e) {
+                entryHash = NONE;
+            }
+            entryHashes.put(entry, entryHash);
+        }
+        return entryHash;
+    }
+
+    /**
+     * 缓存时记录的条目哈希所对应的条目，在当前编译中的哈希
+     *
+     * @param entryHash 缓存时记录的条目哈希，格式为 条目|...
+     * @return 当前的条目哈希，无法计算时返回null
+     */
+    @Override
+    public String currentHash(String entryHash) {
+        int index = entryHash.indexOf('|');
+        if (index == -1) {
+            return null;
+        }
+        String current = hashOfEntry(entryHash.substring(0, index));
+        return current.isEmpty() ? null : current;
+    }
+
+    /**
+     * javac 检索经过的父类型所在条目的哈希，与检索规则一致：过滤包中的类型不再向上，
+     * 只沿父类检索时不经过接口。父类型均已由 javac 检索补全。
+     *
+     * @param element            依赖库类型
+     * @param filterablePackages 过滤包
+     * @param includeInterfaces  是否沿接口检索
+     * @return 条目哈希，经过源码、目录条目或尚未生成的类型时返回null，不做缓存
+     */
+    public String[] dependencyHashes(TypeElement element, Collection<String> filterablePackages,
+                                     boolean includeInterfaces) {
+        Set<String> hashes = new LinkedHashSet<>();
+        Set<TypeElement> visited = new LinkedHashSet<>();
+        if (!collectDependencies(element, filterablePackages, includeInterfaces, visited, hashes)) {
+            return null;
+        }
+        return hashes.toArray(new String[0]);
+    }
+
+    private boolean collectDependencies(TypeElement element, Collection<String> filterablePackages,
+                                        boolean includeInterfaces, Set<TypeElement> visited, Set<String> hashes) {
+        if (!visited.add(element)) {
+            return true;
+        }
+        String entryHash = entryHash(element);
+        if (entryHash == null) {
+            return false;
+        }
+        hashes.add(entryHash);
+
+        if (!collectDependency(element.getSuperclass(), filterablePackages, includeInterfaces, visited, hashes)) {
+            return false;
+        }
+        if (includeInterfaces) {
+            List<? extends TypeMirror> interfaces = element.getInterfaces();
+            for (TypeMirror mirror : interfaces) {
+                if (!collectDependency(mirror, filterablePackages, true, visited, hashes)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean collectDependency(TypeMirror mirror, Collection<String> filterablePackages,
+                                      boolean includeInterfaces, Set<TypeElement> visited, Set<String> hashes) {
+        if (mirror == null || mirror.getKind() == TypeKind.NONE) {
+            return true;
+        }
+        if (mirror.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        Element element = ((DeclaredType) mirror).asElement();
+        if (!(element instanceof TypeElement)) {
+            return false;
+        }
+        String qualifiedName = ((TypeElement) element).getQualifiedName().toString();
+        for (String filterablePackage : filterablePackages) {
+            if (qualifiedName.startsWith(filterablePackage)) {
+                return true;
+            }
+        }
+        return collectDependencies((TypeElement) element, filterablePackages, includeInterfaces, visited, hashes);
+    }
+
+    /**
+     * Signature 检索读取过的 class 文件所在条目的哈希，见 {@link SignatureBindingResolver#dependenciesOf(String)}
+     *
+     * @param binaryNames 读取过 class 文件的类型二进制名
+     * @return 条目哈希，存在不参与缓存的条目时返回null
+     */
+    public String[] dependencyHashes(Collection<String> binaryNames) {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (String binaryName : binaryNames) {
+            URI uri = locate(binaryName);
+            if (uri == null) {
+                return null;
+            }
+            String value = uri.toString();
+            String suffix = binaryName.replace('.', '/') + ".class";
+            if (!value.endsWith(suffix)) {
+                return null;
+            }
+            String entryHash = hashOfEntry(value.substring(0, value.length() - suffix.length()));
+            if (entryHash.isEmpty()) {
+                return null;
+            }
+            hashes.add(entryHash);
+        }
+        return hashes.toArray(new String[0]);
+    }
+
+    /**
+     * 类型 class 文件所在的 classpath 条目，例如 jar:file:/lib.jar!/ 或 file:/module/classes/
+     *
+     * @param element 类型元素
+     * @return 条目，找不到 class 文件时返回null
+     */
+    private String entryRoot(TypeElement element) {
+        String entry = elementRoots.get(element);
+        if (entry == null) {
+            entry = loadEntryRoot(element);
+            elementRoots.put(element, entry);
+        }
+        return entry.isEmpty() ? null : entry;
+    }
+
+    private String loadEntryRoot(TypeElement element) {
+        if (isSourceType(element)) {
+            return NONE;
+        }
+        PackageElement packageElement = elements.getPackageOf(element);
+        String packageName = packageElement.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(element).toString();
+        URI uri = locate(packageName, binaryName);
+        if (uri == null) {
+            return NONE;
+        }
+
+        String value = uri.toString();
+        String suffix = binaryName.replace('.', '/') + ".class";
+        if (!value.endsWith(suffix)) {
+            return NONE;
+        }
+        return value.substring(0, value.length() - suffix.length());
+    }
+
+    /**
+     * 依赖库模块发布的检索结果：读取类型所在 classpath 条目中的索引资源（见 {@link GenericsIndexPublisher}），
+     * 每个条目只读取一次。jar 与目录形式的条目均可使用，当前编译的输出目录除外。
+     *
+     * @param element      类型元素
+     * @param resourceName 索引资源名，见 {@link GenericsIndex#resourceName}
+     * @return LibraryBinding，条目中没有索引或索引未记录该类型时返回null
+     */
+    public LibraryBinding publishedBinding(TypeElement element, String resourceName) {
+        String entry = entryRoot(element);
+        if (entry == null || entry.equals(classOutputRoot())) {
+            return null;
+        }
+
+        String key = entry + resourceName;
+        GenericsIndex index = publishedIndexes.get(key);
+        if (index == null) {
+            index = loadPublishedIndex(key);
+            publishedIndexes.put(key, index);
+        }
+        return index == MISSING_INDEX ? null : index.get(element.getQualifiedName().toString());
+    }
+
+    private GenericsIndex loadPublishedIndex(String location) {
+        byte[] bytes;
+        try {
+            bytes = resourceReader.read(URI.create(location));
+        } catch (IllegalArgumentException e) {
+            return MISSING_INDEX;
+        }
+        if (bytes == null) {
+            return MISSING_INDEX;
+        }
+        try {
+            return GenericsIndex.read(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            return MISSING_INDEX;
+        }
+    }
+
+    private String classOutputRoot() {
+        if (classOutputRoot == null) {
+            classOutputRoot = NONE;
+            String probe = GenericsIndex.RESOURCE_DIRECTORY + "output";
+            try {
+                String value = filer.getResource(StandardLocation.CLASS_OUTPUT, "", probe).toUri().toString();
+                if (value.endsWith(probe)) {
+                    classOutputRoot = value.substring(0, value.length() - probe.length());
+                }
+            } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+                // 无法定位输出目录时不做排除
+            }
+        }
+        return classOutputRoot;
+    }
+
+    /**
+     * 在 classpath 及平台类中定位 class 文件，只接受 jar 与 JDK 模块中的文件
+     *
+     * @param binaryName 二进制名，包名与类名以最后一个 . 分隔
+     * @return class 文件位置
+     */
+    @Override
+    public URI locate(String binaryName) {
+        int index = binaryName.lastIndexOf('.');
+        URI uri = locate(index == -1 ? "" : binaryName.substring(0, index), binaryName);
+        if (uri == null) {
+            return null;
+        }
+        String scheme = uri.getScheme();
+        return "jar".equals(scheme) || "jrt".equals(scheme) ? uri : null;
+    }
+
+    private URI locate(String packageName, String binaryName) {
+        String relativeName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + ".class";
+        URI uri = findResource(StandardLocation.CLASS_PATH, packageName, relativeName);
+        if (uri == null) {
+            uri = findResource(StandardLocation.PLATFORM_CLASS_PATH, packageName, relativeName);
+        }
+        return uri;
+    }
+
+    /**
+     * 获取 Signature 检索者，同一检索签名在本次编译中共用，未开启时返回null
+     *
+     * @param signature          检索签名：检索方式 + 目标类 + 过滤包
+     * @param targetElement      目标类
+     * @param filterablePackages 过滤包
+     * @param includeInterfaces  是否沿接口检索
+     * @return SignatureBindingResolver
+     */
+    public SignatureBindingResolver signatureResolver(String signature, TypeElement targetElement,
+                                                      Collection<String> filterablePackages,
+                                                      boolean includeInterfaces) {
+        if (classFileReader == null || targetElement == null) {
+            return null;
+        }
+
+        SignatureBindingResolver resolver = resolvers.get(signature);
+        if (resolver == null) {
+            resolver = new SignatureBindingResolver(this, classFileReader,
+                    elements.getBinaryName(targetElement).toString(),
+                    targetElement.getTypeParameters().size(), filterablePackages, includeInterfaces);
+            resolvers.put(signature, resolver);
+        }
+        return resolver;
+    }
+
+    /**
+     * 读取依赖库类型的 class 文件，不经过 javac 补全，每个类型只读取一次
+     *
+     * @param binaryName 二进制名
+     * @return ClassSignature，不在 jar 或 JDK 模块中、或无法读取时返回null
+     */
+    public ClassSignature classSignature(String binaryName) {
+        ClassSignature signature = classSignatures.get(binaryName);
+        if (signature == null && !classSignatures.containsKey(binaryName)) {
+            URI uri = locate(binaryName);
+            byte[] bytes = uri == null ? null : resourceReader.read(uri);
+            signature = bytes == null ? null : ClassSignature.read(bytes);
+            classSignatures.put(binaryName, signature);
+        }
+        return signature;
+    }
+
+    private URI findResource(JavaFileManager.Location location, String packageName, String relativeName) {
+        try {
+            FileObject fileObject = filer.getResource(location, packageName, relativeName);
+            return fileObject.toUri();
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 条目哈希：jar 使用 路径+大小+修改时间，JDK 模块使用 路径+Java版本，其他条目不参与缓存
+     *
+     * @param scheme URI 协议
+     * @param entry  classpath 条目
+     * @return 条目哈希
+     */
+    private static String createEntryHash(String scheme, String entry) {
+        if ("jrt".equals(scheme)) {
+            return entry + "|" + System.getProperty("java.version");
+        }
+
+        if (!"jar".equals(scheme)) {
+            return NONE;
+        }
+
+        // jar:file:/path/lib.jar!/
+        int index = entry.indexOf("!/");
+        if (index == -1) {
+            return NONE;
+        }
+        try {
+            File file = new File(URI.create(entry.substring("jar:".length(), index)));
+            return entry + "|" + file.length() + "|" + file.lastModified();
+        } catch (IllegalArgumentException e) {
+            return NONE;
+        }
+    }
+
+    public LibraryTypeCache getCache() {
+        return cache;
+    }
+
+    public Elements getElements() {
+        return elements;
+    }
+
+    public Types getTypes() {
+        return types;
+    }
+}
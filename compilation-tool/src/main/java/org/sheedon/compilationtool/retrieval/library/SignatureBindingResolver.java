@@ -0,0 +1,226 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 直接读取 class 文件的 Signature 属性检索依赖库类型的泛型关联，
+ * 与 ClassGenericsRetrieval/InterfaceGenericsRetrieval 的检索规则一致，结果以 {@link LibraryBinding} 表示。
+ * <p>
+ * 检索过程不访问 javac 的符号，父类链上的依赖库类型不会被补全；
+ * 遇到无法定位的 class 文件、无法描述的实际类型（如 List&lt;T&gt;）或循环继承时返回null，
+ * 由调用者回退到 javac 检索。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/12 4:20 下午
+ */
+public class SignatureBindingResolver {
+
+    // 需要回退到 javac 检索的标记
+    private static final LibraryBinding UNRESOLVABLE = new LibraryBinding(false, new int[0], new TypeDescriptor[0]);
+
+    private final ClassFileLocator locator;
+    private final ClassFileReader reader;
+    // 目标类二进制名
+    private final String targetBinaryName;
+    // 目标类泛型个数
+    private final int targetParameterCount;
+    private final Collection<String> filterablePackages;
+    // 是否沿接口检索，false 时只沿父类检索
+    private final boolean includeInterfaces;
+
+    // 二进制名 - 检索结果
+    private final Map<String, LibraryBinding> bindings = new HashMap<>();
+    // 二进制名 - 检索读取过 class 文件的类型，包含自身
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    // 检索中的类型，用于识别循环继承
+    private final Set<String> resolving = new HashSet<>();
+
+    public SignatureBindingResolver(ClassFileLocator locator, ClassFileReader reader,
+                                    String targetBinaryName, int targetParameterCount,
+                                    Collection<String> filterablePackages, boolean includeInterfaces) {
+        this.locator = locator;
+        this.reader = reader;
+        this.targetBinaryName = targetBinaryName;
+        this.targetParameterCount = targetParameterCount;
+        this.filterablePackages = filterablePackages;
+        this.includeInterfaces = includeInterfaces;
+    }
+
+    /**
+     * 检索类型与目标类的泛型关联
+     *
+     * @param binaryName 二进制名
+     * @return LibraryBinding，无法由 class 文件得出结果时返回null
+     */
+    public LibraryBinding resolve(String binaryName) {
+        LibraryBinding binding = resolveBinding(binaryName);
+        return binding == UNRESOLVABLE ? null : binding;
+    }
+
+    private LibraryBinding resolveBinding(String binaryName) {
+        LibraryBinding binding = bindings.get(binaryName);
+        if (binding != null) {
+            return binding;
+        }
+        if (!resolving.add(binaryName)) {
+            return UNRESOLVABLE;
+        }
+
+        Set<String> readTypes = new LinkedHashSet<>();
+        readTypes.add(binaryName);
+        try {
+            binding = loadBinding(binaryName, readTypes);
+        } finally {
+            resolving.remove(binaryName);
+        }
+        bindings.put(binaryName, binding);
+        dependencies.put(binaryName, readTypes);
+        return binding;
+    }
+
+    /**
+     * 检索结果所依赖的类型：检索中读取过 class 文件的自身及父类型，用于校验缓存结果
+     *
+     * @param binaryName 已检索的类型二进制名
+     * @return 二进制名，未检索时返回空集合
+     */
+    public Set<String> dependenciesOf(String binaryName) {
+        Set<String> readTypes = dependencies.get(binaryName);
+        return readTypes == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(readTypes);
+    }
+
+    private LibraryBinding loadBinding(String binaryName, Set<String> readTypes) {
+        ClassSignature signature = ClassSignature.read(reader.read(locator.locate(binaryName)));
+        if (signature == null) {
+            return UNRESOLVABLE;
+        }
+        if (!includeInterfaces && signature.isInterface()) {
+            return LibraryBinding.UNREACHABLE;
+        }
+
+        GenericSignature superclass = signature.getSuperclass();
+        List<GenericSignature> interfaces = signature.getInterfaces();
+
+        // 直接继承/实现目标类
+        if (includeInterfaces) {
+            for (GenericSignature candidate : interfaces) {
+                if (targetBinaryName.equals(candidate.getName())) {
+                    LibraryBinding binding = bindTarget(signature, candidate);
+                    if (binding != LibraryBinding.UNREACHABLE) {
+                        return binding;
+                    }
+                }
+            }
+        } else if (superclass != null && targetBinaryName.equals(superclass.getName())) {
+            return bindTarget(signature, superclass);
+        }
+
+        // 父类，其次接口
+        LibraryBinding binding = bindSupertype(signature, superclass, readTypes);
+        if (binding != LibraryBinding.UNREACHABLE || !includeInterfaces) {
+            return binding;
+        }
+        for (GenericSignature candidate : interfaces) {
+            if (targetBinaryName.equals(candidate.getName())) {
+                continue;
+            }
+            binding = bindSupertype(signature, candidate, readTypes);
+            if (binding != LibraryBinding.UNREACHABLE) {
+                return binding;
+            }
+        }
+        return LibraryBinding.UNREACHABLE;
+    }
+
+    /**
+     * 形式目标类与当前类关联：实际类型绑定到目标类坐标，泛型变量关联目标类坐标
+     */
+    private LibraryBinding bindTarget(ClassSignature signature, GenericSignature target) {
+        List<GenericSignature> arguments = target.getArguments();
+        if (arguments.size() != targetParameterCount) {
+            return LibraryBinding.UNREACHABLE;
+        }
+
+        int[] identity = new int[targetParameterCount];
+        for (int index = 0; index < identity.length; index++) {
+            identity[index] = index;
+        }
+        return bind(signature, arguments, identity, new TypeDescriptor[targetParameterCount]);
+    }
+
+    /**
+     * 检索形式父类/接口，并将其结果与当前类关联
+     */
+    private LibraryBinding bindSupertype(ClassSignature signature, GenericSignature supertype, Set<String> readTypes) {
+        if (supertype == null || supertype.getKind() != GenericSignature.Kind.CLASS) {
+            return LibraryBinding.UNREACHABLE;
+        }
+
+        String qualifiedName = signature.qualifiedName(supertype.getName());
+        for (String filterablePackage : filterablePackages) {
+            if (qualifiedName.startsWith(filterablePackage)) {
+                return LibraryBinding.UNREACHABLE;
+            }
+        }
+
+        LibraryBinding binding = resolveBinding(supertype.getName());
+        readTypes.addAll(dependenciesOf(supertype.getName()));
+        if (!binding.isReachable()) {
+            return binding;
+        }
+
+        int[] positions = new int[binding.getPositionCount()];
+        for (int index = 0; index < positions.length; index++) {
+            positions[index] = binding.getTargetPosition(index);
+        }
+        TypeDescriptor[] descriptors = new TypeDescriptor[targetParameterCount];
+        for (int index = 0; index < descriptors.length; index++) {
+            descriptors[index] = binding.getBinding(index);
+        }
+        return bind(signature, supertype.getArguments(), positions, descriptors);
+    }
+
+    /**
+     * @param signature   当前类
+     * @param arguments   形式父类的泛型实际类型
+     * @param positions   形式父类第 i 个泛型关联的目标类坐标
+     * @param descriptors 已绑定的目标类实际类型，在此基础上继续绑定
+     */
+    private LibraryBinding bind(ClassSignature signature, List<GenericSignature> arguments,
+                                int[] positions, TypeDescriptor[] descriptors) {
+        List<String> typeParameters = signature.getTypeParameters();
+        int[] currentPositions = new int[typeParameters.size()];
+        Arrays.fill(currentPositions, -1);
+
+        for (int index = 0; index < arguments.size() && index < positions.length; index++) {
+            int targetPosition = positions[index];
+            if (targetPosition == -1) {
+                continue;
+            }
+
+            GenericSignature argument = arguments.get(index);
+            if (argument.getKind() == GenericSignature.Kind.CLASS) {
+                TypeDescriptor descriptor = argument.toDescriptor(signature);
+                if (descriptor == null) {
+                    return UNRESOLVABLE;
+                }
+                descriptors[targetPosition] = descriptor;
+            } else if (argument.getKind() == GenericSignature.Kind.TYPE_VARIABLE) {
+                int position = typeParameters.indexOf(argument.getName());
+                if (position != -1) {
+                    currentPositions[position] = targetPosition;
+                }
+            }
+        }
+        return new LibraryBinding(true, currentPositions, descriptors);
+    }
+}
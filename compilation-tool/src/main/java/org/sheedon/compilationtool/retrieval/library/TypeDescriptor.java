@@ -0,0 +1,128 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * 不依赖 javac 对象的类型描述，只描述由类型组成的参数化类型，例如 List&lt;String&gt;
+ * 用于在编译之间保存已解析的泛型实际类型，使用时再还原为当前编译的 TypeMirror
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/11 9:40 上午
+ */
+public final class TypeDescriptor {
+
+    private static final TypeDescriptor[] EMPTY = new TypeDescriptor[0];
+
+    // 全类名
+    private final String qualifiedName;
+    // 泛型实际类型
+    private final TypeDescriptor[] arguments;
+
+    TypeDescriptor(String qualifiedName, TypeDescriptor[] arguments) {
+        this.qualifiedName = qualifiedName;
+        this.arguments = arguments == null ? EMPTY : arguments;
+    }
+
+    /**
+     * 由 TypeMirror 创建类型描述，包含通配符、数组等无法描述的类型时返回null
+     *
+     * @param mirror 类型
+     * @return TypeDescriptor
+     */
+    public static TypeDescriptor of(TypeMirror mirror) {
+        if (mirror == null || mirror.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+
+        DeclaredType declaredType = (DeclaredType) mirror;
+        Element element = declaredType.asElement();
+        if (!(element instanceof TypeElement)) {
+            return null;
+        }
+
+        List<? extends TypeMirror> typeArguments = declaredType.getTypeArguments();
+        TypeDescriptor[] arguments = new TypeDescriptor[typeArguments.size()];
+        for (int index = 0; index < arguments.length; index++) {
+            TypeDescriptor argument = of(typeArguments.get(index));
+            if (argument == null) {
+                return null;
+            }
+            arguments[index] = argument;
+        }
+        return new TypeDescriptor(((TypeElement) element).getQualifiedName().toString(), arguments);
+    }
+
+    /**
+     * 还原为当前编译中的 TypeMirror，类型不存在时返回null
+     *
+     * @param elements 元素工具类
+     * @param types    类型工具类
+     * @return TypeMirror
+     */
+    public TypeMirror toTypeMirror(Elements elements, Types types) {
+        TypeElement element = elements.getTypeElement(qualifiedName);
+        if (element == null) {
+            return null;
+        }
+
+        if (arguments.length == 0) {
+            // 非泛型类直接使用其类型，泛型类则为原始类型
+            return element.getTypeParameters().isEmpty() ? element.asType() : types.getDeclaredType(element);
+        }
+
+        TypeMirror[] mirrors = new TypeMirror[arguments.length];
+        for (int index = 0; index < arguments.length; index++) {
+            mirrors[index] = arguments[index].toTypeMirror(elements, types);
+            if (mirrors[index] == null) {
+                return null;
+            }
+        }
+        return types.getDeclaredType(element, mirrors);
+    }
+
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+    TypeDescriptor[] getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TypeDescriptor)) return false;
+        TypeDescriptor that = (TypeDescriptor) o;
+        return qualifiedName.equals(that.qualifiedName) && Arrays.equals(arguments, that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * qualifiedName.hashCode() + Arrays.hashCode(arguments);
+    }
+
+    @Override
+    public String toString() {
+        if (arguments.length == 0) {
+            return qualifiedName;
+        }
+        StringBuilder builder = new StringBuilder(qualifiedName).append('<');
+        for (int index = 0; index < arguments.length; index++) {
+            if (index > 0) {
+                builder.append(',');
+            }
+            builder.append(arguments[index]);
+        }
+        return builder.append('>').toString();
+    }
+}
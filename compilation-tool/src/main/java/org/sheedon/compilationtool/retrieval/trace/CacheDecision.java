@@ -0,0 +1,26 @@
+package org.sheedon.compilationtool.retrieval.trace;
+
+/**
+ * 检索过程中每一跳的缓存判定
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/10 10:05 上午
+ */
+public enum CacheDecision {
+
+    // 已存在填充完整的检索记录，直接使用
+    HIT,
+    // 已存在检索记录，但未填充完整，需要继续关联
+    PARTIAL,
+    // 不存在检索记录，继续向上检索
+    MISS,
+    // 在过滤包中，或不满足检索条件，停止检索
+    FILTERED,
+    // 不是目标类的子类型，无需检索
+    UNRELATED,
+    // 到达目标类/目标接口
+    TARGET,
+    // 父类/接口尚未生成，加入延迟检索队列
+    DEFERRED
+}
@@ -0,0 +1,106 @@
+package org.sheedon.compilationtool.retrieval.trace;
+
+/**
+ * Java Flight Recorder 事件出口，记录每次检索、每个 TypeBuilder 构造和每次泛型记录克隆的
+ * 全类名、经过的节点数、缓存判定和耗时，用于在 JFR 中按类定位处理器耗时。
+ * <p>
+ * JFR 事件类只在 JDK 11+ 上编译，打包在 Multi-Release jar 的 META-INF/versions/11 下；
+ * JDK 8 或事件类不存在时，各 begin 方法返回null，调用方不产生任何开销。
+ * 事件是否记录由 JFR 录制配置决定，例如：
+ * <pre>
+ * -XX:StartFlightRecording=filename=build.jfr
+ * </pre>
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/15 4:30 下午
+ */
+public final class ProfilingEvents {
+
+    // JFR 事件实现类
+    private static final String SINK_CLASS_NAME = "org.sheedon.compilationtool.retrieval.trace.jfr.JfrEventSink";
+    private static final Sink SINK = loadSink();
+
+    private ProfilingEvents() {
+    }
+
+    /**
+     * 事件工厂，由 JFR 实现
+     */
+    public interface Sink {
+
+        /**
+         * 开始一次检索，事件未开启时返回null
+         */
+        Span beginRetrieval();
+
+        /**
+         * 开始构造 TypeBuilder，事件未开启时返回null
+         */
+        Span beginTypeBuilder();
+
+        /**
+         * 开始克隆泛型记录，事件未开启时返回null
+         */
+        Span beginRecordClone();
+    }
+
+    /**
+     * 已开始计时的事件
+     */
+    public interface Span {
+
+        /**
+         * 结束计时并提交
+         *
+         * @param qualifiedName 全类名
+         * @param nodeCount     经过的节点数
+         * @param outcome       缓存判定，可为null
+         */
+        void commit(String qualifiedName, int nodeCount, String outcome);
+    }
+
+    /**
+     * 是否可记录 JFR 事件（JDK 11+ 且已打包事件类）
+     */
+    public static boolean isAvailable() {
+        return SINK != null;
+    }
+
+    /**
+     * 开始一次检索
+     *
+     * @return Span，不可用或未开启时返回null
+     */
+    public static Span beginRetrieval() {
+        return SINK == null ? null : SINK.beginRetrieval();
+    }
+
+    /**
+     * 开始构造 TypeBuilder
+     *
+     * @return Span，不可用或未开启时返回null
+     */
+    public static Span beginTypeBuilder() {
+        return SINK == null ? null : SINK.beginTypeBuilder();
+    }
+
+    /**
+     * 开始克隆泛型记录
+     *
+     * @return Span，不可用或未开启时返回null
+     */
+    public static Span beginRecordClone() {
+        return SINK == null ? null : SINK.beginRecordClone();
+    }
+
+    private static Sink loadSink() {
+        try {
+            Class<?> sinkClass = Class.forName(SINK_CLASS_NAME, true, ProfilingEvents.class.getClassLoader());
+            return (Sink) sinkClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // JDK 8 不加载 META-INF/versions/11，或运行时不包含 jdk.jfr 模块
+            return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.sheedon.compilationtool.retrieval.trace;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单个元素的检索路径记录，只保存字符串信息，不持有 javac 对象
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/10 10:12 上午
+ */
+public final class ResolutionTrace {
+
+    // 检索起始类的全类名
+    private final String qualifiedName;
+    // 总耗时
+    private final long elapsedNanos;
+    // 是否因采样记录，否则为超过耗时阈值记录
+    private final boolean sampled;
+    // 经过的节点
+    private final List<Hop> hops;
+
+    ResolutionTrace(String qualifiedName, long elapsedNanos, boolean sampled, List<Hop> hops) {
+        this.qualifiedName = qualifiedName;
+        this.elapsedNanos = elapsedNanos;
+        this.sampled = sampled;
+        this.hops = Collections.unmodifiableList(hops);
+    }
+
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public List<Hop> getHops() {
+        return hops;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(qualifiedName)
+                .append(" ").append(elapsedNanos / 1000).append("us")
+                .append(sampled ? " [sampled]" : " [slow]");
+        for (Hop hop : hops) {
+            builder.append("\n  ").append(hop);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 检索路径上的一跳
+     */
+    public static final class Hop {
+
+        // 节点全类名
+        private final String qualifiedName;
+        // 缓存判定
+        private final CacheDecision decision;
+        // 距离检索开始的耗时
+        private final long offsetNanos;
+
+        Hop(String qualifiedName, CacheDecision decision, long offsetNanos) {
+            this.qualifiedName = qualifiedName;
+            this.decision = decision;
+            this.offsetNanos = offsetNanos;
+        }
+
+        public String getQualifiedName() {
+            return qualifiedName;
+        }
+
+        public CacheDecision getDecision() {
+            return decision;
+        }
+
+        public long getOffsetNanos() {
+            return offsetNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "+" + offsetNanos / 1000 + "us " + decision + " " + qualifiedName;
+        }
+    }
+}
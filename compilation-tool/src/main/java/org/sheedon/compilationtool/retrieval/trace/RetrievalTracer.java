@@ -0,0 +1,219 @@
+package org.sheedon.compilationtool.retrieval.trace;
+
+import org.sheedon.compilationtool.utils.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+
+/**
+ * 检索路径追踪者，按需开启，记录每个元素检索时经过的节点、缓存判定和耗时。
+ * <p>
+ * 记录条件二选一或同时生效：
+ * 1.采样：每 N 个检索元素记录一次。
+ * 2.阈值：检索耗时超过阈值的元素。
+ * <p>
+ * 未被记录的元素只增加一次计数判断；阈值模式下节点先写入可复用的数组，
+ * 命中条件后才转换为字符串存入环形缓冲区，缓冲区满后覆盖最早的记录，
+ * 处理结束时通过 {@link #drain()} 取出。
+ * <p>
+ * 与 javac 相同，仅在单线程中使用。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/10 10:20 上午
+ */
+public final class RetrievalTracer {
+
+    // 采样间隔，例如 -Acompilationtool.trace.sample=100
+    public static final String OPTION_SAMPLE = "compilationtool.trace.sample";
+    // 耗时阈值（毫秒），例如 -Acompilationtool.trace.thresholdMs=50
+    public static final String OPTION_THRESHOLD = "compilationtool.trace.thresholdMs";
+    // 环形缓冲区容量，默认 64
+    public static final String OPTION_CAPACITY = "compilationtool.trace.capacity";
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // 采样间隔，0 代表不采样
+    private final int sampleInterval;
+    // 耗时阈值，0 代表不按阈值记录
+    private final long thresholdNanos;
+
+    // 环形缓冲区
+    private final ResolutionTrace[] traces;
+    private int nextIndex;
+    private int size;
+
+    // 当前检索的临时记录
+    private Element[] hopElements = new Element[16];
+    private CacheDecision[] hopDecisions = new CacheDecision[16];
+    private long[] hopOffsets = new long[16];
+    private int hopCount;
+    private Element rootElement;
+    private int depth;
+    private long elementCount;
+    private boolean recording;
+    private boolean sampled;
+    private long startNanos;
+
+    /**
+     * 创建追踪者
+     *
+     * @param sampleInterval  采样间隔，0 代表不采样
+     * @param thresholdMillis 耗时阈值（毫秒），0 代表不按阈值记录
+     * @param capacity        环形缓冲区容量
+     */
+    public RetrievalTracer(int sampleInterval, long thresholdMillis, int capacity) {
+        this.sampleInterval = Math.max(0, sampleInterval);
+        this.thresholdNanos = Math.max(0, thresholdMillis) * 1_000_000;
+        this.traces = new ResolutionTrace[Math.max(1, capacity)];
+    }
+
+    /**
+     * 根据处理器参数创建追踪者，未设置采样和阈值时返回null
+     *
+     * @param options ProcessingEnvironment.getOptions()
+     * @return RetrievalTracer
+     */
+    public static RetrievalTracer fromOptions(Map<String, String> options) {
+        if (options == null) {
+            return null;
+        }
+
+        int sample = parseInt(options.get(OPTION_SAMPLE), 0);
+        int threshold = parseInt(options.get(OPTION_THRESHOLD), 0);
+        if (sample <= 0 && threshold <= 0) {
+            return null;
+        }
+        int capacity = parseInt(options.get(OPTION_CAPACITY), DEFAULT_CAPACITY);
+        return new RetrievalTracer(sample, threshold, capacity);
+    }
+
+    /**
+     * 追踪者支持的处理器参数，供 Processor.getSupportedOptions() 使用
+     */
+    public static Set<String> supportedOptions() {
+        return new HashSet<>(Arrays.asList(OPTION_SAMPLE, OPTION_THRESHOLD, OPTION_CAPACITY));
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 开始检索一个元素，递归检索父类时只增加层级
+     *
+     * @param element 检索元素
+     */
+    public void begin(Element element) {
+        if (depth++ > 0) {
+            return;
+        }
+
+        rootElement = element;
+        elementCount++;
+        sampled = sampleInterval > 0 && elementCount % sampleInterval == 0;
+        recording = sampled || thresholdNanos > 0;
+        hopCount = 0;
+        if (recording) {
+            startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 当前元素是否在记录中
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * 记录一跳
+     *
+     * @param element  节点元素
+     * @param decision 缓存判定
+     */
+    public void hop(Element element, CacheDecision decision) {
+        if (!recording) {
+            return;
+        }
+
+        if (hopCount == hopElements.length) {
+            int length = hopCount << 1;
+            hopElements = Arrays.copyOf(hopElements, length);
+            hopDecisions = Arrays.copyOf(hopDecisions, length);
+            hopOffsets = Arrays.copyOf(hopOffsets, length);
+        }
+        hopElements[hopCount] = element;
+        hopDecisions[hopCount] = decision;
+        hopOffsets[hopCount] = System.nanoTime() - startNanos;
+        hopCount++;
+    }
+
+    /**
+     * 结束检索，回到最外层时判断是否写入缓冲区
+     */
+    public void end() {
+        if (depth == 0 || --depth > 0) {
+            return;
+        }
+
+        if (recording) {
+            long elapsed = System.nanoTime() - startNanos;
+            if (sampled || elapsed >= thresholdNanos) {
+                append(elapsed);
+            }
+        }
+        Arrays.fill(hopElements, 0, hopCount, null);
+        hopCount = 0;
+        rootElement = null;
+        recording = false;
+    }
+
+    private void append(long elapsed) {
+        List<ResolutionTrace.Hop> hops = new ArrayList<>(hopCount);
+        for (int index = 0; index < hopCount; index++) {
+            hops.add(new ResolutionTrace.Hop(ClassUtils.loadQualifiedName(hopElements[index]),
+                    hopDecisions[index], hopOffsets[index]));
+        }
+        traces[nextIndex] = new ResolutionTrace(ClassUtils.loadQualifiedName(rootElement),
+                elapsed, sampled, hops);
+        nextIndex = (nextIndex + 1) % traces.length;
+        size = Math.min(size + 1, traces.length);
+    }
+
+    /**
+     * 取出缓冲区中的记录，由旧到新排列，并清空缓冲区
+     */
+    public List<ResolutionTrace> drain() {
+        List<ResolutionTrace> result = new ArrayList<>(size);
+        int start = (nextIndex - size + traces.length) % traces.length;
+        for (int index = 0; index < size; index++) {
+            int position = (start + index) % traces.length;
+            result.add(traces[position]);
+            traces[position] = null;
+        }
+        size = 0;
+        nextIndex = 0;
+        return result;
+    }
+
+    /**
+     * 已检索的元素数量
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+}
@@ -3,11 +3,13 @@ package org.sheedon.compilationtool.utils;
 import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
 import org.sheedon.compilationtool.retrieval.core.IRetrieval;
 import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+import org.sheedon.compilationtool.retrieval.core.TypeVariableKey;
+import org.sheedon.compilationtool.retrieval.trace.CacheDecision;
+import org.sheedon.compilationtool.retrieval.trace.ProfilingEvents;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
@@ -27,23 +29,26 @@ public class GenericsRecordUtils {
 
     /**
      * 核实是否为类型元素，并且检索是否加载过泛型检索记录
-     * @param element 目标元素
-     * @param classMap 记录Map
-     * @param currentModel 当前类的泛型检索记录
-     * @param currentElement 当前元素
+     *
+     * @param superTypeMirror 形式父类/接口，例如 Interface2&lt;T,String,Integer&gt;
+     * @param element         形式父类/接口的元素
+     * @param classMap        记录Map
+     * @param currentModel    当前类的泛型检索记录
+     * @param currentElement  当前元素
      * @return 泛型检索记录信息
      */
-    public static RetrievalClassModel checkTypeElementAndLoaded(Element element,
-                                                          Map<String, RetrievalClassModel> classMap,
-                                                          RetrievalClassModel currentModel,
-                                                          TypeElement currentElement,
-                                                          IRetrieval retrieval) {
+    public static RetrievalClassModel checkTypeElementAndLoaded(TypeMirror superTypeMirror,
+                                                                Element element,
+                                                                Map<String, RetrievalClassModel> classMap,
+                                                                RetrievalClassModel currentModel,
+                                                                TypeElement currentElement,
+                                                                IRetrieval retrieval) {
         if (element instanceof TypeElement) {
             String superclassName = ((TypeElement) element).getQualifiedName().toString();
             RetrievalClassModel superRetrievalModel = classMap.get(superclassName);
 
             // 核实，若存在，则直接返回
-            return checkLoaded(superRetrievalModel, currentModel, currentElement, retrieval);
+            return checkLoaded(superRetrievalModel, superTypeMirror, currentModel, currentElement, retrieval);
         }
 
         return null;
@@ -51,29 +56,32 @@ public class GenericsRecordUtils {
 
 
     /**
-     * 先核实一步，若存在，可减少后续目标节点和过滤节点的盘点耗时
+     * 先核实一步，若存在，可减少后续目标节点和过滤节点的盘点耗时，
+     * 只复用已检索到目标类（RESOLVED）的记录，检索中和检索不到的记录不做关联
      *
      * @param superRetrievalModel 父类检索信息
+     * @param superTypeMirror     形式父类/接口
      * @param currentModel        当前类的检索信息
      * @param element             当前类的类型元素
      * @return RetrievalClassModel 父类检索信息绑定到当前类
      */
     public static RetrievalClassModel checkLoaded(RetrievalClassModel superRetrievalModel,
+                                                  TypeMirror superTypeMirror,
                                                   RetrievalClassModel currentModel,
                                                   TypeElement element,
                                                   IRetrieval retrieval) {
-        if (superRetrievalModel == null) {
+        if (superRetrievalModel == null || !superRetrievalModel.isResolved()) {
             return null;
         }
 
         // 是否填充完整，是则浅拷贝，并且返回
         if (superRetrievalModel.isCompeted()) {
-            currentModel.bindGenericsRecord(currentModel.getRecord());
+            currentModel.bindGenericsRecord(superRetrievalModel.getRecord());
             return currentModel;
         }
 
         // 遍历节点，用于绑定坐标
-        return traverseNodeAndBindPosition(element.getSuperclass(), currentModel, superRetrievalModel, element, retrieval);
+        return traverseNodeAndBindPosition(superTypeMirror, currentModel, superRetrievalModel, element, retrieval);
     }
 
 
@@ -93,12 +101,16 @@ public class GenericsRecordUtils {
                                                                   IRetrieval retrieval) {
 
         // 否则，采用深拷贝
+        ProfilingEvents.Span span = ProfilingEvents.beginRecordClone();
         IGenericsRecord record = cloneBySuperRecord(retrieval,
                 superClassModel.getRecord());
         currentModel.bindGenericsRecord(record);
+        if (span != null) {
+            span.commit(element.getQualifiedName().toString(), 1,
+                    (superClassModel.isCompeted() ? CacheDecision.HIT : CacheDecision.PARTIAL).name());
+        }
 
-        traverseNodeGenerics(superTypeMirror, currentModel, superClassModel);
-        appendBindPosition(currentModel, element.getTypeParameters());
+        traverseNodeGenerics(superTypeMirror, currentModel, superClassModel, element);
         return currentModel;
     }
 
@@ -110,10 +122,15 @@ public class GenericsRecordUtils {
      * 1. 获取当前类的父类形式泛型
      * 2. 获取真实父类的泛型类型
      * 3. 匹配形式泛型kind == TypeKind.DECLARED，代表可以填充
-     * 4. 不匹配的记录到对照表中
+     * 4. 当前类的泛型直接绑定坐标，「继承类-坐标关联」无需再经过对照表
+     *
+     * @param superTypeMirror 形式目标类/接口，例如 TargetClass&lt;K,String&gt;
+     * @param element         当前类的类型元素
+     * @param retrieval       检索者职责
+     * @return 当前类的检索信息
      */
     public static RetrievalClassModel traverseTargetGenerics(TypeMirror superTypeMirror,
-                                                             String currentQualifiedName,
+                                                             TypeElement element,
                                                              IRetrieval retrieval) {
         if (!(superTypeMirror instanceof DeclaredType)) {
             return null;
@@ -131,49 +148,42 @@ public class GenericsRecordUtils {
 
         // 「同类-层级关联」
         Map<String, RetrievalClassModel> classMap = retrieval == null ? new HashMap<>() : retrieval.retrievalClassMap();
-        RetrievalClassModel classModel = classMap.get(currentQualifiedName);
+        RetrievalClassModel classModel = classMap.get(element.getQualifiedName().toString());
         for (int index = 0; index < superParameters.size(); index++) {
-            TypeParameterElement element = superParameters.get(index);
-            String typeName = element.asType().toString();
+            TypeVariableKey targetKey = TypeVariableKey.of(superElement, index);
 
             TypeMirror mirror = typeArguments.get(index);
             if (mirror.getKind() == TypeKind.DECLARED) {
-                classModel.addTargetGenericsRecord(typeName, mirror);
+                classModel.addGenericsRecord(targetKey, mirror);
             } else {
-                classModel.recordType(mirror.toString(), RetrievalClassModel.PREFIX + typeName);
+                TypeVariableKey currentKey = currentKeyOf(mirror, element);
+                if (currentKey != null) {
+                    classModel.bindPosition(currentKey.getIndex(), targetKey);
+                }
             }
         }
         return classModel;
     }
 
-    /**
-     * 追加绑定泛型类型的位置，「继承类-坐标关联」
-     * AClass<T> extends BClass<T>{
-     * <p>
-     * }
-     * 绑定T的位置为0
-     *
-     * @param nodeClass         节点Class信息
-     * @param currentParameters 当前类的泛型参数 AClass<T> 中的T
-     */
-    public static void appendBindPosition(RetrievalClassModel nodeClass, List<? extends TypeParameterElement> currentParameters) {
-        int index = 0;
-        for (TypeParameterElement parameter : currentParameters) {
-            nodeClass.bindPosition(parameter.asType().toString(), index);
-            index++;
-        }
-    }
-
     /**
      * 遍历目标泛型集合
      * 1. 获取当前类的父类形式泛型
      * 2. 获取真实父类的泛型类型
      * 3. 匹配形式泛型kind == TypeKind.DECLARED，代表可以填充
-     * 4. 不匹配的记录到对照表中
+     * 4. 当前类的泛型复合父类的坐标关联，直接关联到目标类泛型
+     * <p>
+     * 父类的坐标已直接关联到目标类泛型，因此每一层只需遍历一次父类坐标，
+     * 与距目标类的层级无关
+     *
+     * @param superTypeMirror 形式父类/接口
+     * @param currentModel    当前类的泛型数据存储
+     * @param superClassModel 父类的泛型数据存储
+     * @param element         当前类的类型元素
      */
     public static void traverseNodeGenerics(TypeMirror superTypeMirror,
                                             RetrievalClassModel currentModel,
-                                            RetrievalClassModel superClassModel) {
+                                            RetrievalClassModel superClassModel,
+                                            TypeElement element) {
         if (!(superTypeMirror instanceof DeclaredType)) {
             return;
         }
@@ -187,19 +197,31 @@ public class GenericsRecordUtils {
         }
 
         // 「同类-层级关联」通过坐标获取泛型类型
-        Set<Integer> positions = superClassModel.getPositions();
-        for (Integer position : positions) {
-            String typeName = superClassModel.getTypeNameByPosition(position);
+        int count = Math.min(superClassModel.getPositionCount(), typeArguments.size());
+        for (int position = 0; position < count; position++) {
+            TypeVariableKey targetKey = superClassModel.getTargetKeyByPosition(position);
+            if (targetKey == null) {
+                continue;
+            }
             TypeMirror mirror = typeArguments.get(position);
             if (mirror.getKind() == TypeKind.DECLARED) {
-                currentModel.addGenericsRecord(typeName, mirror);
+                currentModel.addGenericsRecord(targetKey, mirror);
             } else {
-                currentModel.recordType(mirror.toString(), typeName);
+                currentModel.composePosition(currentKeyOf(mirror, element), superClassModel, position);
             }
         }
 
     }
 
+    /**
+     * 形式父类/接口上的实际类型为当前类的泛型时，返回其定位键，
+     * 外部类的泛型等其他类型变量返回null
+     */
+    private static TypeVariableKey currentKeyOf(TypeMirror mirror, TypeElement element) {
+        TypeVariableKey key = TypeVariableKey.of(mirror);
+        return key != null && key.getGenericElement() == element ? key : null;
+    }
+
 
     /**
      * 从父记录中拷贝泛型处理记录
@@ -0,0 +1,82 @@
+package org.sheedon.compilationtool.visitor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+
+/**
+ * 类结构访问者，由 {@link TypeStructureWalker} 推送类、字段、方法、泛型和父类型，
+ * 与 TypeBuilder 描述相同的结构，但不创建中间构造者对象。
+ * <p>
+ * 返回 boolean 的回调可剪枝：返回false则跳过对应子树。
+ * 只需关注部分成员时重写对应方法即可。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/13 5:10 下午
+ */
+public interface TypeStructureVisitor {
+
+    /**
+     * 访问类或接口
+     *
+     * @param element 类型元素
+     * @param depth   继承层级，起始类为0
+     * @return false 则跳过该类的泛型、成员和父类型
+     */
+    default boolean visitType(TypeElement element, int depth) {
+        return true;
+    }
+
+    /**
+     * 访问类或方法上声明的泛型
+     *
+     * @param owner     声明泛型的类或方法
+     * @param parameter 泛型元素
+     */
+    default void visitTypeParameter(Element owner, TypeParameterElement parameter) {
+    }
+
+    /**
+     * 访问字段
+     *
+     * @param owner 字段所在类
+     * @param field 字段元素
+     */
+    default void visitField(TypeElement owner, VariableElement field) {
+    }
+
+    /**
+     * 访问方法或构造方法
+     *
+     * @param owner  方法所在类
+     * @param method 方法元素
+     * @return false 则跳过该方法的泛型
+     */
+    default boolean visitMethod(TypeElement owner, ExecutableElement method) {
+        return true;
+    }
+
+    /**
+     * 访问形式父类或形式接口
+     *
+     * @param subtype   当前类
+     * @param supertype 形式父类/接口，包含实际泛型，例如 TargetClass&lt;K,String&gt;
+     * @param element   父类型元素
+     * @return false 则不继续访问该父类型
+     */
+    default boolean visitSupertype(TypeElement subtype, DeclaredType supertype, TypeElement element) {
+        return true;
+    }
+
+    /**
+     * 类的泛型、成员和父类型均已访问
+     *
+     * @param element 类型元素
+     */
+    default void visitTypeEnd(TypeElement element) {
+    }
+}
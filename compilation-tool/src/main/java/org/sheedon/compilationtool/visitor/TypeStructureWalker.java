@@ -0,0 +1,105 @@
+package org.sheedon.compilationtool.visitor;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * 类结构遍历者，按以下顺序向 {@link TypeStructureVisitor} 推送：
+ * 1.visitType
+ * 2.类上的泛型 visitTypeParameter
+ * 3.按声明顺序的字段 visitField 和方法 visitMethod（及其泛型）
+ * 4.形式父类，其次形式接口 visitSupertype，并递归遍历父类型
+ * 5.visitTypeEnd
+ * <p>
+ * 同一次遍历中已访问过的类型不再重复访问，例如多条路径实现的同一接口。
+ * 遍历者可复用，与 javac 相同，仅在单线程中使用。
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/13 5:30 下午
+ */
+public class TypeStructureWalker {
+
+    private final Types types;
+    // 本次遍历已访问的类型
+    private final Set<TypeElement> visited = new HashSet<>();
+
+    public TypeStructureWalker(Types types) {
+        this.types = types;
+    }
+
+    /**
+     * 从当前类开始遍历
+     *
+     * @param element 类型元素
+     * @param visitor 访问者
+     */
+    public void walk(TypeElement element, TypeStructureVisitor visitor) {
+        try {
+            walkType(element, 0, visitor);
+        } finally {
+            visited.clear();
+        }
+    }
+
+    private void walkType(TypeElement element, int depth, TypeStructureVisitor visitor) {
+        if (!visited.add(element) || !visitor.visitType(element, depth)) {
+            return;
+        }
+
+        for (TypeParameterElement parameter : element.getTypeParameters()) {
+            visitor.visitTypeParameter(element, parameter);
+        }
+
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed instanceof VariableElement) {
+                visitor.visitField(element, (VariableElement) enclosed);
+            } else if (enclosed instanceof ExecutableElement
+                    && enclosed.getKind() != ElementKind.STATIC_INIT
+                    && enclosed.getKind() != ElementKind.INSTANCE_INIT) {
+                ExecutableElement method = (ExecutableElement) enclosed;
+                if (visitor.visitMethod(element, method)) {
+                    for (TypeParameterElement parameter : method.getTypeParameters()) {
+                        visitor.visitTypeParameter(method, parameter);
+                    }
+                }
+            }
+        }
+
+        walkSupertype(element, element.getSuperclass(), depth, visitor);
+        List<? extends TypeMirror> interfaces = element.getInterfaces();
+        for (TypeMirror mirror : interfaces) {
+            walkSupertype(element, mirror, depth, visitor);
+        }
+
+        visitor.visitTypeEnd(element);
+    }
+
+    private void walkSupertype(TypeElement element, TypeMirror mirror, int depth, TypeStructureVisitor visitor) {
+        if (mirror == null || mirror.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+
+        Element superElement = types.asElement(mirror);
+        if (!(superElement instanceof TypeElement) || visited.contains(superElement)) {
+            return;
+        }
+
+        TypeElement superTypeElement = (TypeElement) superElement;
+        if (visitor.visitSupertype(element, (DeclaredType) mirror, superTypeElement)) {
+            walkType(superTypeElement, depth + 1, visitor);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.sheedon.compilationtool.retrieval.trace.jfr;
+
+import org.sheedon.compilationtool.retrieval.trace.ProfilingEvents;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * CompilationTool JFR 事件的公共字段，耗时由 JFR 记录
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/15 4:30 下午
+ */
+@Category({"CompilationTool"})
+@StackTrace(false)
+abstract class CompilationToolEvent extends Event implements ProfilingEvents.Span {
+
+    @Label("Qualified Name")
+    String qualifiedName;
+
+    @Label("Nodes Visited")
+    @Description("检索经过的父类/接口数，或构造的字段与方法数")
+    int nodeCount;
+
+    @Label("Cache Outcome")
+    String outcome;
+
+    /**
+     * 事件开启时开始计时
+     *
+     * @return 当前事件，未开启时返回null
+     */
+    CompilationToolEvent start() {
+        if (!isEnabled()) {
+            return null;
+        }
+        begin();
+        return this;
+    }
+
+    @Override
+    public void commit(String qualifiedName, int nodeCount, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.qualifiedName = qualifiedName;
+            this.nodeCount = nodeCount;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.sheedon.compilationtool.retrieval.trace.jfr;
+
+import org.sheedon.compilationtool.retrieval.trace.ProfilingEvents;
+
+/**
+ * JFR 事件工厂，由 {@link ProfilingEvents} 在 JDK 11+ 上反射加载
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/15 4:30 下午
+ */
+public final class JfrEventSink implements ProfilingEvents.Sink {
+
+    @Override
+    public ProfilingEvents.Span beginRetrieval() {
+        return new RetrievalEvent().start();
+    }
+
+    @Override
+    public ProfilingEvents.Span beginTypeBuilder() {
+        return new TypeBuilderEvent().start();
+    }
+
+    @Override
+    public ProfilingEvents.Span beginRecordClone() {
+        return new RecordCloneEvent().start();
+    }
+}
@@ -0,0 +1,16 @@
+package org.sheedon.compilationtool.retrieval.trace.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 从父类检索记录克隆泛型记录
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/15 4:30 下午
+ */
+@Name("org.sheedon.compilationtool.RecordClone")
+@Label("Generics Record Clone")
+final class RecordCloneEvent extends CompilationToolEvent {
+}
@@ -0,0 +1,16 @@
+package org.sheedon.compilationtool.retrieval.trace.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 泛型检索，一次最外层 searchGenerics 调用
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/15 4:30 下午
+ */
+@Name("org.sheedon.compilationtool.Retrieval")
+@Label("Generics Retrieval")
+final class RetrievalEvent extends CompilationToolEvent {
+}
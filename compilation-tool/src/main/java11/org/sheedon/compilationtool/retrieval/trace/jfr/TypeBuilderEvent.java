@@ -0,0 +1,16 @@
+package org.sheedon.compilationtool.retrieval.trace.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * TypeBuilder 构造，父类/接口的构造各自记录
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/15 4:30 下午
+ */
+@Name("org.sheedon.compilationtool.TypeBuilder")
+@Label("Type Builder Construction")
+final class TypeBuilderEvent extends CompilationToolEvent {
+}
@@ -0,0 +1,221 @@
+package org.sheedon.compilationtool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * 测试用的内存编译：源码与输出均在内存中，
+ * 可取得 class 文件内容，或在每一轮处理中执行回调
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 10:20 上午
+ */
+public class InMemoryCompilation {
+
+    // 全类名 - 源码
+    private final Map<String, String> sources = new LinkedHashMap<>();
+
+    /**
+     * 添加源码
+     *
+     * @param qualifiedName 顶层类全类名
+     * @param content       源码
+     */
+    public InMemoryCompilation source(String qualifiedName, String content) {
+        sources.put(qualifiedName, content);
+        return this;
+    }
+
+    /**
+     * 编译源码
+     *
+     * @return 二进制名 - class 文件内容
+     */
+    public Map<String, byte[]> compile() {
+        MemoryFileManager fileManager = run(Collections.<String>emptyList(), null);
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> entry : fileManager.classes.entrySet()) {
+            classes.put(entry.getKey(), entry.getValue().toByteArray());
+        }
+        return classes;
+    }
+
+    /**
+     * 只执行注解处理（-proc:only），每一轮调用一次回调，回调中的异常在编译结束后抛出
+     *
+     * @param callback 回调
+     */
+    public void process(RoundCallback callback) {
+        CallbackProcessor processor = new CallbackProcessor(callback);
+        run(Collections.singletonList("-proc:only"), processor);
+        if (processor.failure instanceof RuntimeException) {
+            throw (RuntimeException) processor.failure;
+        }
+        if (processor.failure instanceof Error) {
+            throw (Error) processor.failure;
+        }
+        if (processor.failure != null) {
+            throw new IllegalStateException(processor.failure);
+        }
+    }
+
+    private MemoryFileManager run(List<String> extraOptions, CallbackProcessor processor) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("system java compiler not found, run the tests on a JDK");
+        }
+
+        List<JavaFileObject> units = new ArrayList<>(sources.size());
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            units.add(new SourceFile(entry.getKey(), entry.getValue()));
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null, null);
+        MemoryFileManager fileManager = new MemoryFileManager(standardManager);
+        List<String> options = new ArrayList<>(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+        options.addAll(extraOptions);
+
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, units);
+        task.setProcessors(processor == null
+                ? Collections.<javax.annotation.processing.Processor>emptyList()
+                : Collections.singletonList(processor));
+        boolean success = task.call();
+        if (!success && (processor == null || processor.failure == null)) {
+            StringBuilder builder = new StringBuilder("compilation failed");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    builder.append('\n').append(diagnostic);
+                }
+            }
+            throw new AssertionError(builder.toString());
+        }
+        return fileManager;
+    }
+
+    /**
+     * 每一轮处理的回调
+     */
+    public interface RoundCallback {
+
+        void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) throws Exception;
+    }
+
+    private static class CallbackProcessor extends AbstractProcessor {
+
+        private final RoundCallback callback;
+        private Throwable failure;
+
+        CallbackProcessor(RoundCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return Collections.singleton("*");
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            if (failure != null) {
+                return false;
+            }
+            try {
+                callback.process(processingEnv, roundEnv);
+            } catch (Throwable e) {
+                failure = e;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 内存中的源码文件，生成的源码写入后可被下一轮读取
+     */
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private String content;
+
+        SourceFile(String qualifiedName, String content) {
+            super(URI.create("string:///" + qualifiedName.replace('.', '/') + Kind.SOURCE.extension),
+                    Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+
+        @Override
+        public Writer openWriter() {
+            return new StringWriter() {
+                @Override
+                public void close() {
+                    content = toString();
+                }
+            };
+        }
+    }
+
+    /**
+     * class 文件写入内存，生成的源码保存在内存中
+     */
+    private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        // 二进制名 - class 文件内容
+        private final Map<String, ByteArrayOutputStream> classes = new LinkedHashMap<>();
+
+        MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, final String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            if (kind == JavaFileObject.Kind.SOURCE) {
+                return new SourceFile(className, "");
+            }
+            return new SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/')
+                    + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                    classes.put(className, outputStream);
+                    return outputStream;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.sheedon.compilationtool;
+
+import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
+import org.sheedon.compilationtool.retrieval.core.IRetrieval;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * 测试用的检索者，目标类泛型按名称记录，过滤 java. 包
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 10:40 上午
+ */
+public class TestRetrieval extends IRetrieval.AbstractRetrieval {
+
+    private final String canonicalName;
+    // 目标类泛型名称
+    private final List<String> typeNames;
+    private final Set<String> packages = new HashSet<>(Collections.singleton("java."));
+
+    public TestRetrieval(String canonicalName, String... typeNames) {
+        this.canonicalName = canonicalName;
+        this.typeNames = Arrays.asList(typeNames);
+    }
+
+    @Override
+    public String canonicalName() {
+        return canonicalName;
+    }
+
+    @Override
+    public Set<String> filterablePackages() {
+        return packages;
+    }
+
+    @Override
+    public IGenericsRecord genericsRecord() {
+        return new Record(typeNames);
+    }
+
+    /**
+     * 按目标类泛型顺序列出实际类型
+     *
+     * @param record    泛型记录
+     * @param typeNames 目标类泛型名称
+     * @return 实际类型的字符串形式，未绑定为null
+     */
+    public static List<String> bindings(IGenericsRecord record, String... typeNames) {
+        String[] result = new String[typeNames.length];
+        for (int index = 0; index < result.length; index++) {
+            TypeMirror mirror = record.get(typeNames[index]);
+            result[index] = mirror == null ? null : mirror.toString();
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * 按名称记录的泛型记录
+     */
+    private static class Record implements IGenericsRecord {
+
+        private final List<String> typeNames;
+        private Map<String, TypeMirror> mirrors = new LinkedHashMap<>();
+
+        Record(List<String> typeNames) {
+            this.typeNames = typeNames;
+        }
+
+        @Override
+        public void put(String typeName, TypeMirror typeMirror) {
+            if (typeNames.contains(typeName)) {
+                mirrors.put(typeName, typeMirror);
+            }
+        }
+
+        @Override
+        public TypeMirror get(String typeName) {
+            return mirrors.get(typeName);
+        }
+
+        @Override
+        public boolean isCompeted() {
+            return mirrors.size() == typeNames.size();
+        }
+
+        @Override
+        public IGenericsRecord clone() {
+            Record record = new Record(typeNames);
+            record.mirrors = new LinkedHashMap<>(mirrors);
+            return record;
+        }
+
+        @Override
+        public String toString() {
+            return mirrors.toString();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.sheedon.compilationtool.builder;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 继承成员视图测试：覆盖与私有成员过滤、包私有方法的可见性、父类型视图及签名桶共用
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 3:50 下午
+ */
+public class InheritedMembersTest {
+
+    /**
+     * 成员名称，不含 Object 的方法
+     */
+    private static List<String> names(List<? extends Element> members) {
+        List<String> names = new ArrayList<>();
+        for (Element member : members) {
+            if (member.getEnclosingElement().getSimpleName().contentEquals("Object")) {
+                continue;
+            }
+            names.add(member.getEnclosingElement().getSimpleName() + "." + member.getSimpleName());
+        }
+        return names;
+    }
+
+    /**
+     * 成员名称排序后，自身声明的成员在前
+     */
+    private static List<String> sortedNames(List<? extends Element> members, int declared) {
+        List<String> names = names(members);
+        Collections.sort(names.subList(declared, names.size()));
+        return names;
+    }
+
+    private static ExecutableElement method(Elements elements, String type, String name) {
+        TypeElement element = elements.getTypeElement(type);
+        for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(name)) {
+                return method;
+            }
+        }
+        throw new AssertionError("method not found: " + type + "." + name);
+    }
+
+    @Test
+    public void overriddenAndPrivateMembersExcluded() {
+        MemberSamples.sample()
+                .source("m.Fields", "package m;\n"
+                        + "class Top { int shared; private int hidden; }\n"
+                        + "class Bottom extends Top { private int own; }\n")
+                .process(new InMemoryCompilation.RoundCallback() {
+                    @Override
+                    public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                        if (roundEnv.processingOver()) {
+                            return;
+                        }
+                        Elements elements = processingEnv.getElementUtils();
+                        InheritedMembers members = new InheritedMembers(processingEnv.getTypeUtils());
+
+                        // Base.set 被 B.set 覆盖，Base.run 被 B.run 实现，I.m 由父类继承的 Base.m 实现，
+                        // I.d 被 J.d 覆盖，静态方法 Base.st 不被 C.st 覆盖，私有方法 Base.priv 不被继承
+                        MemberView view = members.of(elements.getTypeElement("m.C"));
+                        assertEquals(Arrays.asList("C.x", "C.priv", "C.st", "B.run", "B.set",
+                                "Base.m", "Base.pkg", "Base.st", "J.d"), sortedNames(view.getAllMethods(), 3));
+
+                        MemberView bottom = members.of(elements.getTypeElement("m.Bottom"));
+                        assertEquals(Arrays.asList("Bottom.own", "Top.shared"), names(bottom.getAllFields()));
+                    }
+                });
+    }
+
+    @Test
+    public void packagePrivateMethodsOnlyOverriddenInSamePackage() {
+        MemberSamples.sample().process(new InMemoryCompilation.RoundCallback() {
+            @Override
+            public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                if (roundEnv.processingOver()) {
+                    return;
+                }
+                Elements elements = processingEnv.getElementUtils();
+                InheritedMembers members = new InheritedMembers(processingEnv.getTypeUtils());
+                ExecutableElement baseHook = method(elements, "a.Base", "hook");
+
+                // 其他包的 b.Sub.hook() 不覆盖包私有的 a.Base.hook()，受保护方法照常覆盖
+                MemberView sub = members.of(elements.getTypeElement("b.Sub"));
+                assertEquals(Arrays.asList("Sub.hook", "Sub.shared", "Base.hook"),
+                        sortedNames(sub.getAllMethods(), 2));
+                assertEquals(false, members.overrides(method(elements, "b.Sub", "hook"), baseHook));
+                assertEquals(true, members.overrides(method(elements, "b.Sub", "shared"),
+                        method(elements, "a.Base", "shared")));
+
+                // 同包的 a.Local.hook() 覆盖 a.Base.hook()
+                MemberView local = members.of(elements.getTypeElement("a.Local"));
+                assertEquals(Arrays.asList("Local.hook", "Base.shared"), sortedNames(local.getAllMethods(), 1));
+
+                // a.Mid.hook() 覆盖 a.Base.hook()，b.Leaf.hook() 覆盖公开的 a.Mid.hook()
+                MemberView leaf = members.of(elements.getTypeElement("b.Leaf"));
+                assertEquals(Arrays.asList("Leaf.hook", "Base.shared"), sortedNames(leaf.getAllMethods(), 1));
+            }
+        });
+    }
+
+    @Test
+    public void parentViewsAreShared() {
+        MemberSamples.sample()
+                .source("m.D", "package m; class D extends B {}")
+                .process(new InMemoryCompilation.RoundCallback() {
+                    @Override
+                    public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                        if (roundEnv.processingOver()) {
+                            return;
+                        }
+                        Elements elements = processingEnv.getElementUtils();
+                        InheritedMembers members = new InheritedMembers(processingEnv.getTypeUtils());
+
+                        MemberView c = members.of(elements.getTypeElement("m.C"));
+                        MemberView d = members.of(elements.getTypeElement("m.D"));
+                        MemberView b = members.of(elements.getTypeElement("m.B"));
+                        assertSame(b, c.getParents().get(0));
+                        assertSame(b, d.getParents().get(0));
+                        assertSame(c, members.of(elements.getTypeElement("m.C")));
+                        // Object、Base、B、I、J、C、D 各一个视图
+                        assertEquals(7, members.size());
+                        assertSame(c.getAllMethods(), c.getAllMethods());
+                    }
+                });
+    }
+
+    @Test
+    public void subclassIndexesOnlyItsOwnSignatures() {
+        MemberSamples.sample()
+                .source("m.D", "package m; class D extends B {}")
+                .source("m.E", "package m; class E extends D { void run() {} }")
+                .process(new InMemoryCompilation.RoundCallback() {
+                    @Override
+                    public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                        if (roundEnv.processingOver()) {
+                            return;
+                        }
+                        Elements elements = processingEnv.getElementUtils();
+                        InheritedMembers members = new InheritedMembers(processingEnv.getTypeUtils());
+                        MemberView b = members.of(elements.getTypeElement("m.B"));
+                        MemberView d = members.of(elements.getTypeElement("m.D"));
+                        MemberView e = members.of(elements.getTypeElement("m.E"));
+                        ExecutableElement baseSet = method(elements, "m.Base", "set");
+
+                        // B 以 Integer 继承 Base<T>，Base.set(T) 在 B 上的签名为 set(java.lang.Integer)，
+                        // 原签名 set(java.lang.Object) 在 B 上不再有方法
+                        assertEquals("set(java.lang.Integer)", b.signatureOf(baseSet));
+                        assertEquals(Arrays.asList(method(elements, "m.B", "set"), baseSet),
+                                b.findBySignature("set(java.lang.Integer)"));
+                        assertEquals(Collections.<ExecutableElement>emptyList(),
+                                b.findBySignature("set(java.lang.Object)"));
+
+                        // 没有声明方法的子类不建立签名桶，签名沿父类视图查找
+                        assertEquals(0, d.ownSignatureCount());
+                        assertSame(b.findBySignature("set(java.lang.Integer)"),
+                                d.findBySignature("set(java.lang.Integer)"));
+                        assertEquals("set(java.lang.Integer)", d.signatureOf(baseSet));
+                        // 子类只为自身声明的方法建立签名桶
+                        assertEquals(1, e.ownSignatureCount());
+                        assertEquals(names(Arrays.asList(method(elements, "m.E", "run"),
+                                method(elements, "m.B", "run"), method(elements, "m.Base", "run"))),
+                                names(e.findBySignature("run()")));
+                    }
+                });
+    }
+}
@@ -0,0 +1,33 @@
+package org.sheedon.compilationtool.builder;
+
+import org.sheedon.compilationtool.InMemoryCompilation;
+
+/**
+ * 成员视图与方法签名索引测试共用的继承结构：
+ * 泛型父类的覆盖、接口默认方法、父类方法实现接口方法、私有与静态方法、跨包的包私有方法
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 3:10 下午
+ */
+final class MemberSamples {
+
+    private MemberSamples() {
+    }
+
+    static InMemoryCompilation sample() {
+        return new InMemoryCompilation().source("m.All", "package m;\n"
+                + "interface I { void m(); default void d() {} void x(String s); }\n"
+                + "interface J extends I { default void d() {} }\n"
+                + "abstract class Base<T> { public void set(T t) {} abstract void run(); void pkg() {}"
+                + " private void priv() {} static void st() {} public void m() {} }\n"
+                + "class B extends Base<Integer> { public void set(Integer v) {} void run() {} }\n"
+                + "class C extends B implements J { public void x(String s) {} void priv() {} static void st() {} }\n")
+                .source("a.Base", "package a;\n"
+                        + "public class Base { void hook() {} protected void shared() {} }\n"
+                        + "class Local extends Base { void hook() {} }\n")
+                .source("a.Mid", "package a; public class Mid extends Base { public void hook() {} }")
+                .source("b.Sub", "package b; public class Sub extends a.Base { void hook() {} protected void shared() {} }")
+                .source("b.Leaf", "package b; public class Leaf extends a.Mid { public void hook() {} }");
+    }
+}
@@ -0,0 +1,175 @@
+package org.sheedon.compilationtool.builder;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 方法签名索引测试，覆盖关系与 Elements.overrides 对照，子类共用父类型的签名桶
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 3:20 下午
+ */
+public class MethodSignatureIndexTest {
+
+    private static void collect(TypeBuilder builder, List<MethodBuilder> methods, Set<TypeElement> visited) {
+        if (!visited.add(builder.getElement())) {
+            return;
+        }
+        methods.addAll(builder.getMethodBuilders());
+        if (builder.getSuperTypeBuilder() != null) {
+            collect(builder.getSuperTypeBuilder(), methods, visited);
+        }
+        for (TypeBuilder interfaceBuilder : builder.getInterfaceBuilders()) {
+            collect(interfaceBuilder, methods, visited);
+        }
+    }
+
+    private static MethodBuilder find(List<MethodBuilder> methods, String type, String name) {
+        for (MethodBuilder method : methods) {
+            if (method.getTypeBuilder().getSimpleName().equals(type) && method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new AssertionError("method not found: " + type + "." + name);
+    }
+
+    @Test
+    public void overridesMatchElements() {
+        MemberSamples.sample().process(new InMemoryCompilation.RoundCallback() {
+            @Override
+            public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                if (roundEnv.processingOver()) {
+                    return;
+                }
+                Elements elements = processingEnv.getElementUtils();
+                Types types = processingEnv.getTypeUtils();
+                TypeBuilder builder = new TypeBuilder(elements.getTypeElement("m.C"), types);
+                MethodSignatureIndex index = builder.getMethodSignatureIndex();
+                List<MethodBuilder> methods = new ArrayList<>();
+                collect(builder, methods, new HashSet<TypeElement>());
+
+                List<String> mismatches = new ArrayList<>();
+                for (MethodBuilder overrider : methods) {
+                    for (MethodBuilder overridden : methods) {
+                        if (overrider == overridden
+                                || overrider.getElement().getKind() != ElementKind.METHOD
+                                || overridden.getElement().getKind() != ElementKind.METHOD) {
+                            continue;
+                        }
+                        TypeElement overriderType = overrider.getTypeBuilder().getElement();
+                        TypeElement overriddenType = overridden.getTypeBuilder().getElement();
+                        boolean expected = elements.overrides(overrider.getElement(), overridden.getElement(), overriderType)
+                                && types.isSubtype(types.erasure(overriderType.asType()),
+                                types.erasure(overriddenType.asType()));
+                        if (expected != index.overriddenBy(overrider).contains(overridden)) {
+                            mismatches.add(overriderType.getSimpleName() + "." + overrider.getName() + " -> "
+                                    + overriddenType.getSimpleName() + "." + overridden.getName());
+                        }
+                    }
+                }
+                assertEquals(Collections.<String>emptyList(), mismatches);
+            }
+        });
+    }
+
+    @Test
+    public void genericParameterOverride() {
+        MemberSamples.sample().process(new InMemoryCompilation.RoundCallback() {
+            @Override
+            public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                if (roundEnv.processingOver()) {
+                    return;
+                }
+                TypeBuilder builder = new TypeBuilder(
+                        processingEnv.getElementUtils().getTypeElement("m.C"), processingEnv.getTypeUtils());
+                MethodSignatureIndex index = builder.getMethodSignatureIndex();
+                List<MethodBuilder> methods = new ArrayList<>();
+                collect(builder, methods, new HashSet<TypeElement>());
+
+                // Base<T>.set(T) 在 C 上的签名为 set(Integer)，被 B.set(Integer) 覆盖
+                MethodBuilder baseSet = find(methods, "Base", "set");
+                MethodBuilder subSet = find(methods, "B", "set");
+                assertEquals(index.getSignature(subSet), index.getSignature(baseSet));
+                assertEquals(Collections.singletonList(subSet), index.overridesOf(baseSet));
+                assertSame(subSet, index.implementationOf(baseSet));
+            }
+        });
+    }
+
+    @Test
+    public void implementationPrefersClassChain() {
+        MemberSamples.sample().process(new InMemoryCompilation.RoundCallback() {
+            @Override
+            public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                if (roundEnv.processingOver()) {
+                    return;
+                }
+                TypeBuilder builder = new TypeBuilder(
+                        processingEnv.getElementUtils().getTypeElement("m.C"), processingEnv.getTypeUtils());
+                MethodSignatureIndex index = builder.getMethodSignatureIndex();
+                List<MethodBuilder> methods = new ArrayList<>();
+                collect(builder, methods, new HashSet<TypeElement>());
+
+                // 父类继承的 Base.m() 实现接口 I.m()
+                assertSame(find(methods, "Base", "m"), index.implementationOf(find(methods, "I", "m")));
+                // J.d() 覆盖 I.d()
+                assertSame(find(methods, "J", "d"), index.implementationOf(find(methods, "I", "d")));
+                assertSame(find(methods, "C", "x"), index.implementationOf(find(methods, "I", "x")));
+                // 私有方法与静态方法不参与覆盖
+                assertEquals(Collections.<MethodBuilder>emptyList(), index.overriddenBy(find(methods, "C", "priv")));
+                assertEquals(Collections.<MethodBuilder>emptyList(), index.overriddenBy(find(methods, "C", "st")));
+                assertSame(find(methods, "B", "run"), index.implementationOf(find(methods, "Base", "run")));
+            }
+        });
+    }
+
+    @Test
+    public void subclassesShareParentBuckets() {
+        MemberSamples.sample()
+                .source("m.D", "package m; class D extends B {}")
+                .process(new InMemoryCompilation.RoundCallback() {
+                    @Override
+                    public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                        if (roundEnv.processingOver()) {
+                            return;
+                        }
+                        Elements elements = processingEnv.getElementUtils();
+                        Types types = processingEnv.getTypeUtils();
+                        MemberTypeResolver resolver = new MemberTypeResolver(types);
+                        TypeBuilder c = new TypeBuilder(elements.getTypeElement("m.C"), types, resolver);
+                        TypeBuilder d = new TypeBuilder(elements.getTypeElement("m.D"), types, resolver);
+                        MethodSignatureIndex cIndex = c.getMethodSignatureIndex();
+                        MethodSignatureIndex dIndex = d.getMethodSignatureIndex();
+
+                        // 两个子类的索引查到同一个父类型构造者中的方法，签名桶取自共用的 B 视图
+                        MethodBuilder subSet = find(c.getSuperTypeBuilder().getMethodBuilders(), "B", "set");
+                        assertSame(c.getSuperTypeBuilder(), d.getSuperTypeBuilder());
+                        assertEquals(cIndex.getSignature(subSet), dIndex.getSignature(subSet));
+                        assertEquals(cIndex.findBySignature("set(java.lang.Integer)"),
+                                dIndex.findBySignature("set(java.lang.Integer)"));
+                        assertSame(subSet, dIndex.findBySignature("set(java.lang.Integer)").get(0));
+                        InheritedMembers members = resolver.getInheritedMembers();
+                        assertSame(members.of(elements.getTypeElement("m.B")),
+                                members.of(elements.getTypeElement("m.D")).getBase());
+                        assertEquals(0, members.of(elements.getTypeElement("m.D")).ownSignatureCount());
+                    }
+                });
+    }
+}
@@ -0,0 +1,91 @@
+package org.sheedon.compilationtool.fingerprint;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+import org.sheedon.compilationtool.builder.TypeBuilder;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * 指纹测试：相同输入在不同编译中一致，成员顺序、注解值、父类声明、父类型泛型实参变化时改变
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 4:20 下午
+ */
+public class FingerprintsTest {
+
+    private static final String TAG = "package f;\n"
+            + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.CLASS)\n"
+            + "public @interface Tag { String value(); }";
+    private static final String PARENT = "package f; public class Parent<T> { protected T value; }";
+    private static final String MARKER = "package f; public interface Marker<T> {}";
+    private static final String MODEL = "package f;\n"
+            + "@Tag(\"model\")\n"
+            + "public class Model extends Parent<String> implements Comparable<Model>, Marker<String> {\n"
+            + "    private int age;\n"
+            + "    @Tag(\"name\") private String name;\n"
+            + "    public int compareTo(Model o) { return 0; }\n"
+            + "}";
+
+    private static String fingerprint(String parent, String model) {
+        final String[] result = new String[1];
+        new InMemoryCompilation()
+                .source("f.Tag", TAG)
+                .source("f.Parent", parent)
+                .source("f.Marker", MARKER)
+                .source("f.Model", model)
+                .process(new InMemoryCompilation.RoundCallback() {
+                    @Override
+                    public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                        if (!roundEnv.processingOver()) {
+                            result[0] = Fingerprints.ofType(new TypeBuilder(
+                                    processingEnv.getElementUtils().getTypeElement("f.Model"),
+                                    processingEnv.getTypeUtils()));
+                        }
+                    }
+                });
+        return result[0];
+    }
+
+    @Test
+    public void stableAcrossCompilations() {
+        String fingerprint = fingerprint(PARENT, MODEL);
+        assertEquals(64, fingerprint.length());
+        assertEquals(fingerprint, fingerprint(PARENT, MODEL));
+    }
+
+    @Test
+    public void memberOrderChangesFingerprint() {
+        String reordered = MODEL.replace("    private int age;\n    @Tag(\"name\") private String name;\n",
+                "    @Tag(\"name\") private String name;\n    private int age;\n");
+        assertNotEquals(MODEL, reordered);
+        assertNotEquals(fingerprint(PARENT, MODEL), fingerprint(PARENT, reordered));
+    }
+
+    @Test
+    public void annotationValueChangesFingerprint() {
+        assertNotEquals(fingerprint(PARENT, MODEL),
+                fingerprint(PARENT, MODEL.replace("@Tag(\"name\")", "@Tag(\"title\")")));
+        assertNotEquals(fingerprint(PARENT, MODEL),
+                fingerprint(PARENT, MODEL.replace("@Tag(\"model\")", "@Tag(\"entity\")")));
+    }
+
+    @Test
+    public void parentDeclarationChangesFingerprint() {
+        assertNotEquals(fingerprint(PARENT, MODEL),
+                fingerprint(PARENT.replace("protected T value;", "protected T value; protected int count;"), MODEL));
+    }
+
+    @Test
+    public void supertypeArgumentsChangeFingerprint() {
+        assertNotEquals(fingerprint(PARENT, MODEL),
+                fingerprint(PARENT, MODEL.replace("extends Parent<String>", "extends Parent<Integer>")));
+        assertNotEquals(fingerprint(PARENT, MODEL),
+                fingerprint(PARENT, MODEL.replace("Marker<String>", "Marker<Long>")));
+    }
+}
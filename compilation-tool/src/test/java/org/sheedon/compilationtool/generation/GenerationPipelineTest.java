@@ -0,0 +1,386 @@
+package org.sheedon.compilationtool.generation;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.FilerException;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 生成文件流水线测试：按提交顺序写入、渲染失败的传递、渲染线程的创建与关闭，
+ * 以及聚合模式下类型声明的识别、static 的补充与重名检查
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 6:20 下午
+ */
+public class GenerationPipelineTest {
+
+    private static Callable<CharSequence> render(final String content) {
+        return new Callable<CharSequence>() {
+            @Override
+            public CharSequence call() {
+                return content;
+            }
+        };
+    }
+
+    @Test
+    public void writesInSubmissionOrder() throws Exception {
+        RecordingFiler filer = new RecordingFiler();
+        final CountDownLatch lastRendered = new CountDownLatch(1);
+        GenerationPipeline pipeline = new GenerationPipeline(filer, 3);
+
+        // 第一个任务等待最后一个任务渲染完成，渲染完成顺序与提交顺序相反
+        pipeline.submit("a.First", new Callable<CharSequence>() {
+            @Override
+            public CharSequence call() throws Exception {
+                assertTrue(lastRendered.await(10, TimeUnit.SECONDS));
+                return "first";
+            }
+        });
+        pipeline.submit("a.Second", render("second"));
+        pipeline.submit("a.Third", new Callable<CharSequence>() {
+            @Override
+            public CharSequence call() {
+                lastRendered.countDown();
+                return "third";
+            }
+        });
+        assertEquals(3, pipeline.pendingCount());
+
+        assertEquals(3, pipeline.flush());
+        assertEquals(0, pipeline.pendingCount());
+        assertEquals(Arrays.asList("a.First", "a.Second", "a.Third"), new ArrayList<>(filer.sources.keySet()));
+        assertEquals("first", filer.sources.get("a.First"));
+        assertEquals("third", filer.sources.get("a.Third"));
+    }
+
+    @Test
+    public void passesOriginatingElements() throws Exception {
+        RecordingFiler filer = new RecordingFiler();
+        GenerationPipeline pipeline = new GenerationPipeline(filer, 1);
+        Element element = (Element) Proxy.newProxyInstance(Element.class.getClassLoader(),
+                new Class<?>[]{Element.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("equals")) {
+                            return proxy == args[0];
+                        }
+                        return method.getName().equals("hashCode") ? System.identityHashCode(proxy) : null;
+                    }
+                });
+
+        pipeline.submit("a.Origin", render("origin"), element);
+        pipeline.flush();
+        assertEquals(1, filer.elements.get("a.Origin").length);
+        assertSame(element, filer.elements.get("a.Origin")[0]);
+    }
+
+    @Test
+    public void renderFailureSkipsOnlyThatType() throws Exception {
+        RecordingFiler filer = new RecordingFiler();
+        GenerationPipeline pipeline = new GenerationPipeline(filer, 2);
+        final IllegalStateException cause = new IllegalStateException("broken");
+
+        pipeline.submit("a.Before", render("before"));
+        pipeline.submit("a.Broken", new Callable<CharSequence>() {
+            @Override
+            public CharSequence call() {
+                throw cause;
+            }
+        });
+        pipeline.submit("a.Empty", render(null));
+        pipeline.submit("a.After", render("after"));
+
+        try {
+            pipeline.flush();
+            fail("render failure was not reported");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("a.Broken"));
+            assertSame(cause, e.getCause());
+            assertEquals(1, e.getSuppressed().length);
+            assertTrue(e.getSuppressed()[0].getMessage().contains("a.Empty"));
+        }
+        assertEquals(Arrays.asList("a.Before", "a.After"), new ArrayList<>(filer.sources.keySet()));
+        assertEquals(0, pipeline.pendingCount());
+    }
+
+    @Test
+    public void writeFailureKeepsLaterWrites() throws Exception {
+        RecordingFiler filer = new RecordingFiler();
+        filer.rejected = "a.Rejected";
+        GenerationPipeline pipeline = new GenerationPipeline(filer, 1);
+
+        pipeline.submit("a.Rejected", render("rejected"));
+        pipeline.submit("a.Accepted", render("accepted"));
+        try {
+            pipeline.flush();
+            fail("write failure was not reported");
+        } catch (FilerException e) {
+            assertTrue(e.getMessage().contains("a.Rejected"));
+        }
+        assertEquals(Arrays.asList("a.Accepted"), new ArrayList<>(filer.sources.keySet()));
+    }
+
+    @Test
+    public void duplicateNameRejectedOnSubmit() {
+        GenerationPipeline pipeline = new GenerationPipeline(new RecordingFiler(), 1);
+        pipeline.submit("a.Same", render("same"));
+        try {
+            pipeline.submit("a.Same", render("again"));
+            fail("duplicate name was accepted");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(1, pipeline.pendingCount());
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void renderThreadsLiveOnlyWhileWorkIsPending() throws Exception {
+        int before = renderThreads();
+        GenerationPipeline pipeline = new GenerationPipeline(new RecordingFiler(), 2);
+        assertEquals(before, renderThreads());
+        // 无任务时写入不创建线程
+        assertEquals(0, pipeline.flush());
+        assertEquals(before, renderThreads());
+
+        final Thread[] renderers = new Thread[2];
+        pipeline.submit("a.One", new Callable<CharSequence>() {
+            @Override
+            public CharSequence call() {
+                renderers[0] = Thread.currentThread();
+                return "one";
+            }
+        });
+        pipeline.flush();
+        assertTrue(renderers[0].isDaemon());
+        assertTrue(renderers[0].getName().startsWith("compilationtool-render-"));
+        renderers[0].join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(renderers[0].isAlive());
+
+        // 下一轮提交时重新创建线程
+        pipeline.submit("a.Two", new Callable<CharSequence>() {
+            @Override
+            public CharSequence call() {
+                renderers[1] = Thread.currentThread();
+                return "two";
+            }
+        });
+        pipeline.flush();
+        assertNotSame(renderers[0], renderers[1]);
+        renderers[1].join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(renderers[1].isAlive());
+    }
+
+    @Test
+    public void aggregatedClassesBecomeStatic() throws Exception {
+        RecordingFiler filer = new RecordingFiler();
+        GenerationPipeline pipeline = new GenerationPipeline(filer, 2,
+                GenerationPipeline.OutputMode.PER_PACKAGE, "Routers");
+
+        // Javadoc 与注释中的关键字、注解参数中的括号和字符串不影响修饰符的位置
+        pipeline.submit("a.A", render("/** Routes for {@code class} A. */\n@Deprecated\npublic final class A {\n}"));
+        pipeline.submit("a.B", render("@SuppressWarnings(value = {\"unchecked\", \"class(\"})\n"
+                + "public abstract class B {}"));
+        pipeline.submit("a.C", render("// interface enum class\nclass C implements Runnable { public void run() {} }"));
+        pipeline.submit("a.D", render("@Deprecated final class D {}"));
+        pipeline.submit("a.E", render("protected final class E {}"));
+        // 已声明 static 的类，以及接口、枚举、注解，原样写入
+        pipeline.submit("a.F", render("public static class F {}"));
+        pipeline.submit("a.G", render("public interface G { class Inner {} }"));
+        pipeline.submit("a.H", render("public enum H { X, Y }"));
+        assertEquals("a.Routers.I", pipeline.submit("a.I", render("public @interface I {}")));
+
+        assertEquals(1, pipeline.flush());
+        String unit = filer.sources.get("a.Routers");
+        assertTrue(unit.startsWith("package a;\n\npublic final class Routers {\n"));
+        for (String declaration : Arrays.asList("public static final class A {", "public static abstract class B {}",
+                "static class C implements Runnable", "@Deprecated static final class D {}",
+                "protected static final class E {}", "public static class F {}",
+                "public interface G { class Inner {} }", "public enum H { X, Y }", "public @interface I {}")) {
+            assertTrue(declaration, unit.contains("\n    " + declaration));
+        }
+        assertTrue(unit.contains("\n    /** Routes for {@code class} A. */\n    @Deprecated\n"));
+
+        // 写入的编译单元可以编译
+        new InMemoryCompilation().source("a.Routers", unit).compile();
+    }
+
+    @Test
+    public void aggregatedRenderMustReturnDeclaration() throws Exception {
+        RecordingFiler filer = new RecordingFiler();
+        GenerationPipeline pipeline = new GenerationPipeline(filer, 1,
+                GenerationPipeline.OutputMode.PER_PACKAGE, "Routers");
+        pipeline.submit("a.Field", render("private int value = 1;"));
+        pipeline.submit("a.Valid", render("public class Valid {}"));
+        try {
+            pipeline.flush();
+            fail("non-declaration was accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("a.Field"));
+        }
+        assertTrue(filer.sources.get("a.Routers").contains("public static class Valid {}"));
+        assertFalse(filer.sources.get("a.Routers").contains("value"));
+    }
+
+    @Test
+    public void aggregatedNamesMustBeUnique() {
+        GenerationPipeline packageUnits = new GenerationPipeline(new RecordingFiler(), 1,
+                GenerationPipeline.OutputMode.PER_PACKAGE, "Routers");
+        packageUnits.submit("a.Route", render("class Route {}"));
+        try {
+            // 不同包中同名的类型写入不同的编译单元，不冲突
+            assertEquals("b.Routers.Route", packageUnits.submit("b.Route", render("class Route {}")));
+            // 与编译单元同名
+            packageUnits.submit("a.Routers", render("class Routers {}"));
+            fail("type named after its unit was accepted");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(2, packageUnits.pendingCount());
+        } finally {
+            packageUnits.close();
+        }
+
+        GenerationPipeline targetUnits = new GenerationPipeline(new RecordingFiler(), 1,
+                GenerationPipeline.OutputMode.PER_TARGET, "$$Routers");
+        assertEquals("a.Main$$Routers.Route", targetUnits.submit("a.Main", "a.Route", render("class Route {}")));
+        assertEquals("a.Main$$Routers.Other", targetUnits.generatedName("a.Main", "x.Other"));
+        try {
+            targetUnits.submit("a.Main", "x.Main$$Routers", render("class Main$$Routers {}"));
+            fail("type named after its unit was accepted");
+        } catch (IllegalArgumentException expected) {
+            // 期望抛出
+        }
+        try {
+            targetUnits.submit("a.Main", "x.Route", render("class Route {}"));
+            fail("duplicate nested name was accepted");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(1, targetUnits.pendingCount());
+        } finally {
+            targetUnits.close();
+        }
+    }
+
+    @Test
+    public void closeCancelsPendingRenders() throws Exception {
+        RecordingFiler filer = new RecordingFiler();
+        GenerationPipeline pipeline = new GenerationPipeline(filer, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        pipeline.submit("a.Blocked", new Callable<CharSequence>() {
+            @Override
+            public CharSequence call() {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return "blocked";
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        pipeline.close();
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertEquals(0, pipeline.pendingCount());
+        assertEquals(0, pipeline.flush());
+        assertTrue(filer.sources.isEmpty());
+        // 可重复调用
+        pipeline.close();
+    }
+
+    /**
+     * 存活的渲染线程数
+     */
+    private static int renderThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("compilationtool-render-")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 记录写入内容的 Filer，只支持 createSourceFile，并检查调用线程始终相同
+     */
+    static class RecordingFiler implements Filer {
+
+        // 全类名 - 源码，按写入顺序
+        final Map<String, String> sources = new LinkedHashMap<>();
+        // 全类名 - 来源元素
+        final Map<String, Element[]> elements = new LinkedHashMap<>();
+        // 拒绝写入的全类名
+        String rejected;
+        private final Thread owner = Thread.currentThread();
+
+        @Override
+        public JavaFileObject createSourceFile(final CharSequence name, Element... originatingElements)
+                throws IOException {
+            assertSame(owner, Thread.currentThread());
+            if (name.toString().equals(rejected)) {
+                throw new FilerException("rejected " + name);
+            }
+            elements.put(name.toString(), originatingElements);
+            return new SimpleJavaFileObject(URI.create("memory:///" + name.toString().replace('.', '/')
+                    + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public Writer openWriter() {
+                    return new StringWriter() {
+                        @Override
+                        public void close() {
+                            sources.put(name.toString(), toString());
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileObject createResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+                                         CharSequence relativeName, Element... originatingElements) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileObject getResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+                                      CharSequence relativeName) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
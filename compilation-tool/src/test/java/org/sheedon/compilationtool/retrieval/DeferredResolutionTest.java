@@ -0,0 +1,82 @@
+package org.sheedon.compilationtool.retrieval;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+import org.sheedon.compilationtool.TestRetrieval;
+import org.sheedon.compilationtool.retrieval.core.GenericsSlot;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 延迟检索测试：父类尚未生成时延迟，生成后的一轮释放并重新检索
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 2:30 下午
+ */
+public class DeferredResolutionTest {
+
+    @Test
+    public void generatedSupertypeIsDeferred() {
+        final ClassGenericsRetrieval[] holder = new ClassGenericsRetrieval[1];
+        final TestRetrieval config = new TestRetrieval(RetrievalSamples.TARGET_CLASS, RetrievalSamples.TYPE_NAMES);
+        final List<String> released = new ArrayList<>();
+        RetrievalSamples.sample()
+                .source("d.Test8", "package d; public class Test8 extends GenBase<Long, Integer> {}")
+                .source("d.Test9", "package d; public class Test9 extends Test8 {}")
+                .process(new InMemoryCompilation.RoundCallback() {
+                    @Override
+                    public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv)
+                            throws Exception {
+                        Types types = processingEnv.getTypeUtils();
+                        if (holder[0] == null) {
+                            config.bindTargetElement(processingEnv.getElementUtils().getTypeElement(RetrievalSamples.TARGET_CLASS));
+                            holder[0] = new ClassGenericsRetrieval(config);
+                        }
+                        ClassGenericsRetrieval retrieval = holder[0];
+                        TypeElement test9 = processingEnv.getElementUtils().getTypeElement("d.Test9");
+
+                        for (TypeElement element : retrieval.releaseDeferred(roundEnv, processingEnv.getElementUtils())) {
+                            released.add(element.getQualifiedName().toString());
+                        }
+
+                        if (processingEnv.getElementUtils().getTypeElement("d.GenBase") == null) {
+                            // 第一轮：父类尚未生成，检索延迟
+                            retrieval.searchGenerics(test9, types);
+                            assertTrue(config.deferredResolution().isParked("d.Test9"));
+                            assertTrue(config.deferredResolution().isParked("d.Test8"));
+                            // 延迟期间的单泛型检索不做记录
+                            assertEquals(GenericsSlot.Kind.UNREACHABLE, retrieval.searchSlot(test9, 0, types).getKind());
+                            assertNull(config.retrievalSlotMap().get("d.Test9"));
+
+                            Writer writer = processingEnv.getFiler().createSourceFile("d.GenBase").openWriter();
+                            try {
+                                writer.write("package d; public class GenBase<A, B> extends t.Test3<A, String, B> {}");
+                            } finally {
+                                writer.close();
+                            }
+                        } else if (!roundEnv.processingOver() && released.size() > 0) {
+                            // 生成后的一轮：释放并重新检索
+                            assertEquals(Arrays.asList("java.util.List<java.lang.String>", "java.lang.String"),
+                                    RetrievalSamples.bindings(retrieval, processingEnv, "d.Test9"));
+                            assertTrue(config.deferredResolution().isEmpty());
+                        }
+                    }
+                });
+        Collections.sort(released);
+        assertEquals(Arrays.asList("d.Test8", "d.Test9"), released);
+    }
+}
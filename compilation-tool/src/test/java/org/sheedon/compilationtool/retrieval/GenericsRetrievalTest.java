@@ -0,0 +1,76 @@
+package org.sheedon.compilationtool.retrieval;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+import org.sheedon.compilationtool.TestRetrieval;
+import org.sheedon.compilationtool.retrieval.core.AbstractGenericsRetrieval;
+import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 类/接口泛型检索测试：检索结果与跨层级的坐标组合
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 2:10 下午
+ */
+public class GenericsRetrievalTest {
+
+    @Test
+    public void classRetrievalComposesThroughChain() {
+        RetrievalSamples.sample().process(new InMemoryCompilation.RoundCallback() {
+            @Override
+            public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                if (roundEnv.processingOver()) {
+                    return;
+                }
+                AbstractGenericsRetrieval retrieval = RetrievalSamples.retrieval(processingEnv, false);
+
+                assertEquals(Arrays.asList("java.util.List<java.lang.String>", "java.lang.String"),
+                        RetrievalSamples.bindings(retrieval, processingEnv, "t.Test4"));
+                assertEquals(Arrays.asList("java.lang.String", "java.lang.Integer"),
+                        RetrievalSamples.bindings(retrieval, processingEnv, "t.SwapLeaf"));
+
+                // Test2<T, K, M> 中 K 关联 RequestCard，ResponseModel 已绑定 String
+                RetrievalClassModel test2 = retrieval.searchGenerics(
+                        processingEnv.getElementUtils().getTypeElement("t.Test2"), processingEnv.getTypeUtils());
+                assertEquals(Collections.singleton(1), test2.getPositions());
+                assertEquals(0, test2.getTargetIndex(1));
+                assertEquals(-1, test2.getTargetIndex(0));
+                assertEquals(1, test2.getPositionByTargetIndex(0));
+                assertEquals(Arrays.asList(null, "java.lang.String"), TestRetrieval.bindings(test2.getRecord(), RetrievalSamples.TYPE_NAMES));
+
+                // Swap<A, B> 交换位置：A 关联 ResponseModel，B 关联 RequestCard
+                RetrievalClassModel swap = retrieval.searchGenerics(
+                        processingEnv.getElementUtils().getTypeElement("t.Swap"), processingEnv.getTypeUtils());
+                assertEquals(1, swap.getTargetIndex(0));
+                assertEquals(0, swap.getTargetIndex(1));
+            }
+        });
+    }
+
+    @Test
+    public void interfaceRetrievalFollowsInterfaces() {
+        RetrievalSamples.sample().process(new InMemoryCompilation.RoundCallback() {
+            @Override
+            public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                if (roundEnv.processingOver()) {
+                    return;
+                }
+                AbstractGenericsRetrieval retrieval = RetrievalSamples.retrieval(processingEnv, true);
+
+                assertEquals(Arrays.asList("java.lang.String", "java.lang.String"),
+                        RetrievalSamples.bindings(retrieval, processingEnv, "t.Test6"));
+                assertEquals(Arrays.asList("java.lang.Double", "java.lang.String"),
+                        RetrievalSamples.bindings(retrieval, processingEnv, "t.Test7"));
+            }
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package org.sheedon.compilationtool.retrieval;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+import org.sheedon.compilationtool.retrieval.core.AbstractGenericsRetrieval;
+import org.sheedon.compilationtool.retrieval.core.GenericsSlot;
+
+import java.util.List;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 单泛型检索测试：逐个检索与完整检索结果一致，检索结果的类型
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 2:20 下午
+ */
+public class GenericsSlotTest {
+
+    @Test
+    public void slotRetrievalMatchesFullRetrieval() {
+        RetrievalSamples.sample().process(new InMemoryCompilation.RoundCallback() {
+            @Override
+            public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                if (roundEnv.processingOver()) {
+                    return;
+                }
+                Types types = processingEnv.getTypeUtils();
+                for (boolean interfaceRetrieval : new boolean[]{false, true}) {
+                    AbstractGenericsRetrieval full = RetrievalSamples.retrieval(processingEnv, interfaceRetrieval);
+                    AbstractGenericsRetrieval slot = RetrievalSamples.retrieval(processingEnv, interfaceRetrieval);
+                    List<TypeElement> elements = RetrievalSamples.rootTypes(roundEnv);
+
+                    // 先只检索 ResponseModel，再检索 RequestCard，最后完整检索
+                    for (TypeElement element : elements) {
+                        slot.searchGenerics(element, RetrievalSamples.TYPE_NAMES[1], types);
+                        slot.searchGenerics(element, RetrievalSamples.TYPE_NAMES[0], types);
+                    }
+                    for (TypeElement element : elements) {
+                        String name = element.getQualifiedName().toString();
+                        assertEquals(name, RetrievalSamples.bindings(full, processingEnv, name), RetrievalSamples.bindings(slot, processingEnv, name));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void searchSlotReportsKind() {
+        RetrievalSamples.sample().process(new InMemoryCompilation.RoundCallback() {
+            @Override
+            public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                if (roundEnv.processingOver()) {
+                    return;
+                }
+                Types types = processingEnv.getTypeUtils();
+                AbstractGenericsRetrieval retrieval = RetrievalSamples.retrieval(processingEnv, false);
+                TypeElement test2 = processingEnv.getElementUtils().getTypeElement("t.Test2");
+                TypeElement test4 = processingEnv.getElementUtils().getTypeElement("t.Test4");
+                TypeElement test5 = processingEnv.getElementUtils().getTypeElement("t.Test5");
+
+                GenericsSlot bound = retrieval.searchSlot(test4, 0, types);
+                assertEquals(GenericsSlot.Kind.BOUND, bound.getKind());
+                assertEquals("java.util.List<java.lang.String>", bound.getMirror().toString());
+
+                GenericsSlot variable = retrieval.searchSlot(test2, 0, types);
+                assertEquals(GenericsSlot.Kind.VARIABLE, variable.getKind());
+                assertEquals(1, variable.getPosition());
+
+                assertEquals(GenericsSlot.Kind.UNREACHABLE, retrieval.searchSlot(test5, 1, types).getKind());
+
+                try {
+                    retrieval.searchSlot(test4, 2, types);
+                    fail("expected IllegalArgumentException");
+                } catch (IllegalArgumentException expected) {
+                    // 期望抛出
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package org.sheedon.compilationtool.retrieval;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+import org.sheedon.compilationtool.TestRetrieval;
+import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
+import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.TypeElement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 检索结果规范实例测试：绑定结果相同的类共用同一个不可变实例
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 2:40 下午
+ */
+public class RetrievalModelInternerTest {
+
+    @Test
+    public void sameShapeSharesInstance() {
+        RetrievalSamples.sample().process(new InMemoryCompilation.RoundCallback() {
+            @Override
+            public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv)
+                    throws Exception {
+                if (roundEnv.processingOver()) {
+                    return;
+                }
+                TestRetrieval config = new TestRetrieval(RetrievalSamples.TARGET_CLASS, RetrievalSamples.TYPE_NAMES);
+                config.bindTargetElement(processingEnv.getElementUtils().getTypeElement(RetrievalSamples.TARGET_CLASS));
+                ClassGenericsRetrieval retrieval = new ClassGenericsRetrieval(config);
+                for (TypeElement element : RetrievalSamples.rootTypes(roundEnv)) {
+                    retrieval.searchGenerics(element, processingEnv.getTypeUtils());
+                }
+
+                // Test3 的两个子类绑定结果相同，共用同一个规范实例
+                RetrievalClassModel test4 = config.retrievalClassMap().get("t.Test4");
+                RetrievalClassModel test4b = config.retrievalClassMap().get("t.Test4b");
+                assertSame(test4, test4b);
+                assertTrue(test4.isFrozen());
+                assertNotSame(test4, config.retrievalClassMap().get("t.SwapLeaf"));
+                assertTrue(config.modelInterner().size() > 0);
+                try {
+                    test4.bindPosition(0, null);
+                    fail("interned model must be immutable");
+                } catch (IllegalStateException expected) {
+                    // 期望抛出
+                }
+
+                // 共用的泛型记录只读，复制后可修改
+                IGenericsRecord record = test4.getRecord();
+                try {
+                    record.put(RetrievalSamples.TYPE_NAMES[0], null);
+                    fail("interned record must be immutable");
+                } catch (UnsupportedOperationException expected) {
+                    // 期望抛出
+                }
+                assertEquals("java.util.List<java.lang.String>",
+                        record.get(RetrievalSamples.TYPE_NAMES[0]).toString());
+                IGenericsRecord copy = record.clone();
+                copy.put(RetrievalSamples.TYPE_NAMES[0], null);
+                assertNull(copy.get(RetrievalSamples.TYPE_NAMES[0]));
+                assertNotNull(record.get(RetrievalSamples.TYPE_NAMES[0]));
+            }
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package org.sheedon.compilationtool.retrieval;
+
+import org.sheedon.compilationtool.InMemoryCompilation;
+import org.sheedon.compilationtool.TestRetrieval;
+import org.sheedon.compilationtool.retrieval.core.AbstractGenericsRetrieval;
+import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * 泛型检索测试共用的继承结构与检索者：
+ * 目标类 TargetClass、目标接口 TargetInterface，以及 use-compiler 示例中的 Test1~7、Interface1~3
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 2:00 下午
+ */
+final class RetrievalSamples {
+
+    static final String TARGET_CLASS = "t.TargetClass";
+    static final String TARGET_INTERFACE = "t.TargetInterface";
+    static final String[] TYPE_NAMES = {"RequestCard", "ResponseModel"};
+
+    private RetrievalSamples() {
+    }
+
+    static InMemoryCompilation sample() {
+        return new InMemoryCompilation()
+                .source("t.TargetClass", "package t; public class TargetClass<RequestCard, ResponseModel> {}")
+                .source("t.TargetInterface", "package t; public interface TargetInterface<RequestCard, ResponseModel> {}")
+                .source("t.Test1", "package t; public class Test1<T, K> extends TargetClass<T, K> {}")
+                .source("t.Test2", "package t; public class Test2<T, K, M> extends Test1<K, String> {}")
+                .source("t.Test3", "package t; import java.util.List;\n"
+                        + "public class Test3<T, K, M> extends Test2<T, List<String>, Integer> {}")
+                .source("t.Test4", "package t; public class Test4 extends Test3<String, String, Integer> {}")
+                .source("t.Test4b", "package t; public class Test4b extends Test3<Long, String, Long> {}")
+                .source("t.Swap", "package t; public class Swap<A, B> extends Test1<B, A> {}")
+                .source("t.SwapLeaf", "package t; public class SwapLeaf extends Swap<Integer, String> {}")
+                .source("t.Test5", "package t; public class Test5 extends java.util.ArrayList<String> {}")
+                .source("t.Interface1", "package t; import java.util.List;\n"
+                        + "public interface Interface1<K, T> extends List<K>, TargetInterface<K, T> {}")
+                .source("t.Interface2", "package t;\n"
+                        + "public interface Interface2<T, K, M> extends Comparable<M>, Interface1<K, String> {}")
+                .source("t.Interface3", "package t;\n"
+                        + "public interface Interface3<T, K, M> extends Interface2<T, String, Integer> {}")
+                .source("t.Test6", "package t;\n"
+                        + "public abstract class Test6 extends Test5 implements Runnable, Interface3<String, String, Integer> {\n"
+                        + "    public int compareTo(Integer o) { return 0; }\n"
+                        + "}")
+                .source("t.Test7", "package t; public abstract class Test7 implements Interface2<Long, Double, Integer> {}");
+    }
+
+    static AbstractGenericsRetrieval retrieval(ProcessingEnvironment processingEnv, boolean interfaceRetrieval) {
+        TestRetrieval retrieval = new TestRetrieval(interfaceRetrieval ? TARGET_INTERFACE : TARGET_CLASS, TYPE_NAMES);
+        retrieval.bindTargetElement(processingEnv.getElementUtils().getTypeElement(retrieval.canonicalName()));
+        return interfaceRetrieval ? new InterfaceGenericsRetrieval(retrieval) : new ClassGenericsRetrieval(retrieval);
+    }
+
+    static List<String> bindings(AbstractGenericsRetrieval retrieval, ProcessingEnvironment processingEnv,
+                                 String qualifiedName) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(qualifiedName);
+        RetrievalClassModel model = retrieval.searchGenerics(element, processingEnv.getTypeUtils());
+        return model == null ? null : TestRetrieval.bindings(model.getRecord(), TYPE_NAMES);
+    }
+
+    static List<TypeElement> rootTypes(RoundEnvironment roundEnv) {
+        List<TypeElement> elements = new ArrayList<>();
+        for (Element element : roundEnv.getRootElements()) {
+            elements.add((TypeElement) element);
+        }
+        Collections.sort(elements, new Comparator<TypeElement>() {
+            @Override
+            public int compare(TypeElement first, TypeElement second) {
+                return first.getQualifiedName().toString().compareTo(second.getQualifiedName().toString());
+            }
+        });
+        return elements;
+    }
+}
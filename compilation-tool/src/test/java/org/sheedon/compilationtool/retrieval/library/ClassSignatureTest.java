@@ -0,0 +1,91 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * class 文件签名解析测试：泛型签名、InnerClasses 属性与顶层类判断
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 11:00 上午
+ */
+public class ClassSignatureTest {
+
+    private static final Map<String, byte[]> CLASSES = new InMemoryCompilation()
+            .source("p.Base", "package p; public class Base<A, B> {}")
+            .source("p.Outer", "package p;\n"
+                    + "public class Outer {\n"
+                    + "    public static class Nested<X> extends Base<X, java.util.List<String>>"
+                    + " implements Comparable<Nested<X>> {\n"
+                    + "        public int compareTo(Nested<X> o) { return 0; }\n"
+                    + "    }\n"
+                    + "    Object anonymous = new Object() {};\n"
+                    + "}")
+            .source("p.Foo$Bar", "package p;\n"
+                    + "public class Foo$Bar<T extends Number> extends Base<T[], String> {\n"
+                    + "    public interface In<V> extends Comparable<java.util.List<? extends V>> {}\n"
+                    + "}")
+            .compile();
+
+    @Test
+    public void readsTypeParametersAndSupertypes() {
+        ClassSignature signature = ClassSignature.read(CLASSES.get("p.Outer$Nested"));
+
+        assertEquals("p.Outer$Nested", signature.getBinaryName());
+        assertEquals(Arrays.asList("X"), signature.getTypeParameters());
+        assertEquals("p.Base<X,java.util.List<java.lang.String>>", signature.getSuperclass().toString());
+        assertEquals("[java.lang.Comparable<p.Outer$Nested<X>>]", signature.getInterfaces().toString());
+        assertFalse(signature.isInterface());
+    }
+
+    @Test
+    public void readsArrayWildcardAndBoundedParameters() {
+        ClassSignature bar = ClassSignature.read(CLASSES.get("p.Foo$Bar"));
+        assertEquals(Arrays.asList("T"), bar.getTypeParameters());
+        assertEquals("p.Base<T[],java.lang.String>", bar.getSuperclass().toString());
+
+        ClassSignature in = ClassSignature.read(CLASSES.get("p.Foo$Bar$In"));
+        assertTrue(in.isInterface());
+        assertEquals(Arrays.asList("V"), in.getTypeParameters());
+        assertEquals("[java.lang.Comparable<java.util.List<? extends V>>]", in.getInterfaces().toString());
+    }
+
+    @Test
+    public void qualifiedNameFollowsInnerClasses() {
+        ClassSignature nested = ClassSignature.read(CLASSES.get("p.Outer$Nested"));
+        assertEquals("p.Outer.Nested", nested.qualifiedName("p.Outer$Nested"));
+        assertEquals("p.Base", nested.qualifiedName("p.Base"));
+
+        ClassSignature in = ClassSignature.read(CLASSES.get("p.Foo$Bar$In"));
+        assertEquals("p.Foo$Bar.In", in.qualifiedName("p.Foo$Bar$In"));
+        assertEquals("p.Foo$Bar", in.qualifiedName("p.Foo$Bar"));
+    }
+
+    @Test
+    public void topLevelIsNotDecidedByDollar() {
+        assertTrue(ClassSignature.read(CLASSES.get("p.Foo$Bar")).isTopLevel());
+        assertTrue(ClassSignature.read(CLASSES.get("p.Outer")).isTopLevel());
+        assertFalse(ClassSignature.read(CLASSES.get("p.Outer$Nested")).isTopLevel());
+        assertFalse(ClassSignature.read(CLASSES.get("p.Outer$1")).isTopLevel());
+        assertFalse(ClassSignature.read(CLASSES.get("p.Foo$Bar$In")).isTopLevel());
+    }
+
+    @Test
+    public void toDescriptorKeepsOnlyConcreteTypes() {
+        ClassSignature nested = ClassSignature.read(CLASSES.get("p.Outer$Nested"));
+        GenericSignature listOfString = nested.getSuperclass().getArguments().get(1);
+        assertEquals("java.util.List<java.lang.String>", listOfString.toDescriptor(nested).toString());
+        assertNull(nested.getSuperclass().toDescriptor(nested));
+        assertEquals("java.lang.Object", ClassSignature.read(CLASSES.get("p.Outer")).getSuperclass().toString());
+        assertTrue(ClassSignature.read(CLASSES.get("p.Outer")).getInterfaces().isEmpty());
+    }
+}
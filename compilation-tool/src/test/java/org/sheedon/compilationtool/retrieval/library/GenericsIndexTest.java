@@ -0,0 +1,77 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 泛型索引写出与读取测试
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 11:20 上午
+ */
+public class GenericsIndexTest {
+
+    private static TypeDescriptor type(String qualifiedName, TypeDescriptor... arguments) {
+        return new TypeDescriptor(qualifiedName, arguments);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        GenericsIndex index = new GenericsIndex("t.Target", true, 2);
+        index.put("a.Bound", new LibraryBinding(true, new int[0], new TypeDescriptor[]{
+                type("java.util.List", type("java.lang.String")), type("java.lang.String")}));
+        index.put("a.Partial", new LibraryBinding(true, new int[]{1, -1}, new TypeDescriptor[]{
+                type("java.lang.Long"), null}));
+        index.put("a.Unreachable", LibraryBinding.UNREACHABLE);
+        index.put("a.Skipped", null);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        index.write(outputStream);
+        GenericsIndex read = GenericsIndex.read(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        assertEquals("t.Target", read.getTarget());
+        assertTrue(read.isInterfaceRetrieval());
+        assertEquals(2, read.getTargetParameterCount());
+        assertEquals(3, read.size());
+        for (String name : index.getBindings().keySet()) {
+            assertEquals(name, index.get(name).toString(), read.get(name).toString());
+        }
+        assertFalse(read.get("a.Unreachable").isReachable());
+        assertEquals(type("java.util.List", type("java.lang.String")), read.get("a.Bound").getBinding(0));
+    }
+
+    @Test
+    public void rejectsForeignData() {
+        try {
+            GenericsIndex.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6}));
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // 期望抛出
+        }
+    }
+
+    @Test
+    public void mergesOnlySameTarget() {
+        GenericsIndex index = new GenericsIndex("t.Target", false, 2);
+        GenericsIndex other = new GenericsIndex("t.Target", false, 2);
+        other.put("a.Unreachable", LibraryBinding.UNREACHABLE);
+        index.putAll(other);
+        assertEquals(1, index.size());
+
+        try {
+            index.putAll(new GenericsIndex("t.Target", true, 2));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // 期望抛出
+        }
+    }
+}
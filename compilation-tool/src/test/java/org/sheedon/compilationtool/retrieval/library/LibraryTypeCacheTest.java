@@ -0,0 +1,100 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 依赖库检索结果缓存测试：超过上限时优先淘汰未访问的条目，依赖条目变化时失效，并发写入
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 11:30 上午
+ */
+public class LibraryTypeCacheTest {
+
+    private final Map<String, String> currentHashes = new HashMap<>();
+    private final LibraryTypeCache.EntryHashes entryHashes = new LibraryTypeCache.EntryHashes() {
+        @Override
+        public String currentHash(String entryHash) {
+            return currentHashes.get(entryHash);
+        }
+    };
+
+    @Test
+    public void evictsUnreferencedFirst() {
+        LibraryTypeCache cache = new LibraryTypeCache(2);
+        cache.put("jar", "a.A", "sig", LibraryBinding.UNREACHABLE, new String[0]);
+        cache.put("jar", "a.B", "sig", LibraryBinding.UNREACHABLE, new String[0]);
+        assertNotNull(cache.get("jar", "a.A", "sig", entryHashes));
+
+        cache.put("jar", "a.C", "sig", LibraryBinding.UNREACHABLE, new String[0]);
+        assertEquals(2, cache.size());
+        assertNull(cache.get("jar", "a.B", "sig", entryHashes));
+        assertNotNull(cache.get("jar", "a.A", "sig", entryHashes));
+        assertNotNull(cache.get("jar", "a.C", "sig", entryHashes));
+    }
+
+    @Test
+    public void concurrentWritesStayBounded() throws InterruptedException {
+        final LibraryTypeCache cache = new LibraryTypeCache(100);
+        Thread[] threads = new Thread[4];
+        for (int index = 0; index < threads.length; index++) {
+            final int thread = index;
+            threads[index] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int count = 0; count < 1000; count++) {
+                        String name = "a.T" + thread + "_" + count;
+                        cache.put("jar", name, "sig", LibraryBinding.UNREACHABLE, new String[0]);
+                        cache.get("jar", name, "sig", entryHashes);
+                    }
+                }
+            });
+            threads[index].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // 并发淘汰时条目数可能短暂超过上限，下一次写入后回到上限内
+        cache.put("jar", "a.Last", "sig", LibraryBinding.UNREACHABLE, new String[0]);
+        assertTrue(cache.size() <= 100);
+        assertNotNull(cache.get("jar", "a.Last", "sig", entryHashes));
+    }
+
+    @Test
+    public void changedDependencyInvalidates() {
+        LibraryTypeCache cache = new LibraryTypeCache(10);
+        currentHashes.put("base-1", "base-1");
+        cache.put("jar", "a.A", "sig", LibraryBinding.UNREACHABLE, new String[]{"base-1"});
+        assertSame(LibraryBinding.UNREACHABLE, cache.get("jar", "a.A", "sig", entryHashes));
+
+        currentHashes.put("base-1", "base-2");
+        assertNull(cache.get("jar", "a.A", "sig", entryHashes));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void keyIncludesSignature() {
+        LibraryTypeCache cache = new LibraryTypeCache(10);
+        cache.put("jar", "a.A", "class", LibraryBinding.UNREACHABLE, new String[0]);
+        assertNull(cache.get("jar", "a.A", "interface", entryHashes));
+        assertNull(cache.get("other", "a.A", "class", entryHashes));
+    }
+
+    @Test
+    public void skipsUnknownDependencies() {
+        LibraryTypeCache cache = new LibraryTypeCache(10);
+        cache.put("jar", "a.A", "sig", LibraryBinding.UNREACHABLE, null);
+        cache.put("jar", "a.B", "sig", null, new String[0]);
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,99 @@
+package org.sheedon.compilationtool.retrieval.library;
+
+import org.junit.Test;
+import org.sheedon.compilationtool.InMemoryCompilation;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 依赖库类型作用域测试：源码类型不通过 Filer 查找 classpath 条目
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 5:40 下午
+ */
+public class LibraryTypeScopeTest {
+
+    /**
+     * 统计 Filer.getResource 调用次数的处理环境代理
+     */
+    private static ProcessingEnvironment countingEnvironment(final ProcessingEnvironment processingEnv,
+                                                             final int[] probes) {
+        final Filer filer = (Filer) Proxy.newProxyInstance(Filer.class.getClassLoader(),
+                new Class<?>[]{Filer.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("getResource")) {
+                            probes[0]++;
+                        }
+                        return invokeOn(processingEnv.getFiler(), method, args);
+                    }
+                });
+        return (ProcessingEnvironment) Proxy.newProxyInstance(ProcessingEnvironment.class.getClassLoader(),
+                new Class<?>[]{ProcessingEnvironment.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("getFiler")) {
+                            return filer;
+                        }
+                        return invokeOn(processingEnv, method, args);
+                    }
+                });
+    }
+
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Test
+    public void sourceTypesSkipClasspathProbes() {
+        new InMemoryCompilation()
+                .source("s.Source", "package s; public class Source { public static class Inner {} }")
+                .process(new InMemoryCompilation.RoundCallback() {
+                    @Override
+                    public void process(ProcessingEnvironment processingEnv, RoundEnvironment roundEnv) {
+                        if (roundEnv.processingOver()) {
+                            return;
+                        }
+                        int[] probes = new int[1];
+                        LibraryTypeScope scope = new LibraryTypeScope(countingEnvironment(processingEnv, probes),
+                                new LibraryTypeCache(10));
+                        scope.beginRound(roundEnv);
+                        Elements elements = processingEnv.getElementUtils();
+
+                        TypeElement source = elements.getTypeElement("s.Source");
+                        TypeElement inner = elements.getTypeElement("s.Source.Inner");
+                        assertTrue(scope.isSourceType(source));
+                        assertTrue(scope.isSourceType(inner));
+                        assertNull(scope.entryHash(source));
+                        assertNull(scope.entryHash(inner));
+                        assertNull(scope.publishedBinding(inner, "index.idx"));
+                        assertEquals(0, probes[0]);
+
+                        TypeElement string = elements.getTypeElement("java.lang.String");
+                        assertFalse(scope.isSourceType(string));
+                        assertNotNull(scope.entryHash(string));
+                        assertTrue(probes[0] > 0);
+                    }
+                });
+    }
+}
@@ -6,9 +6,17 @@ import org.sheedon.annotation.GenericsClassTest;
 import org.sheedon.annotation.GenericsInterfaceTest;
 import org.sheedon.compilationtool.retrieval.ClassGenericsRetrieval;
 import org.sheedon.compilationtool.retrieval.InterfaceGenericsRetrieval;
+import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+import org.sheedon.compilationtool.retrieval.core.RetrievalRegistry;
+import org.sheedon.compilationtool.retrieval.library.GenericsIndexPublisher;
+import org.sheedon.compilationtool.retrieval.library.LibraryTypeScope;
+import org.sheedon.compilationtool.retrieval.trace.ResolutionTrace;
+import org.sheedon.compilationtool.retrieval.trace.RetrievalTracer;
 
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
@@ -22,6 +30,7 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
 
 /**
  * 泛型检索测试
@@ -36,6 +45,12 @@ public class GenericsInterfaceTestProcessor extends AbstractProcessor {
     private Filer mFiler;
     private Elements mElementUtils;
     private Types mTypeUtils;
+    private RetrievalTracer mTracer;
+    private RetrievalRegistry mRegistry;
+    private LibraryTypeScope mLibraryScope;
+    private GenericsIndexPublisher mPublisher;
+    private InterfaceGenericsRetrievalTest mTest;
+    private InterfaceGenericsRetrieval mRetrieval;
 
     @Override
     public synchronized void init(ProcessingEnvironment processingEnv) {
@@ -45,6 +60,35 @@ public class GenericsInterfaceTestProcessor extends AbstractProcessor {
         mFiler = processingEnv.getFiler();
         mElementUtils = processingEnv.getElementUtils();
         mTypeUtils = processingEnv.getTypeUtils();
+        mTracer = RetrievalTracer.fromOptions(processingEnv.getOptions());
+        // 同一编译中的处理器共用规范表、可达性索引和依赖库缓存作用域
+        mRegistry = RetrievalRegistry.of(processingEnv);
+        mLibraryScope = mRegistry.libraryScope();
+
+        // 检索记录跨轮次保留，父类尚未生成的类型在后续轮次重新检索
+        mTest = new InterfaceGenericsRetrievalTest();
+        mTest.bindTargetElement(mElementUtils.getTypeElement(mTest.canonicalName()));
+        mTest.attachTracer(mTracer);
+        mTest.attachLibraryScope(mLibraryScope);
+        mRetrieval = new InterfaceGenericsRetrieval(mTest);
+        mRetrieval.attachRegistry(mRegistry);
+        mPublisher = GenericsIndexPublisher.fromOptions(processingEnv, mRetrieval);
+    }
+
+    /**
+     * 已检索的记录，全类名 - 检索记录
+     */
+    public Map<String, RetrievalClassModel> retrievalClassMap() {
+        return mTest.retrievalClassMap();
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        Set<String> options = RetrievalTracer.supportedOptions();
+        options.add(LibraryTypeScope.OPTION_LIBRARY_CACHE);
+        options.add(LibraryTypeScope.OPTION_LIBRARY_SIGNATURE);
+        options.add(GenericsIndexPublisher.OPTION_PUBLISH_INDEX);
+        return options;
     }
 
     @Override
@@ -61,20 +105,43 @@ public class GenericsInterfaceTestProcessor extends AbstractProcessor {
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // 记录本轮源码类型，依赖库缓存不再为它们查找 classpath
+        if (mLibraryScope != null) {
+            mLibraryScope.beginRound(roundEnv);
+        }
+
+        // 等待本轮新生成类型的类型
+        for (TypeElement element : mRetrieval.releaseDeferred(roundEnv, mElementUtils)) {
+            mRetrieval.searchGenerics(element, mTypeUtils);
+        }
+
+        if (mPublisher != null) {
+            mPublisher.collect(roundEnv);
+            if (roundEnv.processingOver()) {
+                try {
+                    mPublisher.publish();
+                } catch (IOException e) {
+                    mMessager.printMessage(Diagnostic.Kind.ERROR, "publish generics index failed: " + e);
+                }
+            }
+        }
+
+        if (roundEnv.processingOver() && mTracer != null) {
+            for (ResolutionTrace trace : mTracer.drain()) {
+                mMessager.printMessage(Diagnostic.Kind.NOTE, trace.toString());
+            }
+        }
 
         if (annotations == null || annotations.isEmpty()) {
             return false;
         }
 
-        InterfaceGenericsRetrievalTest test = new InterfaceGenericsRetrievalTest();
-
-        InterfaceGenericsRetrieval retrieval = new InterfaceGenericsRetrieval(test);
         Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(GenericsInterfaceTest.class);
         for (Element element : elements) {
-            retrieval.searchGenerics((TypeElement) element, mTypeUtils);
+            mRetrieval.searchGenerics((TypeElement) element, mTypeUtils);
         }
 
-        System.out.println(test.retrievalClassMap());
+        System.out.println(mTest.retrievalClassMap());
         return true;
     }
 }
@@ -0,0 +1,129 @@
+package org.sheedon.use.compier.scale;
+
+import java.util.Map;
+
+/**
+ * 规模测试中生成的继承结构形态
+ * <p>
+ * DEEP_CHAIN：深继承链，每层交换泛型位置后继承上一层，最终继承 TargetClass
+ * WIDE_FANOUT：宽扇出，大量子类继承同一个泛型基类
+ * INTERFACE_DIAMOND：接口菱形，实现类同时实现两个继承自同一接口的接口
+ * UNREACHABLE：无法到达目标类/接口的类，用于验证排除逻辑的开销
+ * <p>
+ * 生成时同时记录注解类型的期望检索结果，见 {@link ScaleExpectation}
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/9 2:10 下午
+ */
+public enum HierarchyShape {
+
+    DEEP_CHAIN {
+        @Override
+        void generate(String packageName, int limit, int depth, int width, Map<String, String> sources,
+                      ScaleExpectation expected) {
+            int count = Math.min(limit, depth);
+            put(sources, packageName, "Chain0",
+                    "@GenericsClassTest\npublic class Chain0<A, B> extends TargetClass<A, B> {\n}\n");
+            expected.classRecord(packageName + ".Chain0", null, null);
+            for (int index = 1; index < count - 1; index++) {
+                put(sources, packageName, "Chain" + index,
+                        "@GenericsClassTest\npublic class Chain" + index + "<A, B> extends Chain"
+                                + (index - 1) + "<B, A> {\n}\n");
+                expected.classRecord(packageName + ".Chain" + index, null, null);
+            }
+            if (count > 1) {
+                put(sources, packageName, "ChainLeaf",
+                        "@GenericsClassTest\npublic class ChainLeaf extends Chain"
+                                + (count - 2) + "<String, Integer> {\n}\n");
+                // 每层交换一次位置
+                if ((count - 2) % 2 == 0) {
+                    expected.classRecord(packageName + ".ChainLeaf", STRING, INTEGER);
+                } else {
+                    expected.classRecord(packageName + ".ChainLeaf", INTEGER, STRING);
+                }
+            }
+        }
+    },
+
+    WIDE_FANOUT {
+        @Override
+        void generate(String packageName, int limit, int depth, int width, Map<String, String> sources,
+                      ScaleExpectation expected) {
+            put(sources, packageName, "Base",
+                    "public class Base<A, B> extends TargetClass<A, B> {\n}\n");
+            put(sources, packageName, "Middle",
+                    "public class Middle<A> extends Base<A, Long> {\n}\n");
+            int count = Math.min(limit, width + 2);
+            for (int index = 2; index < count; index++) {
+                put(sources, packageName, "Leaf" + index,
+                        "@GenericsClassTest\npublic class Leaf" + index + " extends Middle<String> {\n}\n");
+                expected.classRecord(packageName + ".Leaf" + index, STRING, LONG);
+            }
+        }
+    },
+
+    INTERFACE_DIAMOND {
+        @Override
+        void generate(String packageName, int limit, int depth, int width, Map<String, String> sources,
+                      ScaleExpectation expected) {
+            put(sources, packageName, "Root",
+                    "public interface Root<A, B> extends TargetInterface<A, B> {\n}\n");
+            put(sources, packageName, "Left",
+                    "public interface Left<A, B> extends Root<A, B> {\n}\n");
+            put(sources, packageName, "Right",
+                    "public interface Right<B, A> extends Root<A, B> {\n}\n");
+            int count = Math.min(limit, width + 3);
+            for (int index = 3; index < count; index++) {
+                put(sources, packageName, "Impl" + index,
+                        "@GenericsInterfaceTest\npublic class Impl" + index
+                                + " implements Left<String, Long>, Right<Long, String> {\n}\n");
+                expected.interfaceRecord(packageName + ".Impl" + index, STRING, LONG);
+            }
+        }
+    },
+
+    UNREACHABLE {
+        @Override
+        void generate(String packageName, int limit, int depth, int width, Map<String, String> sources,
+                      ScaleExpectation expected) {
+            int count = Math.min(limit, depth);
+            put(sources, packageName, "Marker",
+                    "public interface Marker<T> extends Comparable<T> {\n}\n");
+            put(sources, packageName, "Node1",
+                    "@GenericsClassTest\n@GenericsInterfaceTest\n"
+                            + "public abstract class Node1 extends java.util.ArrayList<String> implements Marker<String> {\n}\n");
+            expected.unreachable(packageName + ".Node1");
+            for (int index = 2; index < count; index++) {
+                put(sources, packageName, "Node" + index,
+                        "@GenericsClassTest\n@GenericsInterfaceTest\npublic abstract class Node" + index
+                                + " extends Node" + (index - 1) + " implements Marker<String> {\n}\n");
+                expected.unreachable(packageName + ".Node" + index);
+            }
+        }
+    };
+
+    static final String STRING = "java.lang.String";
+    static final String INTEGER = "java.lang.Integer";
+    static final String LONG = "java.lang.Long";
+
+    /**
+     * 在指定包中生成一组类，最多 limit 个
+     *
+     * @param packageName 包名
+     * @param limit       本组允许生成的最大类数量
+     * @param depth       继承链深度
+     * @param width       扇出宽度
+     * @param sources     全类名 - 源码
+     * @param expected    期望的检索结果
+     */
+    abstract void generate(String packageName, int limit, int depth, int width, Map<String, String> sources,
+                           ScaleExpectation expected);
+
+    private static void put(Map<String, String> sources, String packageName, String simpleName, String body) {
+        String content = "package " + packageName + ";\n\n"
+                + "import org.sheedon.annotation.*;\n\n"
+                + body;
+        sources.put(packageName + "." + simpleName, content);
+    }
+}
@@ -0,0 +1,128 @@
+package org.sheedon.use.compier.scale;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 大规模继承结构测试，生成 1k/10k/50k 个类，在内存中编译并运行处理器，
+ * 检索结果与生成时记录的期望不一致，或超出耗时、堆内存预算则失败，用于尽早发现超线性增长。
+ * <p>
+ * 可通过系统属性调整：
+ * scale.sizes   执行的规模，默认 1000,10000,50000
+ * scale.shapes  继承形态，默认全部，见 {@link HierarchyShape}
+ * scale.depth   继承链深度，默认 32
+ * scale.width   扇出宽度，默认 100
+ * scale.budget.factor 预算倍率，默认 1.0，用于较慢的机器
+ * <p>
+ * 执行方式：./gradlew :use-compiler:scaleTest
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/9 3:02 下午
+ */
+public class RetrievalScaleTest {
+
+    @Test
+    public void scale1k() {
+        runScale(1_000, new Budget(2_000, 60_000, 512));
+    }
+
+    @Test
+    public void scale10k() {
+        runScale(10_000, new Budget(8_000, 240_000, 1024));
+    }
+
+    @Test
+    public void scale50k() {
+        runScale(50_000, new Budget(30_000, 900_000, 3072));
+    }
+
+    private void runScale(int classCount, Budget budget) {
+        Assume.assumeTrue("scale " + classCount + " disabled", enabledSizes().contains(classCount));
+
+        ScaleSourceGenerator generator = new ScaleSourceGenerator(shapes())
+                .depth(Integer.getInteger("scale.depth", 32))
+                .width(Integer.getInteger("scale.width", 100));
+        Map<String, String> sources = generator.generate(classCount);
+
+        ScaleResult result = ScaleCompilation.run(sources);
+        System.out.println(result);
+
+        assertTrue("compilation failed: " + result.getErrors(), result.isSuccess());
+        ScaleExpectation expectation = generator.getExpectation();
+        assertEquals(Arrays.asList("java.util.List<java.lang.String>", "java.lang.String"),
+                result.getClassRecords().get("scale.sample.Test4"));
+        assertEquals(Arrays.asList("java.lang.String", "java.lang.String"),
+                result.getInterfaceRecords().get("scale.sample.Test6"));
+        assertEquals(Arrays.asList("java.lang.String", "java.lang.String"),
+                result.getInterfaceRecords().get("scale.sample.Interface3"));
+        assertRecords("class", expectation.getClassRecords(), result.getClassRecords());
+        assertRecords("interface", expectation.getInterfaceRecords(), result.getInterfaceRecords());
+        double factor = Double.parseDouble(System.getProperty("scale.budget.factor", "1.0"));
+        assertTrue("process budget exceeded: " + result,
+                result.getProcessMillis() <= budget.processMillis * factor);
+        assertTrue("wall budget exceeded: " + result,
+                result.getWallMillis() <= budget.wallMillis * factor);
+        assertTrue("heap budget exceeded: " + result,
+                (result.getPeakHeapBytes() >> 20) <= budget.heapMegabytes * factor);
+    }
+
+    private static void assertRecords(String kind, Map<String, List<String>> expected,
+                                      Map<String, List<String>> actual) {
+        for (Map.Entry<String, List<String>> entry : expected.entrySet()) {
+            // 检索不到目标类的类型可能在可达性判断时直接排除，不留下记录
+            if (entry.getValue() != null) {
+                assertTrue(kind + " record missing: " + entry.getKey(), actual.containsKey(entry.getKey()));
+            }
+            assertEquals(kind + " record of " + entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+        }
+    }
+
+    private static List<Integer> enabledSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        for (String size : System.getProperty("scale.sizes", "1000,10000,50000").split(",")) {
+            if (!size.trim().isEmpty()) {
+                sizes.add(Integer.parseInt(size.trim()));
+            }
+        }
+        return sizes;
+    }
+
+    private static List<HierarchyShape> shapes() {
+        String value = System.getProperty("scale.shapes");
+        List<HierarchyShape> shapes = new ArrayList<>();
+        if (value == null || value.trim().isEmpty()) {
+            for (HierarchyShape shape : HierarchyShape.values()) {
+                shapes.add(shape);
+            }
+            return shapes;
+        }
+        for (String name : value.split(",")) {
+            shapes.add(HierarchyShape.valueOf(name.trim().toUpperCase()));
+        }
+        return shapes;
+    }
+
+    /**
+     * 预算：处理器耗时、整体耗时（毫秒）和堆内存峰值（MB）
+     */
+    private static class Budget {
+        private final long processMillis;
+        private final long wallMillis;
+        private final long heapMegabytes;
+
+        Budget(long processMillis, long wallMillis, long heapMegabytes) {
+            this.processMillis = processMillis;
+            this.wallMillis = wallMillis;
+            this.heapMegabytes = heapMegabytes;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package org.sheedon.use.compier.scale;
+
+import org.sheedon.compilationtool.retrieval.core.IGenericsRecord;
+import org.sheedon.compilationtool.retrieval.core.RetrievalClassModel;
+import org.sheedon.use.compier.GenericsClassTestProcessor;
+import org.sheedon.use.compier.GenericsInterfaceTestProcessor;
+import org.sheedon.use.compier.RRGenericsRecord;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * 在内存中编译生成的源码，并端到端运行 use-compiler 中的处理器，
+ * 记录整体耗时、处理器耗时、堆内存峰值和检索结果
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/9 2:41 下午
+ */
+public class ScaleCompilation {
+
+    /**
+     * 编译并运行处理器
+     *
+     * @param sources 全类名 - 源码
+     * @return 统计结果
+     */
+    public static ScaleResult run(Map<String, String> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("system java compiler not found, run the suite on a JDK");
+        }
+
+        List<JavaFileObject> units = new ArrayList<>(sources.size());
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            units.add(new SourceFile(entry.getKey(), entry.getValue()));
+        }
+
+        GenericsClassTestProcessor classProcessor = new GenericsClassTestProcessor();
+        GenericsInterfaceTestProcessor interfaceProcessor = new GenericsInterfaceTestProcessor();
+        List<TimedProcessor> processors = Arrays.asList(
+                new TimedProcessor(classProcessor),
+                new TimedProcessor(interfaceProcessor));
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null, null);
+        JavaFileManager fileManager = new DiscardingFileManager(standardManager);
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"));
+
+        resetPeakUsage();
+        // 处理器会打印完整的检索结果，规模测试中丢弃
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new NullOutputStream()));
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    options, null, units);
+            task.setProcessors(processors);
+            success = task.call();
+        } finally {
+            System.setOut(out);
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        long processNanos = 0;
+        for (TimedProcessor processor : processors) {
+            processNanos += processor.elapsedNanos;
+        }
+
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.toString());
+            }
+        }
+
+        return new ScaleResult(sources.size(), success, wallNanos, processNanos, peakHeapUsage(), errors,
+                records(classProcessor.retrievalClassMap()), records(interfaceProcessor.retrievalClassMap()));
+    }
+
+    /**
+     * 检索记录转为 [RequestCard, ResponseModel] 的字符串形式，检索不到目标类的为null
+     */
+    private static Map<String, List<String>> records(Map<String, RetrievalClassModel> retrievalClassMap) {
+        Map<String, List<String>> records = new HashMap<>();
+        for (Map.Entry<String, RetrievalClassModel> entry : retrievalClassMap.entrySet()) {
+            RetrievalClassModel model = entry.getValue();
+            if (model == null || model.getState() == RetrievalClassModel.State.UNREACHABLE) {
+                records.put(entry.getKey(), null);
+                continue;
+            }
+            IGenericsRecord record = model.getRecord();
+            records.put(entry.getKey(), Arrays.asList(
+                    typeName(record.get(RRGenericsRecord.REQUEST_CARD)),
+                    typeName(record.get(RRGenericsRecord.RESPONSE_MODEL))));
+        }
+        return records;
+    }
+
+    private static String typeName(TypeMirror mirror) {
+        return mirror == null ? null : mirror.toString();
+    }
+
+    /**
+     * 重置堆内存池的峰值
+     */
+    private static void resetPeakUsage() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * 堆内存峰值，各内存池峰值之和，作为实际峰值的上限估计
+     */
+    private static long peakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage usage = pool.getPeakUsage();
+            if (usage != null) {
+                peak += usage.getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * 内存中的源码文件
+     */
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String content;
+
+        SourceFile(String qualifiedName, String content) {
+            super(URI.create("string:///" + qualifiedName.replace('.', '/') + Kind.SOURCE.extension),
+                    Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    /**
+     * 丢弃所有输出的文件管理者
+     */
+    private static class DiscardingFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        DiscardingFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("discard:///" + className.replace('.', '/')
+                    + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new NullOutputStream();
+                }
+            };
+        }
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    /**
+     * 统计 process() 耗时的处理器代理
+     */
+    private static class TimedProcessor implements Processor {
+
+        private final Processor delegate;
+        private long elapsedNanos;
+
+        TimedProcessor(Processor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Set<String> getSupportedOptions() {
+            return delegate.getSupportedOptions();
+        }
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return delegate.getSupportedAnnotationTypes();
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return delegate.getSupportedSourceVersion();
+        }
+
+        @Override
+        public void init(ProcessingEnvironment processingEnv) {
+            delegate.init(processingEnv);
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            long start = System.nanoTime();
+            try {
+                return delegate.process(annotations, roundEnv);
+            } finally {
+                elapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation,
+                                                             ExecutableElement member, String userText) {
+            return delegate.getCompletions(element, annotation, member, userText);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.sheedon.use.compier.scale;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 规模测试中注解类型的期望检索结果，
+ * 全类名 - [RequestCard, ResponseModel] 实际类型，未绑定的位置为null，检索不到目标类时整体为null（允许没有记录）
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/18 5:10 下午
+ */
+public class ScaleExpectation {
+
+    // 类检索期望结果
+    private final Map<String, List<String>> classRecords = new LinkedHashMap<>();
+    // 接口检索期望结果
+    private final Map<String, List<String>> interfaceRecords = new LinkedHashMap<>();
+
+    void classRecord(String qualifiedName, String requestCard, String responseModel) {
+        classRecords.put(qualifiedName, Arrays.asList(requestCard, responseModel));
+    }
+
+    void interfaceRecord(String qualifiedName, String requestCard, String responseModel) {
+        interfaceRecords.put(qualifiedName, Arrays.asList(requestCard, responseModel));
+    }
+
+    /**
+     * 类检索与接口检索均检索不到目标类
+     */
+    void unreachable(String qualifiedName) {
+        classRecords.put(qualifiedName, null);
+        interfaceRecords.put(qualifiedName, null);
+    }
+
+    public Map<String, List<String>> getClassRecords() {
+        return Collections.unmodifiableMap(classRecords);
+    }
+
+    public Map<String, List<String>> getInterfaceRecords() {
+        return Collections.unmodifiableMap(interfaceRecords);
+    }
+}
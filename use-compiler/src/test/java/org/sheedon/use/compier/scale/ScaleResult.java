@@ -0,0 +1,88 @@
+package org.sheedon.use.compier.scale;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 规模测试结果
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/9 2:35 下午
+ */
+public class ScaleResult {
+
+    // 类数量
+    private final int classCount;
+    // 编译是否成功
+    private final boolean success;
+    // 整体耗时（含javac解析与属性分析）
+    private final long wallNanos;
+    // 处理器 process() 耗时
+    private final long processNanos;
+    // 堆内存峰值
+    private final long peakHeapBytes;
+    // 编译错误
+    private final List<String> errors;
+    // 类检索结果，格式见 ScaleExpectation
+    private final Map<String, List<String>> classRecords;
+    // 接口检索结果
+    private final Map<String, List<String>> interfaceRecords;
+
+    ScaleResult(int classCount, boolean success, long wallNanos, long processNanos,
+                long peakHeapBytes, List<String> errors,
+                Map<String, List<String>> classRecords, Map<String, List<String>> interfaceRecords) {
+        this.classCount = classCount;
+        this.success = success;
+        this.wallNanos = wallNanos;
+        this.processNanos = processNanos;
+        this.peakHeapBytes = peakHeapBytes;
+        this.errors = errors;
+        this.classRecords = classRecords;
+        this.interfaceRecords = interfaceRecords;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public long getWallMillis() {
+        return wallNanos / 1_000_000;
+    }
+
+    public long getProcessMillis() {
+        return processNanos / 1_000_000;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public Map<String, List<String>> getClassRecords() {
+        return classRecords;
+    }
+
+    public Map<String, List<String>> getInterfaceRecords() {
+        return interfaceRecords;
+    }
+
+    @Override
+    public String toString() {
+        return "ScaleResult{" +
+                "classCount=" + classCount +
+                ", success=" + success +
+                ", wallMillis=" + getWallMillis() +
+                ", processMillis=" + getProcessMillis() +
+                ", peakHeapMB=" + (peakHeapBytes >> 20) +
+                ", errors=" + errors.size() +
+                '}';
+    }
+}
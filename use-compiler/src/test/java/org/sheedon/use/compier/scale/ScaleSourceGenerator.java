@@ -0,0 +1,109 @@
+package org.sheedon.use.compier.scale;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 规模测试源码生成器，先生成 app 模块中的示例继承结构，再按形态轮流生成类组，直至达到目标类数量；
+ * 生成的同时记录期望的检索结果，见 {@link #getExpectation()}
+ *
+ * @Author: sheedon
+ * @Email: sheedonsun@163.com
+ * @Date: 2022/1/9 2:26 下午
+ */
+public class ScaleSourceGenerator {
+
+    // 示例所在包
+    private static final String SAMPLE_PACKAGE = "scale.sample";
+
+    private final List<HierarchyShape> shapes = new ArrayList<>();
+    // 继承链深度
+    private int depth = 32;
+    // 扇出宽度
+    private int width = 100;
+    // 期望的检索结果
+    private final ScaleExpectation expectation = new ScaleExpectation();
+
+    public ScaleSourceGenerator(List<HierarchyShape> shapes) {
+        if (shapes == null || shapes.isEmpty()) {
+            throw new IllegalArgumentException("shapes is empty");
+        }
+        this.shapes.addAll(shapes);
+    }
+
+    public ScaleSourceGenerator depth(int depth) {
+        this.depth = Math.max(1, depth);
+        return this;
+    }
+
+    public ScaleSourceGenerator width(int width) {
+        this.width = Math.max(1, width);
+        return this;
+    }
+
+    /**
+     * 生成源码
+     *
+     * @param classCount 类数量
+     * @return 全类名 - 源码
+     */
+    public Map<String, String> generate(int classCount) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        putSamples(sources);
+        int group = 0;
+        while (sources.size() < classCount) {
+            HierarchyShape shape = shapes.get(group % shapes.size());
+            String packageName = "scale." + shape.name().toLowerCase() + ".g" + group;
+            shape.generate(packageName, classCount - sources.size(), depth, width, sources, expectation);
+            group++;
+        }
+        return sources;
+    }
+
+    /**
+     * 最近一次生成的期望检索结果
+     */
+    public ScaleExpectation getExpectation() {
+        return expectation;
+    }
+
+    /**
+     * app 模块中的示例：Test1~Test4 为类继承链，Interface1~Interface3 为接口继承链，
+     * Test6 同时继承无关父类并实现多个接口
+     */
+    private void putSamples(Map<String, String> sources) {
+        putSample(sources, "Test1", "public class Test1<T, K> extends TargetClass<T, K> {\n}\n");
+        putSample(sources, "Test2", "public class Test2<T, K, M> extends Test1<K, String> {\n}\n");
+        putSample(sources, "Test3",
+                "public class Test3<T, K, M> extends Test2<T, List<String>, Integer> {\n}\n");
+        putSample(sources, "Test4",
+                "@GenericsClassTest\npublic class Test4 extends Test3<String, String, Integer> {\n}\n");
+        putSample(sources, "Test5",
+                "@GenericsClassTest\npublic class Test5 extends java.util.ArrayList<String> {\n}\n");
+        putSample(sources, "Interface1",
+                "public interface Interface1<K, T> extends List<K>, TargetInterface<K, T> {\n}\n");
+        putSample(sources, "Interface2",
+                "public interface Interface2<T, K, M> extends Comparable<M>, Interface1<K, String> {\n}\n");
+        putSample(sources, "Interface3",
+                "public interface Interface3<T, K, M> extends Interface2<T, String, Integer> {\n}\n");
+        putSample(sources, "Test6", "@GenericsInterfaceTest\n"
+                + "public abstract class Test6 extends Test5 implements Runnable, Interface3<String, String, Integer> {\n"
+                + "    public int compareTo(Integer o) {\n        return 0;\n    }\n}\n");
+        putSample(sources, "Test7", "@GenericsInterfaceTest\n"
+                + "public abstract class Test7 implements Interface2<Long, Double, Integer> {\n}\n");
+
+        expectation.classRecord(SAMPLE_PACKAGE + ".Test4", "java.util.List<java.lang.String>", HierarchyShape.STRING);
+        expectation.interfaceRecord(SAMPLE_PACKAGE + ".Test6", HierarchyShape.STRING, HierarchyShape.STRING);
+        expectation.interfaceRecord(SAMPLE_PACKAGE + ".Interface3", HierarchyShape.STRING, HierarchyShape.STRING);
+        expectation.interfaceRecord(SAMPLE_PACKAGE + ".Test7", "java.lang.Double", HierarchyShape.STRING);
+    }
+
+    private static void putSample(Map<String, String> sources, String simpleName, String body) {
+        sources.put(SAMPLE_PACKAGE + "." + simpleName, "package " + SAMPLE_PACKAGE + ";\n\n"
+                + "import org.sheedon.annotation.*;\n\n"
+                + "import java.util.List;\n\n"
+                + body);
+    }
+}